@@ -0,0 +1,88 @@
+package com.botsfer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Title of the foreground window, for labelling screenshots. Starting PowerShell for every frame
+ * would cost more than the capture, so one PowerShell process is kept running and asked over
+ * stdin. Windows only; elsewhere (or if PowerShell fails) the title is empty.
+ */
+final class ActiveWindow implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ActiveWindow.class);
+    private static final boolean WINDOWS = System.getProperty("os.name", "").toLowerCase().contains("win");
+    private static final long TIMEOUT_MS = 2000;
+    /** The first answer also waits for PowerShell to start and compile the Add-Type helper. */
+    private static final long STARTUP_TIMEOUT_MS = 15000;
+    private static final long RETRY_AFTER_MS = 10 * 60 * 1000L;
+    private static final String MARK = "@@title:";
+    private static final String INIT = "[Console]::OutputEncoding = [Text.Encoding]::UTF8; "
+            + "Add-Type -TypeDefinition 'using System; using System.Text; using System.Runtime.InteropServices; "
+            + "public static class BotsferForeground { "
+            + "[DllImport(\"user32.dll\")] static extern IntPtr GetForegroundWindow(); "
+            + "[DllImport(\"user32.dll\", CharSet = CharSet.Unicode)] static extern int GetWindowText(IntPtr h, StringBuilder s, int n); "
+            + "public static string Title() { var sb = new StringBuilder(512); GetWindowText(GetForegroundWindow(), sb, 512); return sb.ToString(); } }'";
+
+    private Process process;
+    private Writer stdin;
+    private BufferedReader stdout;
+    private long retryAt;
+    private boolean answered;
+
+    /** Current foreground window title, or "" when unknown. Called from one thread only. */
+    String title() {
+        if (!WINDOWS || System.currentTimeMillis() < retryAt) return "";
+        try {
+            if (process == null || !process.isAlive()) start();
+            stdin.write("'" + MARK + "' + [BotsferForeground]::Title()\n");
+            stdin.flush();
+            long timeout = answered ? TIMEOUT_MS : STARTUP_TIMEOUT_MS;
+            long deadline = System.currentTimeMillis() + timeout;
+            while (System.currentTimeMillis() < deadline) {
+                if (!stdout.ready()) {
+                    Thread.sleep(5);
+                    continue;
+                }
+                String line = stdout.readLine();
+                if (line != null && line.startsWith(MARK)) {
+                    answered = true;
+                    return line.substring(MARK.length()).trim();
+                }
+            }
+            throw new IllegalStateException("no answer within " + timeout + "ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "";
+        } catch (Exception e) {
+            log.debug("[Screenshot] Window title unavailable: {}", e.getMessage());
+            close();
+            retryAt = System.currentTimeMillis() + RETRY_AFTER_MS;
+            return "";
+        }
+    }
+
+    private void start() throws Exception {
+        close();
+        process = new ProcessBuilder("powershell", "-NoProfile", "-NonInteractive", "-Command", "-")
+                .redirectErrorStream(true)
+                .start();
+        stdin = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+        stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        answered = false;
+        stdin.write(INIT + "\n");
+        stdin.flush();
+    }
+
+    @Override
+    public void close() {
+        if (process != null) process.destroy();
+        process = null;
+    }
+}
@@ -1,10 +1,14 @@
 package com.botsfer;
 
+import com.botsfer.agent.ActivityMonitor;
+import com.botsfer.agent.AutonomousTelemetry;
 import com.botsfer.agent.PcAgentService;
 import com.botsfer.agent.SystemContextProvider;
 import com.botsfer.agent.WorkingSoundService;
 import com.botsfer.agent.tools.*;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.botsfer.tracing.Span;
+import com.botsfer.transcription.TranscriptionService;
+import com.botsfer.tracing.Tracer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,25 +17,24 @@ import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.net.http.HttpClient.Version;
-import java.nio.charset.StandardCharsets;
-import java.time.Duration;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 @Service
@@ -77,8 +80,14 @@ public class ChatService {
     private final PluginLoaderService pluginLoaderService;
     private final SystemTrayService systemTrayService;
     private final LocalModelTools localModelTools;
+    private final SemanticSearchTool semanticSearchTool;
+    private final ToolResultTools toolResultTools;
     private final ToolExecutionNotifier toolNotifier;
     private final WorkingSoundService workingSound;
+    private final AutonomousTelemetry telemetry;
+    private final ActivityMonitor activityMonitor;
+    private final Tracer tracer;
+    private final TranscriptionService transcription;
 
     /** Spring AI ChatClient — null when no API key is configured. Swappable at runtime. */
     @Autowired(required = false)
@@ -136,8 +145,14 @@ public class ChatService {
                        PluginLoaderService pluginLoaderService,
                        SystemTrayService systemTrayService,
                        LocalModelTools localModelTools,
+                       SemanticSearchTool semanticSearchTool,
+                       ToolResultTools toolResultTools,
                        ToolExecutionNotifier toolNotifier,
-                       WorkingSoundService workingSound) {
+                       WorkingSoundService workingSound,
+                       AutonomousTelemetry telemetry,
+                       ActivityMonitor activityMonitor,
+                       Tracer tracer,
+                       TranscriptionService transcription) {
         this.transcriptService = transcriptService;
         this.pcAgent = pcAgent;
         this.systemCtx = systemCtx;
@@ -174,8 +189,14 @@ public class ChatService {
         this.pluginLoaderService = pluginLoaderService;
         this.systemTrayService = systemTrayService;
         this.localModelTools = localModelTools;
+        this.semanticSearchTool = semanticSearchTool;
+        this.toolResultTools = toolResultTools;
         this.toolNotifier = toolNotifier;
         this.workingSound = workingSound;
+        this.telemetry = telemetry;
+        this.activityMonitor = activityMonitor;
+        this.tracer = tracer;
+        this.transcription = transcription;
     }
 
     @PostConstruct
@@ -186,11 +207,25 @@ public class ChatService {
         log.info("║  [ChatService] Working directory: {}", cwd);
         log.info("║  [ChatService] Secrets file exists: {} ({})", secretsFile.exists(), secretsFile.getAbsolutePath());
         log.info("║  [ChatService] ChatClient injected: {}", chatClient != null);
-        log.info("║  [ChatService] OpenAI API key (audio): {}", (openAiApiKey != null && !openAiApiKey.isBlank()) ? "SET" : "NOT SET");
+        log.info("║  [ChatService] Transcription: {}", transcription.describe());
         log.info("╚══════════════════════════════════════════════════════════════╝");
 
         // Seed Spring AI ChatMemory with transcript history so AI remembers previous conversations
         seedChatMemory();
+
+        // Start autonomous work as soon as the user goes idle, stop it the moment they are back
+        activityMonitor.addListener(new ActivityMonitor.Listener() {
+            @Override
+            public void onUserIdle() {
+                checkAutonomousWork();
+            }
+
+            @Override
+            public void onUserActive(String source) {
+                AutonomousSession running = autonomousSession;
+                if (running != null) running.stop("user activity (" + source + ")");
+            }
+        });
     }
 
     private void seedChatMemory() {
@@ -232,25 +267,20 @@ public class ChatService {
     private boolean autonomousEnabled;
     @Value("${app.autonomous.idle-timeout-seconds:60}")
     private int autonomousIdleTimeoutSeconds;
-    @Value("${app.autonomous.pause-between-steps-ms:30000}")
-    private int autonomousPauseBetweenStepsMs;
-
-    private volatile long lastActivityTime = System.currentTimeMillis();
-    private volatile boolean autonomousRunning = false;
-    private volatile java.awt.Point lastCheckedMousePos = null;
-
-    // Audio transcription properties (still uses raw HTTP)
-    @Value("${app.openai.api-key:}")
-    private String openAiApiKey;
-    @Value("${app.openai.base-url:https://api.openai.com/v1}")
-    private String openAiBaseUrl;
-    @Value("${app.openai.transcription-model:gpt-4o-mini-transcribe}")
-    private String openAiTranscriptionModel;
-
-    private final HttpClient httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(20))
-            .version(Version.HTTP_1_1)
-            .build();
+    /** Directives worked on at the same time; the rest queue until a worker frees up. */
+    @Value("${app.autonomous.max-concurrent-workers:3}")
+    private int autonomousMaxWorkers;
+    @Value("${app.autonomous.max-steps-per-directive:25}")
+    private int autonomousMaxSteps;
+    /** Pause after a step that made progress; doubles (up to max-pause-ms) while steps repeat or fail. */
+    @Value("${app.autonomous.min-pause-ms:2000}")
+    private long autonomousMinPauseMs;
+    @Value("${app.autonomous.max-pause-ms:120000}")
+    private long autonomousMaxPauseMs;
+
+    private volatile long lastSessionEnd;
+    private volatile AutonomousSession autonomousSession;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     /**
@@ -262,11 +292,20 @@ public class ChatService {
      * 3. If nothing matched → placeholder reply
      */
     public String getReply(String message) {
+        try (Span span = tracer.start("chat.reply")) {
+            span.attr("chars", message == null ? 0 : message.length());
+            return reply(message);
+        }
+    }
+
+    private String reply(String message) {
         if (message == null) {
             message = "";
         }
         String trimmed = message.trim();
-        lastActivityTime = System.currentTimeMillis();
+        activityMonitor.recordActivity("chat");
+        AutonomousSession running = autonomousSession;
+        if (running != null) running.stop("user sent a message");
         toolNotifier.clear();
         transcriptService.save("USER", trimmed);
 
@@ -285,8 +324,8 @@ public class ChatService {
                         .system(systemCtx.buildSystemMessage())
                         .user(trimmed)
                         // OpenAI allows max 128 tools per request; we have 140+ so exclude optional/niche ones to stay under limit
-// Excluded: modelSwitchTools, globalHotkeyService, pluginLoaderService, systemTrayService, exportTools
-.tools(systemTools, browserTools, fileTools, fileSystemTools, taskStatusTool, chatHistoryTool, clipboardTools, memoryTools, imageTools, huggingFaceImageTool, directivesTools, directiveDataTools, webScraperTools, playwrightTools, weatherTools, notificationTools, calculatorTools, qrTools, downloadTools, hashTools, unitConversionTools, timerTools, ttsTools, pdfTools, emailTools, scheduledTaskTools, summarizationTools, localModelTools)
+// Excluded: modelSwitchTools, globalHotkeyService, pluginLoaderService, systemTrayService, exportTools, unitConversionTools, hashTools
+.tools(systemTools, browserTools, fileTools, fileSystemTools, taskStatusTool, chatHistoryTool, clipboardTools, memoryTools, imageTools, huggingFaceImageTool, directivesTools, directiveDataTools, webScraperTools, playwrightTools, weatherTools, notificationTools, calculatorTools, qrTools, downloadTools, timerTools, ttsTools, pdfTools, emailTools, scheduledTaskTools, summarizationTools, localModelTools, semanticSearchTool, toolResultTools)
                         .call()
                         .content();
 
@@ -331,19 +370,51 @@ public class ChatService {
         if (wavAudio == null || wavAudio.length == 0) {
             return "No audio captured.";
         }
-        if (openAiApiKey == null || openAiApiKey.isBlank()) {
-            return "Audio chat is not configured. Set spring.ai.openai.api-key.";
+        if (!isAudioConfigured()) {
+            return "Audio chat is not configured. Set spring.ai.openai.api-key or app.transcription.backend=local.";
         }
 
-        try {
-            System.out.println("[AudioLLM] Sending transcription request. wavBytes=" + wavAudio.length
-                    + ", transcriptionModel=" + openAiTranscriptionModel
-                    + ", baseUrl=" + openAiBaseUrl);
-            String transcript = transcribeAudio(wavAudio);
-            if (transcript == null || transcript.isBlank()) {
-                return "No speech detected.";
+        try (Span span = tracer.start("chat.audio")) {
+            span.attr("bytes", wavAudio.length);
+            try {
+                return getReplyFromTranscript(transcribe(wavAudio));
+            } catch (Exception e) {
+                span.error(e);
+                System.err.println("[AudioLLM] Exception during audio request: " + e.getMessage());
+                e.printStackTrace();
+                return "Audio chat error: " + e.getMessage();
             }
+        }
+    }
+
+    public boolean isAudioConfigured() {
+        return transcription.isAvailable();
+    }
+
+    /** Transcribe one WAV clip. */
+    public String transcribe(byte[] wavAudio) throws Exception {
+        return transcribe("voice.wav", "audio/wav", ByteBuffer.wrap(wavAudio));
+    }
 
+    /**
+     * Transcribe audio given as one or more buffers that together form the file, e.g. a WAV header
+     * and the PCM it describes, or an already-encoded Opus/FLAC/MP3 clip with a matching filename.
+     * The buffers are uploaded as they are, without being joined. Used for whole recordings and for
+     * the speech segments NativeVoiceService sends while the user is still talking.
+     */
+    public String transcribe(String filename, String contentType, ByteBuffer... audio) throws Exception {
+        long bytes = 0;
+        for (ByteBuffer b : audio) bytes += b.remaining();
+        System.out.println("[AudioLLM] Sending transcription request. audioBytes=" + bytes + ", file=" + filename);
+        return transcription.transcribe(filename, contentType, audio);
+    }
+
+    /** Reply to a transcribed voice message, in the audio result format the UI expects. */
+    public String getReplyFromTranscript(String transcript) {
+        if (transcript == null || transcript.isBlank()) {
+            return "No speech detected.";
+        }
+        try {
             System.out.println("[AudioLLM] Transcript: " + transcript);
             transcriptService.save("USER(voice)", transcript);
             String reply = getReply(transcript);
@@ -359,180 +430,219 @@ public class ChatService {
         }
     }
 
-    private String transcribeAudio(byte[] wavAudio) throws Exception {
-        String boundary = "----BotsferBoundary" + UUID.randomUUID();
-        byte[] body = buildMultipartWavBody(boundary, wavAudio, openAiTranscriptionModel);
-
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(openAiBaseUrl + "/audio/transcriptions"))
-                .header("Authorization", "Bearer " + openAiApiKey)
-                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
-                .timeout(Duration.ofSeconds(90))
-                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
-                .build();
-
-        HttpResponse<String> response = sendWithRetry(request, 3);
-        if (response.statusCode() < 200 || response.statusCode() >= 300) {
-            System.err.println("[AudioLLM] Transcription failed. status=" + response.statusCode());
-            System.err.println("[AudioLLM] Response body: " + response.body());
-            throw new IllegalStateException("Transcription failed (" + response.statusCode() + ")");
-        }
+    // ═══ Autonomous directive worker ═══
 
-        JsonNode root = objectMapper.readTree(response.body());
-        return root.path("text").asText("");
-    }
+    /**
+     * Start a session if the user is idle and there are directives. Called by the activity monitor
+     * when the user goes idle; the schedule only catches directives added while already idle.
+     */
+    @Scheduled(fixedDelayString = "${app.autonomous.check-interval-ms:15000}")
+    public synchronized void checkAutonomousWork() {
+        if (autonomousSession != null || !autonomousEnabled || chatClient == null) return;
+        if (!activityMonitor.isIdle()) return;
+        // After a session ends, wait one idle period before starting over
+        if (System.currentTimeMillis() - lastSessionEnd < autonomousIdleTimeoutSeconds * 1000L) return;
 
-    private byte[] buildMultipartWavBody(String boundary, byte[] wavAudio, String model) throws Exception {
-        String crlf = "\r\n";
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<String> directives = DirectivesTools.loadDirectiveList();
+        if (directives.isEmpty()) return;
 
-        out.write(("--" + boundary + crlf).getBytes(StandardCharsets.UTF_8));
-        out.write(("Content-Disposition: form-data; name=\"model\"" + crlf + crlf).getBytes(StandardCharsets.UTF_8));
-        out.write(model.getBytes(StandardCharsets.UTF_8));
-        out.write(crlf.getBytes(StandardCharsets.UTF_8));
+        startAutonomousSession(directives);
+    }
 
-        out.write(("--" + boundary + crlf).getBytes(StandardCharsets.UTF_8));
-        out.write(("Content-Disposition: form-data; name=\"file\"; filename=\"voice.wav\"" + crlf)
-                .getBytes(StandardCharsets.UTF_8));
-        out.write(("Content-Type: audio/wav" + crlf + crlf).getBytes(StandardCharsets.UTF_8));
-        out.write(wavAudio);
-        out.write(crlf.getBytes(StandardCharsets.UTF_8));
+    /**
+     * Run each directive as its own worker with its own conversation memory, up to
+     * {@code max-concurrent-workers} at a time. The session ends when every worker is done or the
+     * user comes back, whichever is first.
+     */
+    private void startAutonomousSession(List<String> directives) {
+        ChatClient client = chatClient;
+        int workers = Math.max(1, Math.min(autonomousMaxWorkers, directives.size()));
+        AutonomousSession session = new AutonomousSession(Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "autonomous-worker");
+            t.setDaemon(true);
+            return t;
+        }), telemetry.startSession());
+        autonomousSession = session;
+        log.info("[Autonomous] User idle — starting {} directive worker(s), {} at a time.", directives.size(), workers);
+
+        fileTools.setAsyncCallback(result -> {
+            transcriptService.save("BOT(autonomous-agent)", result);
+            asyncResults.add(result);
+        });
+        workingSound.start();
 
-        out.write(("--" + boundary + "--" + crlf).getBytes(StandardCharsets.UTF_8));
-        return out.toByteArray();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (String directive : directives) {
+            futures.add(CompletableFuture.runAsync(() -> runDirectiveWorker(session, client, directive), session.pool));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).whenComplete((v, e) -> {
+            session.pool.shutdown();
+            workingSound.stop();
+            telemetry.endSession(session.budget);
+            autonomousSession = null;
+            lastSessionEnd = System.currentTimeMillis();
+            log.info("[Autonomous] Session ended{}.", session.stopReason != null ? " (" + session.stopReason + ")" : "");
+        });
     }
 
-    private HttpResponse<String> sendWithRetry(HttpRequest request, int maxAttempts) throws Exception {
-        Exception last = null;
-        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
-            try {
-                return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            } catch (IOException ioe) {
-                last = ioe;
-                System.err.println("[AudioLLM] Network error on attempt " + attempt + "/" + maxAttempts + ": " + ioe.getMessage());
-                if (attempt == maxAttempts) break;
-                Thread.sleep(300L * attempt);
-            } catch (InterruptedException ie) {
-                Thread.currentThread().interrupt();
-                throw ie;
-            }
+    /**
+     * Steps one directive until it is addressed, its step or spend budget is used up, or the session
+     * stops. Each step's token usage and model/tool time go to {@link AutonomousTelemetry}.
+     */
+    private void runDirectiveWorker(AutonomousSession session, ChatClient client, String directive) {
+        String name = directiveFolderName(directive);
+        String conversationId = "autonomous-" + name;
+        AutonomousTelemetry.Budget budget = telemetry.startDirective(session.budget, name);
+        try {
+            stepDirective(session, client, directive, name, conversationId, budget);
+        } finally {
+            telemetry.endDirective(budget);
         }
-        throw last == null ? new IOException("Request failed after retries.") : last;
     }
 
-    // ═══ Autonomous directive worker ═══
+    private void stepDirective(AutonomousSession session, ChatClient client, String directive, String name,
+                               String conversationId, AutonomousTelemetry.Budget budget) {
+        long pause = autonomousMinPauseMs;
+        String previousReply = null;
+        int step = 0;
+        while (step < autonomousMaxSteps && !session.isStopped()) {
+            String exceeded = budget.exceeded();
+            if (exceeded != null) {
+                if (session.isStopped()) break;
+                log.info("[Autonomous] [{}] Stopping: {} used up.", name, exceeded);
+                if (session.budget.exceeded() != null) session.stop(session.budget.exceeded() + " used up");
+                break;
+            }
+            step++;
+            String reply = null;
+            Exception failure = null;
+            try (Span span = tracer.start("autonomous.step")) {
+                span.attr("directive", name).attr("step", step);
+                AutonomousTelemetry.StepTrace trace = telemetry.beginStep(budget, name, step);
+                try {
+                    ChatResponse response = client.prompt()
+                            .system(systemCtx.buildSystemMessage())
+                            .user(buildAutonomousPrompt(directive, name, step))
+                            .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, conversationId))
+                            .tools(systemTools, browserTools, fileTools, fileSystemTools,
+                                   taskStatusTool, chatHistoryTool, clipboardTools,
+                                   imageTools, directivesTools, directiveDataTools,
+                                   webScraperTools, playwrightTools, emailTools,
+                                   scheduledTaskTools, summarizationTools, exportTools,
+                                   localModelTools, semanticSearchTool, toolResultTools)
+                            .call()
+                            .chatResponse();
+                    reply = response != null && response.getResult() != null
+                            ? response.getResult().getOutput().getText() : null;
+                    telemetry.endStep(trace, response, reply == null || reply.isBlank() ? "empty"
+                            : reply.toLowerCase().contains("directive addressed") ? "addressed" : "progress");
+                } catch (Exception e) {
+                    telemetry.endStep(trace, null, "error: " + e.getMessage());
+                    span.error(e);
+                    failure = e;
+                }
+            }
+            if (failure != null) {
+                if (session.isStopped()) break;
+                // Errors are usually rate limits or provider hiccups: back off rather than retry hot
+                pause = Math.min(autonomousMaxPauseMs, Math.max(pause * 2, 5000));
+                log.warn("[Autonomous] [{}] Step {} failed: {} — retrying in {}ms", name, step, failure.getMessage(), pause);
+                if (session.pause(pause)) break;
+                continue;
+            }
 
-    /** Returns true if the system-wide mouse cursor has NOT moved since the last check. */
-    private boolean isMouseStill() {
-        try {
-            java.awt.Point current = java.awt.MouseInfo.getPointerInfo().getLocation();
-            if (lastCheckedMousePos != null && !current.equals(lastCheckedMousePos)) {
-                lastCheckedMousePos = current;
-                return false; // mouse moved
+            if (reply == null || reply.isBlank()) {
+                log.info("[Autonomous] [{}] Nothing actionable.", name);
+                break;
             }
-            lastCheckedMousePos = current;
-            return true;
-        } catch (Exception e) {
-            return true; // can't check (headless?), assume still
+            transcriptService.save("BOT(autonomous:" + name + ")", reply);
+            asyncResults.add(reply);
+            if (reply.toLowerCase().contains("directive addressed")) {
+                log.info("[Autonomous] [{}] Addressed after {} step(s).", name, step);
+                break;
+            }
+            log.info("[Autonomous] [{}] Step {} done: {}", name, step,
+                    reply.length() > 100 ? reply.substring(0, 100) + "..." : reply);
+
+            // Adaptive pacing: keep going while steps move forward, slow down when they repeat themselves
+            pause = isRepeat(previousReply, reply) ? Math.min(autonomousMaxPauseMs, pause * 2) : autonomousMinPauseMs;
+            previousReply = reply;
+            if (session.pause(pause)) break;
+        }
+        if (step >= autonomousMaxSteps) {
+            log.info("[Autonomous] [{}] Step limit ({}) reached.", name, autonomousMaxSteps);
         }
     }
 
-    /** Returns true if the user appears fully idle (no chat AND no mouse movement). */
-    private boolean isUserIdle() {
-        if (!isMouseStill()) return false;
-        long chatIdleMs = System.currentTimeMillis() - lastActivityTime;
-        return chatIdleMs >= autonomousIdleTimeoutSeconds * 1000L;
+    /** True when two step reports share most of their words, i.e. the step made no visible progress. */
+    private static boolean isRepeat(String previous, String current) {
+        if (previous == null) return false;
+        java.util.Set<String> a = new java.util.HashSet<>(List.of(previous.toLowerCase().split("\\W+")));
+        java.util.Set<String> b = new java.util.HashSet<>(List.of(current.toLowerCase().split("\\W+")));
+        java.util.Set<String> union = new java.util.HashSet<>(a);
+        union.addAll(b);
+        a.retainAll(b);
+        return !union.isEmpty() && (double) a.size() / union.size() > 0.8;
     }
 
-    @Scheduled(fixedDelayString = "${app.autonomous.check-interval-ms:15000}")
-    public void checkAutonomousWork() {
-        if (!autonomousEnabled || chatClient == null || autonomousRunning) return;
-
-        String directives = DirectivesTools.loadDirectivesForPrompt();
-        if (directives == null || directives.isBlank()) return;
-
-        if (!isUserIdle()) return;
-
-        autonomousRunning = true;
-        int step = 0;
-        try {
-            log.info("[Autonomous] User idle — starting continuous directive work.");
-
-            while (step < 100) {
-                step++;
-
-                String prompt = buildAutonomousPrompt(directives, step);
-
-                Consumer<String> asyncCallback = result -> {
-                    transcriptService.save("BOT(autonomous-agent)", result);
-                    asyncResults.add(result);
-                };
-                fileTools.setAsyncCallback(asyncCallback);
-                workingSound.start();
+    /**
+     * Folder-safe short name for a directive, used for its data folder and conversation id. Long
+     * names are cut to 40 characters plus a hash of the full text, so directives that share a
+     * prefix stay apart.
+     */
+    private static String directiveFolderName(String directive) {
+        String safe = directive.toLowerCase()
+                .replaceAll("[^a-z0-9]+", "-")
+                .replaceAll("^-+|-+$", "");
+        if (safe.length() > 40) {
+            safe = safe.substring(0, 40).replaceAll("-+$", "") + "-" + String.format("%06x", directive.hashCode() & 0xffffff);
+        }
+        return safe.isEmpty() ? "directive" : safe;
+    }
 
-                String reply = chatClient.prompt()
-                        .system(systemCtx.buildSystemMessage())
-                        .user(prompt)
-                        .tools(systemTools, browserTools, fileTools, fileSystemTools,
-                               taskStatusTool, chatHistoryTool, clipboardTools,
-                               imageTools, directivesTools, directiveDataTools,
-                               webScraperTools, playwrightTools, emailTools,
-                               scheduledTaskTools, summarizationTools, exportTools,
-                               localModelTools)
-                        .call()
-                        .content();
+    /** A running autonomous session: its worker pool, spend budget and a stop signal the workers wait on. */
+    private static final class AutonomousSession {
+        final ExecutorService pool;
+        final AutonomousTelemetry.Budget budget;
+        private final CountDownLatch stopSignal = new CountDownLatch(1);
+        volatile String stopReason;
 
-                workingSound.stop();
+        AutonomousSession(ExecutorService pool, AutonomousTelemetry.Budget budget) {
+            this.pool = pool;
+            this.budget = budget;
+        }
 
-                if (reply != null && !reply.isBlank()) {
-                    // Check for "done" signal from the AI
-                    if (reply.toLowerCase().contains("all directives addressed")) {
-                        transcriptService.save("BOT(autonomous)", reply);
-                        asyncResults.add(reply);
-                        log.info("[Autonomous] AI signaled completion at step {}.", step);
-                        break;
-                    }
-                    transcriptService.save("BOT(autonomous)", reply);
-                    asyncResults.add(reply);
-                    log.info("[Autonomous] Step {} done: {}", step,
-                            reply.length() > 100 ? reply.substring(0, 100) + "..." : reply);
-                }
+        void stop(String reason) {
+            if (stopSignal.getCount() == 0) return;
+            stopReason = reason;
+            log.info("[Autonomous] Stopping: {}.", reason);
+            budget.halt(reason);
+            stopSignal.countDown();
+        }
 
-                // Pause between steps, then check if user is still away
-                Thread.sleep(autonomousPauseBetweenStepsMs);
+        boolean isStopped() {
+            return stopSignal.getCount() == 0;
+        }
 
-                if (!isMouseStill()) {
-                    log.info("[Autonomous] Mouse movement detected — stopping after {} steps.", step);
-                    break;
-                }
-                long chatIdleMs = System.currentTimeMillis() - lastActivityTime;
-                if (chatIdleMs < autonomousIdleTimeoutSeconds * 1000L) {
-                    log.info("[Autonomous] User sent a message — stopping after {} steps.", step);
-                    break;
-                }
+        /** Wait up to {@code ms}; returns true (immediately) if the session was stopped meanwhile. */
+        boolean pause(long ms) {
+            try {
+                return stopSignal.await(ms, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return true;
             }
-
-            log.info("[Autonomous] Session ended after {} steps.", step);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            log.info("[Autonomous] Interrupted after {} steps.", step);
-        } catch (Exception e) {
-            log.error("[Autonomous] Error at step {}: {}", step, e.getMessage(), e);
-        } finally {
-            workingSound.stop();
-            autonomousRunning = false;
-            lastActivityTime = System.currentTimeMillis(); // prevent immediate restart
         }
     }
 
-    private String buildAutonomousPrompt(String directives, int step) {
+    private String buildAutonomousPrompt(String directive, String directiveName, int step) {
         if (step == 1) {
             return """
                     You are now in AUTONOMOUS MODE. The user is away from the computer.
-                    Review the primary directives below and plan how to accomplish them.
-                    Think step by step: what information do you need? What research should you do?
+                    You are working on ONE primary directive (below); other directives are handled separately.
+                    Plan how to accomplish it. Think step by step: what information do you need? What research should you do?
 
-                    For each actionable directive, gather relevant information using the tools available.
+                    Gather relevant information using the tools available.
 
                     WEB RESEARCH — you have TWO levels of headless browsing (no visible window):
 
@@ -547,6 +657,8 @@ public class ChatService {
                     - browseAndFill(url, selector, value, submit) — fill a form and optionally submit.
 
                     LEVEL 2 — HTTP fetch (lighter, faster, for simple/static pages):
+                    - crawlPages(urls, mode, depth) — fetch MANY pages at once in one call (mode 'http' or \
+                    'browser'), optionally following same-site links. Prefer this over visiting pages one by one.
                     - fetchPageText(url) — simple HTTP fetch and strip HTML.
                     - extractImageUrls(url), extractLinks(url) — regex-based extraction.
                     - searchAndDownloadImages(query, directiveName, maxImages) — HTTP-based image search.
@@ -563,45 +675,48 @@ public class ChatService {
                     per-directive folder: ~/botsfer_data/directive_{name}/
                     - Use saveDirectiveScreenshot(directiveName) to capture the current screen as an image.
                     - Use searchAndDownloadImages, downloadFile (to path), or downloadFileToFolder (to directive folder) to save images from the web.
-                    - Use a short, descriptive directiveName derived from the directive \
-                    (e.g. "search-condo-new-york", "make-money-online").
+                    - Always use directiveName "%s" for this directive.
                     - Use listDirectiveData(directiveName) to see what you've gathered so far.
-                    - Each directive gets its own folder. All gathered data (text, images) goes there.
+                    - Use semanticSearch(query, "finding") to recall what was already found on a topic \
+                    before researching it again.
+                    - All gathered data (text, images) goes into that directive's folder.
 
                     Report what you did and what you plan to do next. Be concise.
-                    If all directives are personality/tone settings with nothing actionable, return an empty response.
+                    If the directive is a personality/tone setting with nothing actionable, return an empty response.
+                    When the directive is fully addressed, say "Directive addressed".
 
-                    DIRECTIVES:
-                    """ + directives;
+                    DIRECTIVE:
+                    """.formatted(directiveName) + directive;
         }
         return """
                 [Autonomous step %d] You are still in AUTONOMOUS MODE. The user is still away.
 
-                Continue working on the primary directives. Use listDirectiveData to review \
+                Continue working on your directive. Use listDirectiveData("%s") to review \
                 what you've already gathered, then decide what the NEXT concrete step is.
 
                 Keep researching, gathering information, and downloading files. \
-                Ask yourself: "Based on what I know about this user, what is the best way to accomplish these directives?" \
+                Ask yourself: "Based on what I know about this user, what is the best way to accomplish this directive?" \
                 Then act on it.
 
                 REMINDER — web research tools (headless, no visible browser):
                 Playwright (preferred): browsePage, browseAndGetImages, browseAndGetLinks, \
                 browseSearchAndDownloadImages, screenshotPage, browseAndClick, browseAndFill.
                 HTTP fetch (lighter): fetchPageText, extractImageUrls, extractLinks, fetchPageWithImages.
+                Batch: crawlPages(urls, mode, depth) — read several pages in ONE call instead of one call per page.
                 Downloads: browseSearchAndDownloadImages, searchAndDownloadImages, downloadFile, downloadFileToFolder.
 
-                SAVING DATA:
+                SAVING DATA (directiveName "%s"):
                 - Text: saveDirectiveFinding(directiveName, content)
                 - Images: searchAndDownloadImages or downloadFileToFolder with directiveName
                 - Screenshots: saveDirectiveScreenshot(directiveName)
                 - Do NOT write to primary_directives.dat — that file is only for directive definitions.
 
                 Report briefly what you did this step. Be concise.
-                If you've completed all actionable directives or there's nothing more to do, \
-                say "All directives addressed" so the system knows to stop.
+                If you've completed this directive or there's nothing more to do, \
+                say "Directive addressed" so the system knows to stop.
 
-                DIRECTIVES:
-                """.formatted(step) + directives;
+                DIRECTIVE:
+                """.formatted(step, directiveName, directiveName) + directive;
     }
 
 }
@@ -1,6 +1,9 @@
 package com.botsfer;
 
+import com.botsfer.agent.AutonomousTelemetry;
 import com.botsfer.agent.tools.DirectivesTools;
+import com.botsfer.agent.tools.ToolResultCache;
+import com.botsfer.tracing.Tracer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
 
@@ -14,8 +17,8 @@ import java.util.stream.Collectors;
 
 /**
  * REST controller that serves a dashboard showing directive progress,
- * gathered data stats, and autonomous mode status.
- * Accessed at /api/dashboard/data (JSON) or /dashboard (HTML page).
+ * gathered data stats, autonomous mode status and spend, and recent request traces.
+ * Accessed at /api/dashboard/data (JSON) or /dashboard (HTML page); traces at /api/traces.
  */
 @RestController
 public class DashboardController {
@@ -28,6 +31,22 @@ public class DashboardController {
     @Value("${app.autonomous.enabled:false}")
     private boolean autonomousEnabled;
 
+    private final AutonomousTelemetry telemetry;
+    private final ToolResultCache toolCache;
+    private final Tracer tracer;
+
+    public DashboardController(AutonomousTelemetry telemetry, ToolResultCache toolCache, Tracer tracer) {
+        this.telemetry = telemetry;
+        this.toolCache = toolCache;
+        this.tracer = tracer;
+    }
+
+    /** JSON endpoint: the most recent finished traces with all their spans, newest first. */
+    @GetMapping("/api/traces")
+    public List<Map<String, Object>> getTraces(@RequestParam(defaultValue = "20") int limit) {
+        return tracer.recentTraces(limit);
+    }
+
     /** JSON endpoint: returns dashboard data for the frontend. */
     @GetMapping("/api/dashboard/data")
     public Map<String, Object> getDashboardData() {
@@ -81,6 +100,8 @@ public class DashboardController {
             }
         }
         data.put("directiveFolders", folders);
+        data.put("autonomous", telemetry.snapshot());
+        data.put("toolCache", toolCache.stats());
         data.put("timestamp", FMT.format(Instant.now()));
 
         return data;
@@ -88,6 +109,7 @@ public class DashboardController {
 
     /** HTML dashboard page. */
     @GetMapping(value = "/dashboard", produces = "text/html")
+    @SuppressWarnings("unchecked")
     public String getDashboardHtml() {
         Map<String, Object> data = getDashboardData();
         @SuppressWarnings("unchecked")
@@ -110,11 +132,20 @@ public class DashboardController {
                 .badge-on { background: #0a3; color: #fff; }
                 .badge-off { background: #555; color: #aaa; }
                 .badge-summary { background: #06a; color: #fff; }
-                table { width: 100%; border-collapse: collapse; }
+                table { width: 100%%; border-collapse: collapse; }
                 th, td { padding: 8px 12px; text-align: left; border-bottom: 1px solid #222; }
                 th { color: #00d4ff; font-size: 0.85em; text-transform: uppercase; }
                 .directives-text { white-space: pre-wrap; background: #0a0a1a; padding: 10px; border-radius: 4px;
                                    border: 1px solid #333; font-family: monospace; font-size: 0.9em; max-height: 200px; overflow-y: auto; }
+                .trace { margin-bottom: 12px; }
+                .trace-head { font-size: 0.85em; color: #aaa; margin-bottom: 4px; }
+                .flame { position: relative; background: #0a0a1a; border: 1px solid #222; border-radius: 4px; }
+                .span { position: absolute; height: 18px; padding: 0 4px; font-size: 0.75em; line-height: 18px;
+                        overflow: hidden; white-space: nowrap; border-right: 1px solid #0a0a1a; color: #fff; }
+                .span-model { background: #06a; }
+                .span-tool { background: #a60; }
+                .span-io { background: #363; }
+                .span-error { background: #a22; }
                 </style></head><body>
                 <h1>Botsfer Dashboard</h1>
                 <p class="meta">Auto-refreshes every 30s | Last updated: %s</p>
@@ -156,10 +187,154 @@ public class DashboardController {
         }
         html.append("</div>");
 
+        appendAutonomousTelemetry(html, (Map<String, Object>) data.get("autonomous"));
+
+        // Tool result cache
+        Map<String, Object> cache = (Map<String, Object>) data.get("toolCache");
+        html.append("<div class=\"section\"><h2>Tool Result Cache</h2>")
+                .append(String.format("<p>%d entries | %d hits / %d misses (%.0f%% hit rate) | %d invalidated</p>",
+                        (Integer) cache.get("entries"), (Long) cache.get("hits"), (Long) cache.get("misses"),
+                        (Double) cache.get("hitRate") * 100, (Long) cache.get("invalidated")));
+        Map<String, Map<String, Long>> cacheTools = (Map<String, Map<String, Long>>) cache.get("tools");
+        if (!cacheTools.isEmpty()) {
+            html.append("<table><tr><th>Tool</th><th>Hits</th><th>Misses</th></tr>");
+            cacheTools.forEach((tool, c) -> html.append("<tr><td>").append(tool).append("</td><td>")
+                    .append(c.get("hits")).append("</td><td>").append(c.get("misses")).append("</td></tr>"));
+            html.append("</table>");
+        }
+        html.append("</div>");
+
+        appendTraces(html, tracer.recentTraces(5));
+
         html.append("</body></html>");
         return html.toString();
     }
 
+    /** Session and per-directive spend, time per tool, and the most recent steps. */
+    @SuppressWarnings("unchecked")
+    private void appendAutonomousTelemetry(StringBuilder html, Map<String, Object> autonomous) {
+        html.append("<div class=\"section\"><h2>Autonomous Spend</h2>");
+        List<Map<String, Object>> budgets = new ArrayList<>();
+        if (autonomous.get("session") != null) budgets.add((Map<String, Object>) autonomous.get("session"));
+        budgets.addAll((List<Map<String, Object>>) autonomous.get("directives"));
+        if (budgets.isEmpty()) {
+            html.append("<p style=\"color:#666\">No autonomous session yet.</p></div>");
+            return;
+        }
+        html.append("<table><tr><th>Budget</th><th>Steps</th><th>Tokens</th><th>Tool Calls</th>")
+                .append("<th>Elapsed</th><th>LLM / Tools</th><th>Status</th></tr>");
+        for (Map<String, Object> b : budgets) {
+            long tokens = (Long) b.get("promptTokens") + (Long) b.get("completionTokens");
+            Object cost = b.get("estimatedCostUsd");
+            html.append("<tr>")
+                    .append("<td>").append(escapeHtml((String) b.get("name"))).append("</td>")
+                    .append("<td>").append(b.get("steps")).append("</td>")
+                    .append("<td>").append(tokens).append(limit(b.get("maxTokens")))
+                    .append(cost != null ? String.format(" (~$%.4f)", (Double) cost) : "").append("</td>")
+                    .append("<td>").append(b.get("toolCalls")).append(limit(b.get("maxToolCalls"))).append("</td>")
+                    .append("<td>").append(seconds(b.get("elapsedMs")))
+                    .append((Long) b.get("maxMs") > 0 ? " / " + seconds(b.get("maxMs")) : "").append("</td>")
+                    .append("<td>").append(seconds(b.get("llmMs"))).append(" / ").append(seconds(b.get("toolMs"))).append("</td>")
+                    .append("<td>").append(b.containsKey("exceeded")
+                            ? "<span class=\"badge badge-off\" title=\"" + escapeHtml((String) b.get("exceeded")) + "\">STOPPED</span>"
+                            : (Boolean) b.get("running") ? "<span class=\"badge badge-on\">RUNNING</span>" : "—")
+                    .append("</td></tr>");
+        }
+        html.append("</table>");
+
+        List<Map<String, Object>> tools = (List<Map<String, Object>>) autonomous.get("tools");
+        if (!tools.isEmpty()) {
+            html.append("<h2 style=\"margin-top:15px\">Time by Tool (recent steps)</h2>")
+                    .append("<table><tr><th>Tool</th><th>Calls</th><th>Total</th><th>Avg</th><th>Errors</th></tr>");
+            for (Map<String, Object> t : tools) {
+                html.append("<tr><td>").append(t.get("tool")).append("</td>")
+                        .append("<td>").append(t.get("calls")).append("</td>")
+                        .append("<td>").append(seconds(t.get("totalMs"))).append("</td>")
+                        .append("<td>").append(t.get("avgMs")).append(" ms</td>")
+                        .append("<td>").append(t.get("errors")).append("</td></tr>");
+            }
+            html.append("</table>");
+        }
+
+        List<Map<String, Object>> steps = (List<Map<String, Object>>) autonomous.get("recentSteps");
+        if (!steps.isEmpty()) {
+            html.append("<h2 style=\"margin-top:15px\">Recent Steps</h2>")
+                    .append("<table><tr><th>Time</th><th>Directive</th><th>Step</th><th>Total</th><th>LLM</th>")
+                    .append("<th>Tokens (in/out)</th><th>Tools</th><th>Outcome</th></tr>");
+            for (Map<String, Object> st : steps) {
+                StringBuilder calls = new StringBuilder();
+                for (Map<String, Object> c : (List<Map<String, Object>>) st.get("tools")) {
+                    if (calls.length() > 0) calls.append(", ");
+                    calls.append(c.get("tool")).append(' ').append(c.get("ms")).append("ms");
+                    if (c.containsKey("error")) calls.append(" (failed)");
+                }
+                html.append("<tr><td>").append(FMT.format(Instant.ofEpochMilli((Long) st.get("time")))).append("</td>")
+                        .append("<td>").append(escapeHtml((String) st.get("directive"))).append("</td>")
+                        .append("<td>").append(st.get("step")).append("</td>")
+                        .append("<td>").append(seconds(st.get("totalMs"))).append("</td>")
+                        .append("<td>").append(seconds(st.get("llmMs"))).append("</td>")
+                        .append("<td>").append(st.get("promptTokens")).append(" / ").append(st.get("completionTokens")).append("</td>")
+                        .append("<td style=\"font-size:0.85em\">").append(calls.length() > 0 ? calls : "—").append("</td>")
+                        .append("<td>").append(escapeHtml(String.valueOf(st.get("outcome")))).append("</td></tr>");
+            }
+            html.append("</table>");
+        }
+        html.append("</div>");
+    }
+
+    /**
+     * Icicle view of each trace: one row per nesting depth, every span a bar positioned and sized
+     * by its share of the root's duration. Hover a bar for its timing and attributes.
+     */
+    @SuppressWarnings("unchecked")
+    private void appendTraces(StringBuilder html, List<Map<String, Object>> traces) {
+        html.append("<div class=\"section\"><h2>Recent Traces</h2>");
+        if (traces.isEmpty()) {
+            html.append("<p style=\"color:#666\">No traces yet.</p></div>");
+            return;
+        }
+        for (Map<String, Object> trace : traces) {
+            double total = Math.max((Double) trace.get("durationMs"), 0.001);
+            List<Map<String, Object>> spans = (List<Map<String, Object>>) trace.get("spans");
+            int depth = spans.stream().mapToInt(sp -> (Integer) sp.get("depth")).max().orElse(0) + 1;
+            html.append("<div class=\"trace\"><div class=\"trace-head\">")
+                    .append(escapeHtml(String.valueOf(trace.get("name")))).append(" | ")
+                    .append(String.format("%.0fms", total)).append(" | ")
+                    .append(spans.size()).append(" spans | ").append(trace.get("start"))
+                    .append("</div><div class=\"flame\" style=\"height:").append(depth * 20).append("px\">");
+            for (Map<String, Object> sp : spans) {
+                String name = String.valueOf(sp.get("name"));
+                Double duration = (Double) sp.get("durationMs");
+                double ms = duration != null ? duration : total - (Double) sp.get("offsetMs");
+                String kind = sp.get("error") != null ? "span-error"
+                        : name.startsWith("tool ") ? "span-tool"
+                        : name.startsWith("chat.") || name.startsWith("POST ") || name.startsWith("autonomous.") ? "span-io"
+                        : "span-model";
+                StringBuilder title = new StringBuilder(name).append(String.format(" — %.1fms", ms));
+                if (sp.get("attributes") != null) {
+                    ((Map<String, String>) sp.get("attributes")).forEach((k, v) -> title.append("\n").append(k).append('=').append(v));
+                }
+                if (sp.get("error") != null) title.append("\n").append(sp.get("error"));
+                html.append(String.format(Locale.ROOT,
+                                "<div class=\"span %s\" style=\"left:%.2f%%;width:%.2f%%;top:%dpx\" title=\"",
+                                kind, (Double) sp.get("offsetMs") * 100 / total, Math.max(ms * 100 / total, 0.2),
+                                (Integer) sp.get("depth") * 20))
+                        .append(escapeHtml(title.toString()).replace("\"", "&quot;").replace("\n", "&#10;")).append("\">")
+                        .append(escapeHtml(name)).append("</div>");
+            }
+            html.append("</div></div>");
+        }
+        html.append("</div>");
+    }
+
+    private static String limit(Object max) {
+        return (Long) max > 0 ? " / " + max : "";
+    }
+
+    private static String seconds(Object millis) {
+        return String.format("%.1fs", (Long) millis / 1000.0);
+    }
+
     private long countFiles(Path dir, String ext) throws IOException {
         try (var s = Files.list(dir)) { return s.filter(p -> p.toString().endsWith(ext)).count(); }
     }
@@ -1,22 +1,42 @@
 package com.botsfer;
 
-import javax.sound.sampled.AudioFileFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.TargetDataLine;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 /**
  * Native mic capture -> LLM audio request.
- * Captures a short WAV clip and asks ChatService for a direct audio reply.
+ * Records until voice-activity detection hears the speaker stop, transcribing finished speech
+ * segments in the background while they talk, then asks ChatService for a reply to the transcript.
  */
 public class NativeVoiceService {
 
-    private static final int CAPTURE_SECONDS = 8;
+    private static final Logger log = LoggerFactory.getLogger(NativeVoiceService.class);
+
+    private static final int MAX_CAPTURE_SECONDS = 60;
+    private static final int NO_SPEECH_TIMEOUT_MS = 6000;
+    private static final int FRAME_MS = 20;
+    private static final int PRE_ROLL_MS = 200;
+    /** Quiet this long after speech ends the recording. */
+    private static final int END_SILENCE_MS = 800;
+    /** A pause this long cuts a segment for early transcription, once it holds MIN_SEGMENT_MS of audio. */
+    private static final int SEGMENT_PAUSE_MS = 300;
+    private static final int MIN_SEGMENT_MS = 3000;
+    private static final int TRAILING_SILENCE_MS = 200;
     private static final float SAMPLE_RATE = 16000f;
     private static final int SAMPLE_SIZE_BITS = 16;
     private static final int CHANNELS = 1;
@@ -26,6 +46,11 @@ public class NativeVoiceService {
         t.setDaemon(true);
         return t;
     });
+    private final ExecutorService transcriber = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "native-voice-transcribe");
+        t.setDaemon(true);
+        return t;
+    });
     private final ChatService chatService;
 
     private final Object lock = new Object();
@@ -98,23 +123,39 @@ public class NativeVoiceService {
     public void shutdown() {
         stop();
         executor.shutdownNow();
+        transcriber.shutdownNow();
     }
 
     private void runAudioChat() {
+        List<CompletableFuture<String>> segments = new ArrayList<>();
         try {
-            byte[] wav = captureWavAudio();
+            if (!chatService.isAudioConfigured()) {
+                error = "Audio chat is not configured. Set spring.ai.openai.api-key or app.transcription.backend=local.";
+                return;
+            }
+            boolean heardSpeech = captureSpeech(segments);
             if (stopRequested) return;
-            if (wav == null || wav.length == 0) {
-                error = "No audio captured.";
+            if (!heardSpeech) {
+                error = "No speech detected.";
                 return;
             }
-            String reply = chatService.getReplyFromAudio(wav);
+            StringBuilder transcript = new StringBuilder();
+            for (CompletableFuture<String> segment : segments) {
+                String text = segment.join().trim();
+                if (text.isEmpty()) continue;
+                if (transcript.length() > 0) transcript.append(' ');
+                transcript.append(text);
+            }
+            if (stopRequested) return;
+            String reply = chatService.getReplyFromTranscript(transcript.toString());
             transcriptOrReply = reply == null ? "" : reply;
         } catch (Exception ex) {
             if (!stopRequested) {
-                error = ex.getMessage() == null ? "Audio processing error." : ex.getMessage();
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                error = cause.getMessage() == null ? "Audio processing error." : cause.getMessage();
             }
         } finally {
+            if (stopRequested) segments.forEach(f -> f.cancel(true));
             synchronized (lock) {
                 activeLine = null;
                 listening = false;
@@ -122,7 +163,15 @@ public class NativeVoiceService {
         }
     }
 
-    private byte[] captureWavAudio() throws Exception {
+    /**
+     * Records until the speaker stops (END_SILENCE_MS of quiet after speech), nothing is said
+     * within NO_SPEECH_TIMEOUT_MS, or MAX_CAPTURE_SECONDS pass. Whenever the speaker pauses
+     * after at least MIN_SEGMENT_MS of audio, the segment so far is sent for transcription
+     * while recording continues, so most of the transcript is ready when they finish.
+     *
+     * @return whether any speech was heard; transcription futures are added to {@code segments} in order
+     */
+    private boolean captureSpeech(List<CompletableFuture<String>> segments) throws Exception {
         AudioFormat format = new AudioFormat(SAMPLE_RATE, SAMPLE_SIZE_BITS, CHANNELS, true, false);
         TargetDataLine line = AudioSystem.getTargetDataLine(format);
         synchronized (lock) {
@@ -131,28 +180,152 @@ public class NativeVoiceService {
         line.open(format);
         line.start();
 
-        long endAt = System.currentTimeMillis() + (CAPTURE_SECONDS * 1000L);
-        ByteArrayOutputStream pcmOut = new ByteArrayOutputStream();
-        byte[] buffer = new byte[4096];
+        int frameBytes = (int) (SAMPLE_RATE * FRAME_MS / 1000) * format.getFrameSize();
+        byte[] frame = new byte[frameBytes];
+        EnergyVad vad = new EnergyVad();
+        ArrayDeque<byte[]> preRoll = new ArrayDeque<>();
+        PcmBuffer segment = new PcmBuffer();
+        boolean inSpeech = false;
+        boolean heardSpeech = false;
+        int segmentFrames = 0;
+        int silentFrames = 0;
+        int frames = 0;
+        long started = System.currentTimeMillis();
 
-        while (!stopRequested && System.currentTimeMillis() < endAt) {
-            int read = line.read(buffer, 0, buffer.length);
-            if (read > 0) {
-                pcmOut.write(buffer, 0, read);
+        try {
+            while (!stopRequested && frames * FRAME_MS < MAX_CAPTURE_SECONDS * 1000) {
+                int read = line.read(frame, 0, frameBytes);
+                if (read < frameBytes) break;
+                frames++;
+                boolean speech = vad.isSpeech(frame, read);
+
+                if (!inSpeech) {
+                    preRoll.addLast(frame.clone());
+                    if (preRoll.size() > PRE_ROLL_MS / FRAME_MS) preRoll.removeFirst();
+                    if (speech) {
+                        // Keep the lead-in so the first syllable isn't clipped
+                        inSpeech = true;
+                        heardSpeech = true;
+                        for (byte[] f : preRoll) segment.write(f);
+                        segmentFrames = preRoll.size();
+                        preRoll.clear();
+                        silentFrames = 0;
+                    } else if (heardSpeech ? ++silentFrames * FRAME_MS >= END_SILENCE_MS
+                            : frames * FRAME_MS >= NO_SPEECH_TIMEOUT_MS) {
+                        break;
+                    }
+                    continue;
+                }
+
+                segment.write(frame, 0, read);
+                segmentFrames++;
+                silentFrames = speech ? 0 : silentFrames + 1;
+                if (silentFrames * FRAME_MS >= END_SILENCE_MS) {
+                    break;
+                }
+                if (silentFrames * FRAME_MS >= SEGMENT_PAUSE_MS && segmentFrames * FRAME_MS >= MIN_SEGMENT_MS) {
+                    segments.add(submitSegment(segment, segment.size(), format));
+                    segment = new PcmBuffer();
+                    segmentFrames = 0;
+                    inSpeech = false;
+                }
             }
+        } finally {
+            line.stop();
+            line.close();
         }
 
-        line.stop();
-        line.close();
+        // Drop trailing silence past a short tail; a segment with no speech left is not sent
+        if (inSpeech && segmentFrames > silentFrames) {
+            int keepFrames = segmentFrames - Math.max(0, silentFrames - TRAILING_SILENCE_MS / FRAME_MS);
+            segments.add(submitSegment(segment, Math.min(segment.size(), keepFrames * frameBytes), format));
+        }
+        log.debug("[NativeVoice] Captured {}ms, {} segment(s), speech={}",
+                System.currentTimeMillis() - started, segments.size(), heardSpeech);
+        return heardSpeech;
+    }
 
-        byte[] pcm = pcmOut.toByteArray();
-        if (pcm.length == 0) return new byte[0];
+    /** Uploads the first {@code length} bytes of the buffer behind a WAV header, without copying the samples. */
+    private CompletableFuture<String> submitSegment(PcmBuffer pcm, int length, AudioFormat format) {
+        ByteBuffer header = ByteBuffer.wrap(wavHeader(length, format));
+        ByteBuffer samples = ByteBuffer.wrap(pcm.array(), 0, length);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return chatService.transcribe("voice.wav", "audio/wav", header, samples);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, transcriber);
+    }
+
+    /** The 44-byte header of a PCM WAV file holding {@code dataLength} bytes of samples. */
+    static byte[] wavHeader(int dataLength, AudioFormat format) {
+        ByteBuffer header = ByteBuffer.allocate(44).order(ByteOrder.LITTLE_ENDIAN);
+        int byteRate = (int) format.getSampleRate() * format.getFrameSize();
+        header.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(36 + dataLength)
+                .put("WAVE".getBytes(StandardCharsets.US_ASCII))
+                .put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16)
+                .putShort((short) 1).putShort((short) format.getChannels())
+                .putInt((int) format.getSampleRate()).putInt(byteRate)
+                .putShort((short) format.getFrameSize()).putShort((short) format.getSampleSizeInBits())
+                .put("data".getBytes(StandardCharsets.US_ASCII)).putInt(dataLength);
+        return header.array();
+    }
+
+    /** Growable PCM buffer whose backing array can be uploaded directly. Not reused after upload. */
+    private static final class PcmBuffer extends ByteArrayOutputStream {
+        PcmBuffer() {
+            super(64 * 1024);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+
+    /**
+     * Energy-based voice activity detection on 16-bit little-endian frames. The noise floor adapts
+     * to the room (drops immediately, rises slowly while nobody speaks); a frame is speech when its
+     * RMS is well above that floor, and speech has to last a few frames to count, so clicks and
+     * keyboard taps don't trigger it.
+     */
+    static final class EnergyVad {
+        private static final double MIN_SPEECH_RMS = 350;
+        private static final double SPEECH_TO_NOISE = 3.0;
+        private static final int ONSET_FRAMES = 3;
+        private static final int HANGOVER_FRAMES = 4;
 
-        ByteArrayInputStream bais = new ByteArrayInputStream(pcm);
-        long frameLength = pcm.length / format.getFrameSize();
-        AudioInputStream ais = new AudioInputStream(bais, format, frameLength);
-        ByteArrayOutputStream wavOut = new ByteArrayOutputStream();
-        AudioSystem.write(ais, AudioFileFormat.Type.WAVE, wavOut);
-        return wavOut.toByteArray();
+        private double noiseFloor = -1;
+        private int loudRun;
+        private int hangover;
+
+        boolean isSpeech(byte[] frame, int length) {
+            double rms = rms(frame, length);
+            if (noiseFloor < 0) noiseFloor = rms;
+            boolean loud = rms > Math.max(MIN_SPEECH_RMS, noiseFloor * SPEECH_TO_NOISE);
+            loudRun = loud ? loudRun + 1 : 0;
+            if (loudRun >= ONSET_FRAMES || (loud && hangover > 0)) {
+                hangover = HANGOVER_FRAMES;
+                return true;
+            }
+            if (!loud) {
+                noiseFloor = rms < noiseFloor ? rms : noiseFloor * 0.95 + rms * 0.05;
+            }
+            if (hangover > 0) {
+                hangover--;
+                return true;
+            }
+            return false;
+        }
+
+        private static double rms(byte[] frame, int length) {
+            long sum = 0;
+            int samples = length / 2;
+            for (int i = 0; i + 1 < length; i += 2) {
+                int sample = (short) ((frame[i] & 0xff) | (frame[i + 1] << 8));
+                sum += (long) sample * sample;
+            }
+            return samples == 0 ? 0 : Math.sqrt((double) sum / samples);
+        }
     }
 }
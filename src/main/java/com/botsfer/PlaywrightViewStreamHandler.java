@@ -0,0 +1,96 @@
+package com.botsfer;
+
+import com.botsfer.agent.tools.PlaywrightService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Streams the viewer page's screencast frames to the browser tab over a WebSocket (/ws/browser).
+ * Each client keeps only the newest pending frame, so a slow client skips frames
+ * instead of building a backlog or stalling the browser thread.
+ */
+@Component
+public class PlaywrightViewStreamHandler extends BinaryWebSocketHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(PlaywrightViewStreamHandler.class);
+
+    private final PlaywrightService playwrightService;
+    private final Map<String, Client> clients = new ConcurrentHashMap<>();
+    private final ExecutorService sender = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "browser-stream-sender");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public PlaywrightViewStreamHandler(PlaywrightService playwrightService) {
+        this.playwrightService = playwrightService;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        Client client = new Client(session);
+        clients.put(session.getId(), client);
+        playwrightService.addViewerFrameListener(client);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Client client = clients.remove(session.getId());
+        if (client != null) playwrightService.removeViewerFrameListener(client);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.debug("[BrowserStream] Transport error: {}", exception.getMessage());
+    }
+
+    /** Per-connection latest-frame-wins mailbox. */
+    private final class Client implements Consumer<byte[]> {
+        private final WebSocketSession session;
+        private final AtomicReference<byte[]> pending = new AtomicReference<>();
+        private final AtomicBoolean sending = new AtomicBoolean(false);
+
+        Client(WebSocketSession session) {
+            this.session = session;
+        }
+
+        @Override
+        public void accept(byte[] frame) {
+            // Overwrites any frame the client hasn't received yet
+            pending.set(frame);
+            if (sending.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                byte[] frame;
+                while ((frame = pending.getAndSet(null)) != null && session.isOpen()) {
+                    session.sendMessage(new BinaryMessage(frame));
+                }
+            } catch (Exception e) {
+                log.debug("[BrowserStream] Send failed: {}", e.getMessage());
+            } finally {
+                sending.set(false);
+                // A frame may have arrived after the loop exited but before the flag was cleared
+                if (pending.get() != null && session.isOpen() && sending.compareAndSet(false, true)) {
+                    sender.execute(this::drain);
+                }
+            }
+        }
+    }
+}
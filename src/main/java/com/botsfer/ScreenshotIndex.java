@@ -0,0 +1,135 @@
+package com.botsfer;
+
+import com.botsfer.ScreenshotService.Shot;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Time-ordered list of stored screenshot frames, kept in memory and persisted as one tab-separated
+ * line per frame in {@code index.tsv} ({@code epochMs, K|D, change, file, window title}). New
+ * frames are appended; expiring old ones rewrites the file once.
+ */
+final class ScreenshotIndex {
+
+    private final Path file;
+    private final List<Shot> shots = new ArrayList<>();
+
+    ScreenshotIndex(Path dir) {
+        this.file = dir.resolve("index.tsv");
+    }
+
+    /** Read the index, or build it once from the file names of screenshots taken before there was one. */
+    synchronized void load(Path dir, DateTimeFormatter names) throws IOException {
+        shots.clear();
+        if (Files.exists(file)) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String[] f = line.split("\t", 5);
+                if (f.length < 4) continue;
+                try {
+                    shots.add(new Shot(Long.parseLong(f[0]), f[3], "K".equals(f[1]), Float.parseFloat(f[2]),
+                            f.length > 4 ? f[4] : ""));
+                } catch (NumberFormatException ignored) {
+                    // a line cut short by a crash
+                }
+            }
+        } else {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.png")) {
+                for (Path p : stream) {
+                    String name = p.getFileName().toString();
+                    boolean keyframe = name.length() == 23;
+                    if (!keyframe && !name.contains(ScreenshotService.DELTA)) continue;
+                    try {
+                        long time = LocalDateTime.parse(name.substring(0, 19), names)
+                                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                        shots.add(new Shot(time, name, keyframe, keyframe ? 1 : 0, ""));
+                    } catch (RuntimeException ignored) {
+                        // not one of ours
+                    }
+                }
+            }
+            shots.sort(Comparator.comparingLong(Shot::time));
+            rewrite();
+        }
+        shots.sort(Comparator.comparingLong(Shot::time));
+    }
+
+    synchronized void add(Shot shot) throws IOException {
+        int i = shots.size();
+        while (i > 0 && shots.get(i - 1).time() > shot.time()) i--;
+        shots.add(i, shot);
+        Files.writeString(file, line(shot), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /** Frames with {@code from <= time < to}, oldest first. */
+    synchronized List<Shot> range(long from, long to) {
+        return new ArrayList<>(shots.subList(lowerBound(from), lowerBound(to)));
+    }
+
+    /** The keyframe at or before {@code shot} followed by every delta up to and including it. */
+    synchronized List<Shot> chain(Shot shot) {
+        int end = lowerBound(shot.time() + 1);
+        int start = end - 1;
+        while (start >= 0 && !shots.get(start).keyframe()) start--;
+        return start < 0 ? List.of() : new ArrayList<>(shots.subList(start, end));
+    }
+
+    /**
+     * Drop frames older than {@code cutoff} and return them for deletion. The newest expired
+     * keyframe stays while later deltas are drawn on it.
+     */
+    synchronized List<Shot> expire(long cutoff) throws IOException {
+        int end = lowerBound(cutoff);
+        if (end < shots.size() && !shots.get(end).keyframe()) {
+            int base = end - 1;
+            while (base >= 0 && !shots.get(base).keyframe()) base--;
+            if (base >= 0) end = base; // without a keyframe the deltas are unusable anyway
+        }
+        if (end <= 0) return List.of();
+        List<Shot> expired = new ArrayList<>(shots.subList(0, end));
+        shots.subList(0, end).clear();
+        rewrite();
+        return expired;
+    }
+
+    synchronized int size() {
+        return shots.size();
+    }
+
+    private int lowerBound(long time) {
+        int lo = 0;
+        int hi = shots.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (shots.get(mid).time() < time) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private void rewrite() throws IOException {
+        Path tmp = file.resolveSibling("index.tsv.tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Shot s : shots) out.write(line(s));
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String line(Shot s) {
+        String title = s.title() == null ? "" : s.title().replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+        return s.time() + "\t" + (s.keyframe() ? "K" : "D") + "\t" + String.format(Locale.ROOT, "%.3f", s.change())
+                + "\t" + s.file() + "\t" + title + "\n";
+    }
+}
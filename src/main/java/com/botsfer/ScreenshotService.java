@@ -1,5 +1,6 @@
 package com.botsfer;
 
+import com.botsfer.agent.ActivityMonitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,21 +11,51 @@ import jakarta.annotation.PreDestroy;
 import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.IOException;
 import java.nio.file.*;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Periodic desktop capture into {@code ~/botsfer_data/screenshots/}. Each frame is compared with
+ * the last stored one in {@value #TILE}px tiles; frames where (almost) nothing changed are not
+ * stored at all. Changed frames are written as a delta — only the changed tiles, cropped to their
+ * bounding box, everything else transparent — on top of the last keyframe, and a full keyframe is
+ * written every {@code app.screenshot.keyframe-interval-seconds} or when most of the screen
+ * changed. Capturing and diffing run on the worker thread; PNG encoding on a separate encoder
+ * thread. {@link #render} rebuilds the full screen for any stored frame.
+ * <p>
+ * Every stored frame also gets a small JPEG in {@code thumbs/} and a line in the
+ * {@link ScreenshotIndex} (time, change score, foreground window title), which answers time-range
+ * and title queries without touching the directory and drives retention.
+ * <p>
+ * Keyframes keep the {@code yyyy-MM-dd_HH-mm-ss.png} name; deltas are
+ * {@code yyyy-MM-dd_HH-mm-ss_delta_<x>_<y>.png}.
+ */
 @Service
 public class ScreenshotService {
 
     private static final Logger log = LoggerFactory.getLogger(ScreenshotService.class);
     private static final DateTimeFormatter FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+    static final int TILE = 64;
+    static final String DELTA = "_delta_";
+    private static final int THUMB_WIDTH = 320;
+    /** Frames waiting for the encoder; when it falls further behind, frames are dropped. */
+    private static final int ENCODE_QUEUE = 4;
 
     @Value("${app.screenshot.interval-seconds:5}")
     private int intervalSeconds;
@@ -35,15 +66,65 @@ public class ScreenshotService {
     @Value("${app.screenshot.max-age-days:3}")
     private int maxAgeDays;
 
+    /** Skip captures while the user is away; the screen only changes when they (or the agent) act. */
+    @Value("${app.screenshot.pause-when-idle:true}")
+    private boolean pauseWhenIdle;
+
+    /** Frames with fewer changed tiles than this are not stored (a ticking clock or blinking cursor). */
+    @Value("${app.screenshot.min-changed-tiles:2}")
+    private int minChangedTiles;
+
+    @Value("${app.screenshot.keyframe-interval-seconds:300}")
+    private int keyframeIntervalSeconds;
+
+    /** One stored frame. {@code change} is the fraction of tiles that differ from the previous stored frame. */
+    public record Shot(long time, String file, boolean keyframe, float change, String title) {}
+
+    private final ActivityMonitor activityMonitor;
+    private final ActiveWindow activeWindow = new ActiveWindow();
+
     private Path screenshotDir;
+    private Path thumbDir;
+    private Path viewDir;
+    private ScreenshotIndex index;
     private ScheduledExecutorService scheduler;
+    private ThreadPoolExecutor encoder;
     private Robot robot;
 
+    // Last stored frame; only touched on the worker thread
+    private long[] lastTiles;
+    private int lastWidth;
+    private int lastHeight;
+    private long lastKeyframeAt;
+    private long lastCaptureAt;
+    /** Set when a frame could not be stored, so the next one doesn't build on a missing delta. */
+    private volatile boolean forceKeyframe;
+    /** Encoder thread only: a frame failed to write, so queued deltas are dropped until the next keyframe. */
+    private boolean chainBroken;
+
+    private final AtomicLong captured = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong keyframes = new AtomicLong();
+    private final AtomicLong deltas = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong captureNanos = new AtomicLong();
+    private final AtomicLong encodeNanos = new AtomicLong();
+
+    public ScreenshotService(ActivityMonitor activityMonitor) {
+        this.activityMonitor = activityMonitor;
+    }
+
     @PostConstruct
     public void init() throws IOException {
         screenshotDir = Paths.get(System.getProperty("user.home"), "botsfer_data", "screenshots");
-        Files.createDirectories(screenshotDir);
-        log.info("Screenshot directory: {}", screenshotDir);
+        thumbDir = screenshotDir.resolve("thumbs");
+        viewDir = screenshotDir.resolve("views");
+        Files.createDirectories(thumbDir);
+        Files.createDirectories(viewDir);
+        index = new ScreenshotIndex(screenshotDir);
+        index.load(screenshotDir, FMT);
+        log.info("Screenshot directory: {} ({} indexed frames)", screenshotDir, index.size());
 
         if (!enabled) {
             log.info("Screenshot capture is disabled");
@@ -62,11 +143,28 @@ public class ScreenshotService {
             t.setDaemon(true);
             return t;
         });
+        encoder = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(ENCODE_QUEUE), r -> {
+            Thread t = new Thread(r, "screenshot-encoder");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
         cleanupOldScreenshots();
         scheduler.scheduleAtFixedRate(this::capture, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        if (pauseWhenIdle) {
+            activityMonitor.addListener(new ActivityMonitor.Listener() {
+                @Override
+                public void onUserActive(String source) {
+                    scheduler.execute(ScreenshotService.this::capture); // catch the screen the user returned to
+                }
+            });
+        }
         // Run cleanup once a day
         scheduler.scheduleAtFixedRate(this::cleanupOldScreenshots, 1L, 1L, TimeUnit.DAYS);
-        log.info("Screenshot capture started (every {}s, cleanup after {}d)", intervalSeconds, maxAgeDays);
+        scheduler.scheduleAtFixedRate(this::logStats, 1L, 1L, TimeUnit.HOURS);
+        log.info("Screenshot capture started (every {}s, keyframe every {}s, cleanup after {}d)",
+                intervalSeconds, keyframeIntervalSeconds, maxAgeDays);
     }
 
     @PreDestroy
@@ -74,37 +172,305 @@ public class ScreenshotService {
         if (scheduler != null) {
             scheduler.shutdownNow();
         }
+        if (encoder != null) {
+            encoder.shutdown(); // let queued frames finish writing
+        }
+        activeWindow.close();
     }
 
     private void cleanupOldScreenshots() {
         try {
-            Instant cutoff = Instant.now().minus(maxAgeDays, ChronoUnit.DAYS);
-            int deleted = 0;
-            try (DirectoryStream<Path> stream = Files.newDirectoryStream(screenshotDir, "*.png")) {
-                for (Path file : stream) {
-                    if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
-                        Files.deleteIfExists(file);
-                        deleted++;
-                    }
-                }
+            long cutoff = Instant.now().minus(maxAgeDays, ChronoUnit.DAYS).toEpochMilli();
+            List<Shot> expired = index.expire(cutoff);
+            for (Shot shot : expired) {
+                Files.deleteIfExists(screenshotDir.resolve(shot.file()));
+                Files.deleteIfExists(thumbDir.resolve(thumbName(shot)));
+                Files.deleteIfExists(viewDir.resolve(shot.file()));
+            }
+            if (!expired.isEmpty()) {
+                log.info("Cleaned up {} old screenshots (older than {}d)", expired.size(), maxAgeDays);
             }
-            if (deleted > 0) {
-                log.info("Cleaned up {} old screenshots (older than {}d)", deleted, maxAgeDays);
+            int swept = sweepUnindexed(cutoff);
+            if (swept > 0) {
+                log.info("Cleaned up {} old unindexed screenshot files (older than {}d)", swept, maxAgeDays);
             }
         } catch (Exception e) {
             log.error("Screenshot cleanup failed", e);
         }
     }
 
+    /**
+     * Delete old files the index does not know: manual screenshots from takeScreenshot and frames
+     * left by a crash between writing the PNG and indexing it.
+     */
+    private int sweepUnindexed(long cutoff) throws IOException {
+        Set<String> frames = new HashSet<>();
+        Set<String> thumbs = new HashSet<>();
+        for (Shot shot : index.range(Long.MIN_VALUE, Long.MAX_VALUE)) {
+            frames.add(shot.file());
+            thumbs.add(thumbName(shot));
+        }
+        return sweep(screenshotDir, frames, cutoff) + sweep(thumbDir, thumbs, cutoff) + sweep(viewDir, frames, cutoff);
+    }
+
+    private static int sweep(Path dir, Set<String> keep, long cutoff) throws IOException {
+        int deleted = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.{png,jpg}")) {
+            for (Path p : stream) {
+                if (keep.contains(p.getFileName().toString())) continue;
+                if (Files.getLastModifiedTime(p).toMillis() >= cutoff) continue;
+                if (Files.deleteIfExists(p)) deleted++;
+            }
+        }
+        return deleted;
+    }
+
     private void capture() {
+        if (pauseWhenIdle && activityMonitor.isIdle()) return;
+        long now = System.currentTimeMillis();
+        // File names have second resolution; the on-return capture can land in the same second as a tick
+        if (now - lastCaptureAt < 1000) return;
+        lastCaptureAt = now;
         try {
+            long start = System.nanoTime();
             Rectangle screenRect = new Rectangle(Toolkit.getDefaultToolkit().getScreenSize());
-            BufferedImage image = robot.createScreenCapture(screenRect);
-            String filename = LocalDateTime.now().format(FMT) + ".png";
-            Path file = screenshotDir.resolve(filename);
-            ImageIO.write(image, "png", file.toFile());
+            BufferedImage image = intRgb(robot.createScreenCapture(screenRect));
+            int width = image.getWidth();
+            int height = image.getHeight();
+            long[] tiles = tileHashes(((DataBufferInt) image.getRaster().getDataBuffer()).getData(), width, height);
+            captured.incrementAndGet();
+
+            boolean resized = lastTiles == null || width != lastWidth || height != lastHeight;
+            boolean[] changedTiles = resized ? null : changedTiles(lastTiles, tiles);
+            int changed = resized ? tiles.length : count(changedTiles);
+            captureNanos.addAndGet(System.nanoTime() - start);
+            if (changed < Math.max(1, minChangedTiles)) {
+                unchanged.incrementAndGet();
+                return; // lastTiles stays, so small changes add up until they are worth a frame
+            }
+
+            boolean keyframe = resized || forceKeyframe || changed * 2 >= tiles.length
+                    || now - lastKeyframeAt >= keyframeIntervalSeconds * 1000L;
+            String name = LocalDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault()).format(FMT);
+            boolean[] mask = keyframe ? null : changedTiles;
+            float change = (float) changed / tiles.length;
+            String title = activeWindow.title();
+            try {
+                encoder.execute(() -> write(now, name, image, mask, change, title));
+            } catch (RejectedExecutionException e) {
+                dropped.incrementAndGet();
+                forceKeyframe = true;
+                return;
+            }
+            lastTiles = tiles;
+            lastWidth = width;
+            lastHeight = height;
+            if (keyframe) {
+                lastKeyframeAt = now;
+                forceKeyframe = false;
+            }
         } catch (Exception e) {
             log.error("Screenshot capture failed", e);
         }
     }
+
+    /** Encoder thread: the full frame, or only the tiles in {@code mask}, then its thumbnail and index entry. */
+    private void write(long time, String name, BufferedImage image, boolean[] mask, float change, String title) {
+        if (mask != null && chainBroken) {
+            dropped.incrementAndGet(); // diffed against the frame that failed to write
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            Path file;
+            BufferedImage out;
+            if (mask == null) {
+                file = screenshotDir.resolve(name + ".png");
+                out = image;
+            } else {
+                Rectangle box = bounds(mask, image.getWidth(), image.getHeight());
+                file = screenshotDir.resolve(name + DELTA + box.x + "_" + box.y + ".png");
+                out = delta(image, mask, box);
+            }
+            ImageIO.write(out, "png", file.toFile());
+            Shot shot = new Shot(time, file.getFileName().toString(), mask == null, change, title);
+            Path thumb = thumbDir.resolve(thumbName(shot));
+            ImageIO.write(thumbnail(image), "jpg", thumb.toFile());
+            index.add(shot);
+            bytesWritten.addAndGet(Files.size(file) + Files.size(thumb));
+            (mask == null ? keyframes : deltas).incrementAndGet();
+            if (mask == null) chainBroken = false;
+        } catch (Exception e) {
+            chainBroken = true;
+            forceKeyframe = true;
+            log.error("Screenshot write failed", e);
+        } finally {
+            encodeNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    // ─── Frames ──────────────────────────────────────────────────────────────
+
+    private static BufferedImage intRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_INT_ARGB) {
+            return image;
+        }
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = copy.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return copy;
+    }
+
+    /** One 64-bit checksum per tile, row-major. */
+    static long[] tileHashes(int[] pixels, int width, int height) {
+        int cols = (width + TILE - 1) / TILE;
+        int rows = (height + TILE - 1) / TILE;
+        long[] hashes = new long[cols * rows];
+        for (int y = 0; y < height; y++) {
+            int base = (y / TILE) * cols;
+            int row = y * width;
+            for (int c = 0; c < cols; c++) {
+                long h = hashes[base + c];
+                int end = Math.min(width, (c + 1) * TILE);
+                for (int x = c * TILE; x < end; x++) {
+                    h = h * 1_000_003L + (pixels[row + x] & 0xFFFFFF);
+                }
+                hashes[base + c] = h;
+            }
+        }
+        return hashes;
+    }
+
+    private static boolean[] changedTiles(long[] before, long[] after) {
+        boolean[] changed = new boolean[after.length];
+        for (int i = 0; i < after.length; i++) changed[i] = before[i] != after[i];
+        return changed;
+    }
+
+    private static int count(boolean[] mask) {
+        int n = 0;
+        for (boolean b : mask) if (b) n++;
+        return n;
+    }
+
+    /** Pixel bounds of the changed tiles. */
+    static Rectangle bounds(boolean[] mask, int width, int height) {
+        int cols = (width + TILE - 1) / TILE;
+        int minC = Integer.MAX_VALUE, minR = Integer.MAX_VALUE, maxC = -1, maxR = -1;
+        for (int i = 0; i < mask.length; i++) {
+            if (!mask[i]) continue;
+            minC = Math.min(minC, i % cols);
+            maxC = Math.max(maxC, i % cols);
+            minR = Math.min(minR, i / cols);
+            maxR = Math.max(maxR, i / cols);
+        }
+        int x = minC * TILE;
+        int y = minR * TILE;
+        return new Rectangle(x, y, Math.min(width, (maxC + 1) * TILE) - x, Math.min(height, (maxR + 1) * TILE) - y);
+    }
+
+    /** The changed tiles inside {@code box}, opaque, on a transparent background (which PNG stores almost for free). */
+    static BufferedImage delta(BufferedImage image, boolean[] mask, Rectangle box) {
+        int width = image.getWidth();
+        int cols = (width + TILE - 1) / TILE;
+        int[] src = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        BufferedImage out = new BufferedImage(box.width, box.height, BufferedImage.TYPE_INT_ARGB);
+        int[] dst = ((DataBufferInt) out.getRaster().getDataBuffer()).getData();
+        for (int y = 0; y < box.height; y++) {
+            int sy = box.y + y;
+            int tileRow = (sy / TILE) * cols;
+            for (int x = 0; x < box.width; x++) {
+                int sx = box.x + x;
+                if (mask[tileRow + sx / TILE]) dst[y * box.width + x] = src[sy * width + sx] | 0xFF000000;
+            }
+        }
+        return out;
+    }
+
+    /** Area-averaged downscale of the full frame by a whole factor, about {@value #THUMB_WIDTH}px wide. */
+    static BufferedImage thumbnail(BufferedImage image) {
+        int width = image.getWidth();
+        int factor = Math.max(1, (width + THUMB_WIDTH - 1) / THUMB_WIDTH);
+        int tw = width / factor;
+        int th = image.getHeight() / factor;
+        int[] src = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        BufferedImage out = new BufferedImage(tw, th, BufferedImage.TYPE_INT_RGB);
+        int[] dst = ((DataBufferInt) out.getRaster().getDataBuffer()).getData();
+        int area = factor * factor;
+        for (int ty = 0; ty < th; ty++) {
+            for (int tx = 0; tx < tw; tx++) {
+                int r = 0, g = 0, b = 0;
+                for (int y = ty * factor; y < (ty + 1) * factor; y++) {
+                    int row = y * width;
+                    for (int x = tx * factor; x < (tx + 1) * factor; x++) {
+                        int p = src[row + x];
+                        r += (p >> 16) & 0xFF;
+                        g += (p >> 8) & 0xFF;
+                        b += p & 0xFF;
+                    }
+                }
+                dst[ty * tw + tx] = (r / area) << 16 | (g / area) << 8 | (b / area);
+            }
+        }
+        return out;
+    }
+
+    // ─── Timeline ────────────────────────────────────────────────────────────
+
+    /** Stored frames with {@code from <= time < to} (epoch ms), oldest first. */
+    public List<Shot> shots(long from, long to) {
+        return index == null ? List.of() : index.range(from, to);
+    }
+
+    /** The frame's file: a full keyframe, or for a delta just the changed region (see {@link #fullImage}). */
+    public Path file(Shot shot) {
+        return screenshotDir.resolve(shot.file());
+    }
+
+    /** The frame's thumbnail, or null for frames stored before thumbnails existed. */
+    public Path thumbnail(Shot shot) {
+        Path thumb = thumbDir.resolve(thumbName(shot));
+        return Files.exists(thumb) ? thumb : null;
+    }
+
+    /** A full-screen PNG of the frame: the keyframe itself, or a delta rendered once into {@code views/}. */
+    public Path fullImage(Shot shot) throws IOException {
+        if (shot.keyframe()) return file(shot);
+        Path view = viewDir.resolve(shot.file());
+        if (!Files.exists(view)) ImageIO.write(render(shot), "png", view.toFile());
+        return view;
+    }
+
+    /** The full screen as it was at {@code shot}: its keyframe with every delta up to it drawn on top. */
+    public BufferedImage render(Shot shot) throws IOException {
+        List<Shot> chain = index.chain(shot);
+        if (chain.isEmpty()) throw new IOException("No keyframe at or before " + shot.file());
+        BufferedImage key = ImageIO.read(file(chain.get(0)).toFile());
+        if (chain.size() == 1) return key;
+        BufferedImage out = new BufferedImage(key.getWidth(), key.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        g.drawImage(key, 0, 0, null);
+        for (Shot delta : chain.subList(1, chain.size())) {
+            String name = delta.file();
+            String[] xy = name.substring(name.indexOf(DELTA) + DELTA.length(), name.length() - 4).split("_");
+            g.drawImage(ImageIO.read(file(delta).toFile()), Integer.parseInt(xy[0]), Integer.parseInt(xy[1]), null);
+        }
+        g.dispose();
+        return out;
+    }
+
+    private static String thumbName(Shot shot) {
+        return shot.file().substring(0, 19) + ".jpg";
+    }
+
+    private void logStats() {
+        long frames = captured.get();
+        if (frames == 0) return;
+        log.info("[Screenshot] {} frames: {} unchanged, {} keyframes, {} deltas, {} dropped; {} KB written; "
+                        + "capture+diff {}ms/frame, encode {}ms/file",
+                frames, unchanged.get(), keyframes.get(), deltas.get(), dropped.get(), bytesWritten.get() / 1024,
+                captureNanos.get() / 1_000_000 / frames,
+                encodeNanos.get() / 1_000_000 / Math.max(1, keyframes.get() + deltas.get()));
+    }
 }
@@ -0,0 +1,37 @@
+package com.botsfer;
+
+import com.botsfer.agent.tools.ToolMetrics;
+import com.botsfer.agent.tools.ToolResultCache;
+import com.botsfer.agent.tools.ToolResultStore;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JSON view of per-tool call metrics (counts, errors, latency percentiles, output sizes) and
+ * tool-cache and stored-result stats. The same meters are exported for Prometheus at /actuator/prometheus.
+ */
+@RestController
+public class ToolMetricsController {
+
+    private final ToolMetrics metrics;
+    private final ToolResultCache cache;
+    private final ToolResultStore results;
+
+    public ToolMetricsController(ToolMetrics metrics, ToolResultCache cache, ToolResultStore results) {
+        this.metrics = metrics;
+        this.cache = cache;
+        this.results = results;
+    }
+
+    @GetMapping("/api/metrics/tools")
+    public Map<String, Object> toolMetrics() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("tools", metrics.summary());
+        out.put("cache", cache.stats());
+        out.put("storedResults", results.stats());
+        return out;
+    }
+}
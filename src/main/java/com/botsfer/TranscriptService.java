@@ -1,5 +1,6 @@
 package com.botsfer;
 
+import com.botsfer.semantic.SemanticIndexService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -24,6 +25,7 @@ public class TranscriptService {
     private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private static final int MEMORY_SIZE = 500;
 
+    private final SemanticIndexService semanticIndex;
     private Path historyDir;
 
     /** In-memory ring buffer of the last 100 messages. */
@@ -32,6 +34,10 @@ public class TranscriptService {
     private static final Pattern LINE_PATTERN =
             Pattern.compile("^\\[(\\d{4}-\\d{2}-\\d{2} \\d{2}:\\d{2}:\\d{2})] ([^:]+): (.+)$");
 
+    public TranscriptService(SemanticIndexService semanticIndex) {
+        this.semanticIndex = semanticIndex;
+    }
+
     @PostConstruct
     public void init() throws IOException {
         historyDir = Paths.get(System.getProperty("user.home"), "botsfer_data", "botsfer_history");
@@ -101,6 +107,7 @@ public class TranscriptService {
             String line = "[" + now.format(TIME_FMT) + "] " + speaker + ": " + text.trim();
             Files.writeString(file, line + System.lineSeparator(), StandardCharsets.UTF_8,
                     StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            semanticIndex.indexChatLine(filename, line);
 
             synchronized (recentMemory) {
                 recentMemory.addLast(line);
@@ -0,0 +1,36 @@
+package com.botsfer;
+
+import com.botsfer.transcription.TranscriptionService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transcription backend stats, and a side-by-side benchmark of the remote and local backends:
+ * {@code curl --data-binary @clip.wav -H 'Content-Type: application/octet-stream' localhost:8765/api/transcription/benchmark}.
+ */
+@RestController
+public class TranscriptionController {
+
+    private final TranscriptionService transcription;
+
+    public TranscriptionController(TranscriptionService transcription) {
+        this.transcription = transcription;
+    }
+
+    @GetMapping("/api/transcription/stats")
+    public Map<String, Object> stats() {
+        return transcription.stats();
+    }
+
+    @PostMapping("/api/transcription/benchmark")
+    public List<Map<String, Object>> benchmark(@RequestBody byte[] wav,
+                                               @RequestParam(defaultValue = "3") int runs) {
+        return transcription.benchmark(wav, Math.min(runs, 20));
+    }
+}
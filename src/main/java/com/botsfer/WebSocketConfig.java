@@ -0,0 +1,23 @@
+package com.botsfer;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/** Registers WebSocket endpoints used by the UI. */
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final PlaywrightViewStreamHandler playwrightViewStreamHandler;
+
+    public WebSocketConfig(PlaywrightViewStreamHandler playwrightViewStreamHandler) {
+        this.playwrightViewStreamHandler = playwrightViewStreamHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(playwrightViewStreamHandler, "/ws/browser");
+    }
+}
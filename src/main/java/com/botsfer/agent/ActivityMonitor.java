@@ -0,0 +1,189 @@
+package com.botsfer.agent;
+
+import com.github.kwhat.jnativehook.GlobalScreen;
+import com.github.kwhat.jnativehook.keyboard.NativeKeyEvent;
+import com.github.kwhat.jnativehook.keyboard.NativeKeyListener;
+import com.github.kwhat.jnativehook.mouse.NativeMouseEvent;
+import com.github.kwhat.jnativehook.mouse.NativeMouseInputListener;
+import com.github.kwhat.jnativehook.mouse.NativeMouseWheelEvent;
+import com.github.kwhat.jnativehook.mouse.NativeMouseWheelListener;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Tracks whether the user is at the computer. Keyboard and mouse events come from a JNativeHook
+ * global hook (falling back to sampling the cursor position where no hook can be installed), chat
+ * messages are reported by {@code ChatService}. Listeners are told when the user goes idle and,
+ * within milliseconds, when they come back, so background work can pause instead of polling.
+ */
+@Service
+public class ActivityMonitor implements NativeKeyListener, NativeMouseInputListener, NativeMouseWheelListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivityMonitor.class);
+
+    /** Callbacks run on the monitor's own thread, never on the input hook's. */
+    public interface Listener {
+        default void onUserActive(String source) { }
+
+        default void onUserIdle() { }
+    }
+
+    @Value("${app.activity.idle-timeout-seconds:${app.autonomous.idle-timeout-seconds:60}}")
+    private int idleTimeoutSeconds;
+    @Value("${app.activity.native-hook:true}")
+    private boolean useNativeHook;
+    /** Cursor sampling interval, used only when the native hook is unavailable. */
+    @Value("${app.activity.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService events = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "activity-monitor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile long lastActivity = System.currentTimeMillis();
+    private volatile boolean idle;
+    private volatile boolean hookRegistered;
+    private java.awt.Point lastCursor;
+
+    @PostConstruct
+    public void init() {
+        if (useNativeHook) {
+            try {
+                java.util.logging.Logger jnhLogger = java.util.logging.Logger
+                        .getLogger(GlobalScreen.class.getPackage().getName());
+                jnhLogger.setLevel(Level.WARNING);
+                jnhLogger.setUseParentHandlers(false);
+
+                if (!GlobalScreen.isNativeHookRegistered()) GlobalScreen.registerNativeHook();
+                GlobalScreen.addNativeKeyListener(this);
+                GlobalScreen.addNativeMouseListener(this);
+                GlobalScreen.addNativeMouseMotionListener(this);
+                GlobalScreen.addNativeMouseWheelListener(this);
+                hookRegistered = true;
+            } catch (Exception | LinkageError e) {
+                log.info("[Activity] Native input hook unavailable ({}), sampling the cursor instead.", e.getMessage());
+            }
+        }
+        if (!hookRegistered) {
+            events.scheduleWithFixedDelay(this::sampleCursor, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        events.scheduleWithFixedDelay(this::checkIdle, 1, 1, TimeUnit.SECONDS);
+        log.info("[Activity] Monitoring user activity ({}; idle after {}s).",
+                hookRegistered ? "keyboard/mouse hook" : "cursor sampling every " + pollIntervalMs + "ms", idleTimeoutSeconds);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        events.shutdownNow();
+        if (hookRegistered) {
+            GlobalScreen.removeNativeKeyListener(this);
+            GlobalScreen.removeNativeMouseListener(this);
+            GlobalScreen.removeNativeMouseMotionListener(this);
+            GlobalScreen.removeNativeMouseWheelListener(this);
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Note user activity. Cheap enough to call for every input event: listeners are only notified
+     * on the idle-to-active transition.
+     */
+    public void recordActivity(String source) {
+        lastActivity = System.currentTimeMillis();
+        if (idle) {
+            idle = false;
+            events.execute(() -> {
+                log.info("[Activity] User is back ({}).", source);
+                for (Listener l : listeners) {
+                    try {
+                        l.onUserActive(source);
+                    } catch (Exception e) {
+                        log.warn("[Activity] Listener failed: {}", e.getMessage());
+                    }
+                }
+            });
+        }
+    }
+
+    public boolean isIdle() {
+        return idle;
+    }
+
+    /** Milliseconds since the last keyboard, mouse or chat activity. */
+    public long idleMillis() {
+        return System.currentTimeMillis() - lastActivity;
+    }
+
+    private void checkIdle() {
+        if (idle || idleMillis() < idleTimeoutSeconds * 1000L) return;
+        idle = true;
+        log.info("[Activity] User idle for {}s.", idleTimeoutSeconds);
+        for (Listener l : listeners) {
+            try {
+                l.onUserIdle();
+            } catch (Exception e) {
+                log.warn("[Activity] Listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void sampleCursor() {
+        try {
+            java.awt.PointerInfo info = java.awt.MouseInfo.getPointerInfo();
+            if (info == null) return;
+            java.awt.Point current = info.getLocation();
+            if (lastCursor != null && !current.equals(lastCursor)) recordActivity("mouse");
+            lastCursor = current;
+        } catch (Exception e) {
+            // Headless: no cursor to watch, only chat activity counts
+        }
+    }
+
+    // ─── Native hook callbacks (hook thread: keep them trivial) ─────────────
+
+    @Override
+    public void nativeKeyPressed(NativeKeyEvent e) {
+        recordActivity("keyboard");
+    }
+
+    @Override
+    public void nativeMousePressed(NativeMouseEvent e) {
+        recordActivity("mouse");
+    }
+
+    @Override
+    public void nativeMouseMoved(NativeMouseEvent e) {
+        recordActivity("mouse");
+    }
+
+    @Override
+    public void nativeMouseDragged(NativeMouseEvent e) {
+        recordActivity("mouse");
+    }
+
+    @Override
+    public void nativeMouseWheelMoved(NativeMouseWheelEvent e) {
+        recordActivity("mouse");
+    }
+}
@@ -0,0 +1,373 @@
+package com.botsfer.agent;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Spend tracking for autonomous mode. Each session and each directive worker gets a {@link Budget}
+ * (tokens, wall time, tool calls); every step records model time, token usage from the response
+ * metadata, and the time of each tool it called. Steps are kept in memory for the dashboard and
+ * appended to {@code ~/botsfer_data/autonomous_telemetry.jsonl}.
+ * <p>
+ * Tool calls are attributed through a thread-local step, set by the worker around its model call,
+ * carried to tool threads by {@link #propagate}, and read by {@code ToolCallLogger}.
+ */
+@Component
+public class AutonomousTelemetry {
+
+    private static final Logger log = LoggerFactory.getLogger(AutonomousTelemetry.class);
+    private static final Path LOG_FILE =
+            Paths.get(System.getProperty("user.home"), "botsfer_data", "autonomous_telemetry.jsonl");
+    private static final int RECENT_STEPS = 200;
+
+    @Value("${app.autonomous.budget.session-tokens:300000}")
+    private long sessionTokens;
+    @Value("${app.autonomous.budget.session-minutes:60}")
+    private long sessionMinutes;
+    @Value("${app.autonomous.budget.session-tool-calls:400}")
+    private long sessionToolCalls;
+    @Value("${app.autonomous.budget.directive-tokens:100000}")
+    private long directiveTokens;
+    @Value("${app.autonomous.budget.directive-minutes:30}")
+    private long directiveMinutes;
+    @Value("${app.autonomous.budget.directive-tool-calls:150}")
+    private long directiveToolCalls;
+    /** Optional prices (per million tokens) for a cost estimate; 0 hides cost. */
+    @Value("${app.autonomous.cost.prompt-per-million:0}")
+    private double promptPricePerMillion;
+    @Value("${app.autonomous.cost.completion-per-million:0}")
+    private double completionPricePerMillion;
+
+    private final ThreadLocal<StepTrace> currentStep = new ThreadLocal<>();
+    private final Deque<Map<String, Object>> recentSteps = new ArrayDeque<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService logWriter = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "autonomous-telemetry");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile Budget session;
+    private final Map<String, Budget> directives = new ConcurrentHashMap<>();
+
+    // ─── Budgets ────────────────────────────────────────────────────────────
+
+    /** Start accounting for a new autonomous session; per-directive budgets are reset. */
+    public Budget startSession() {
+        directives.clear();
+        session = new Budget("session", null, sessionTokens, sessionMinutes, sessionToolCalls);
+        return session;
+    }
+
+    /** Log the session totals. */
+    public void endSession(Budget budget) {
+        budget.end();
+        log.info("[Autonomous] Session spend: {}", budget.describe(this));
+    }
+
+    /** Budget for one directive worker, counted against the session as well. */
+    public Budget startDirective(Budget sessionBudget, String directive) {
+        Budget b = new Budget(directive, sessionBudget, directiveTokens, directiveMinutes, directiveToolCalls);
+        directives.put(directive, b);
+        return b;
+    }
+
+    /** Stop the clock on a directive when its worker exits; it stays on the dashboard until the next session. */
+    public void endDirective(Budget budget) {
+        budget.end();
+    }
+
+    /** Tokens, wall time and tool calls used against limits. A limit of 0 or less means unlimited. */
+    public static final class Budget {
+        final String name;
+        final Budget parent;
+        final long maxTokens;
+        final long maxMillis;
+        final long maxToolCalls;
+        final long startedAt = System.currentTimeMillis();
+        volatile long endedAt;
+        volatile String haltReason;
+        final AtomicLong promptTokens = new AtomicLong();
+        final AtomicLong completionTokens = new AtomicLong();
+        final AtomicLong toolCalls = new AtomicLong();
+        final AtomicLong llmMillis = new AtomicLong();
+        final AtomicLong toolMillis = new AtomicLong();
+        final AtomicLong steps = new AtomicLong();
+
+        Budget(String name, Budget parent, long maxTokens, long maxMinutes, long maxToolCalls) {
+            this.name = name;
+            this.parent = parent;
+            this.maxTokens = maxTokens;
+            this.maxMillis = maxMinutes * 60_000;
+            this.maxToolCalls = maxToolCalls;
+        }
+
+        /** The halt reason or first exhausted limit (this budget's, then the session's), or null. */
+        public String exceeded() {
+            if (haltReason != null) return haltReason;
+            long tokens = promptTokens.get() + completionTokens.get();
+            if (maxTokens > 0 && tokens >= maxTokens) return name + " token budget (" + tokens + "/" + maxTokens + ")";
+            if (maxMillis > 0 && elapsedMillis() >= maxMillis) return name + " time budget (" + maxMillis / 60_000 + " min)";
+            if (maxToolCalls > 0 && toolCalls.get() >= maxToolCalls) return name + " tool-call budget (" + maxToolCalls + ")";
+            return parent != null ? parent.exceeded() : null;
+        }
+
+        /** Treat the budget as spent from now on, e.g. because the user came back. */
+        public void halt(String reason) {
+            if (haltReason == null) haltReason = reason;
+        }
+
+        public boolean isSession() {
+            return parent == null;
+        }
+
+        long elapsedMillis() {
+            return (endedAt > 0 ? endedAt : System.currentTimeMillis()) - startedAt;
+        }
+
+        void end() {
+            if (endedAt == 0) endedAt = System.currentTimeMillis();
+        }
+
+        void addStep(long prompt, long completion, long llmMs, long toolMs) {
+            steps.incrementAndGet();
+            promptTokens.addAndGet(prompt);
+            completionTokens.addAndGet(completion);
+            llmMillis.addAndGet(llmMs);
+            toolMillis.addAndGet(toolMs);
+            if (parent != null) parent.addStep(prompt, completion, llmMs, toolMs);
+        }
+
+        void addToolCall() {
+            toolCalls.incrementAndGet();
+            if (parent != null) parent.addToolCall();
+        }
+
+        String describe(AutonomousTelemetry t) {
+            return steps.get() + " steps, " + (promptTokens.get() + completionTokens.get()) + " tokens, "
+                    + toolCalls.get() + " tool calls, " + elapsedMillis() / 1000 + "s (LLM "
+                    + llmMillis.get() / 1000 + "s, tools " + toolMillis.get() / 1000 + "s)"
+                    + t.costSuffix(promptTokens.get(), completionTokens.get());
+        }
+    }
+
+    // ─── Steps ──────────────────────────────────────────────────────────────
+
+    /** One model call of a worker, with the tools it triggered. */
+    public static final class StepTrace {
+        final Budget budget;
+        final String directive;
+        final int step;
+        final long startedAt = System.currentTimeMillis();
+        final List<Map<String, Object>> tools = Collections.synchronizedList(new ArrayList<>());
+        final AtomicLong toolMillis = new AtomicLong();
+
+        StepTrace(Budget budget, String directive, int step) {
+            this.budget = budget;
+            this.directive = directive;
+            this.step = step;
+        }
+    }
+
+    /** Mark the start of a step on this thread; tool calls made from here on are attributed to it. */
+    public StepTrace beginStep(Budget budget, String directive, int step) {
+        StepTrace trace = new StepTrace(budget, directive, step);
+        currentStep.set(trace);
+        return trace;
+    }
+
+    /** Close a step: take token usage from the response (null if the call failed) and record it. */
+    public void endStep(StepTrace trace, ChatResponse response, String outcome) {
+        currentStep.remove();
+        long total = System.currentTimeMillis() - trace.startedAt;
+        long toolMs = trace.toolMillis.get();
+        long prompt = 0;
+        long completion = 0;
+        if (response != null && response.getMetadata() != null) {
+            Usage usage = response.getMetadata().getUsage();
+            if (usage != null) {
+                prompt = usage.getPromptTokens() != null ? usage.getPromptTokens() : 0;
+                completion = usage.getCompletionTokens() != null ? usage.getCompletionTokens() : 0;
+            }
+        }
+        long llmMs = Math.max(0, total - toolMs);
+        trace.budget.addStep(prompt, completion, llmMs, toolMs);
+
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("time", trace.startedAt);
+        record.put("directive", trace.directive);
+        record.put("step", trace.step);
+        record.put("totalMs", total);
+        record.put("llmMs", llmMs);
+        record.put("toolMs", toolMs);
+        record.put("promptTokens", prompt);
+        record.put("completionTokens", completion);
+        record.put("tools", new ArrayList<>(trace.tools));
+        record.put("outcome", outcome);
+        synchronized (recentSteps) {
+            recentSteps.addFirst(record);
+            while (recentSteps.size() > RECENT_STEPS) recentSteps.removeLast();
+        }
+        logWriter.execute(() -> append(record));
+        log.info("[Autonomous] [{}] Step {}: {}ms (LLM {}ms, tools {}ms), {}+{} tokens, {} tool call(s)",
+                trace.directive, trace.step, total, llmMs, toolMs, prompt, completion, trace.tools.size());
+    }
+
+    /** Wrap a task so it is attributed to the calling thread's step when run on another thread. */
+    public <T> Supplier<T> propagate(Supplier<T> task) {
+        StepTrace trace = currentStep.get();
+        if (trace == null) return task;
+        return () -> {
+            StepTrace previous = currentStep.get();
+            currentStep.set(trace);
+            try {
+                return task.get();
+            } finally {
+                if (previous == null) currentStep.remove(); else currentStep.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Called by ToolCallLogger before a tool runs. Returns a refusal message if the calling
+     * worker's budget is spent or its session was halted, so the model wraps up instead of
+     * calling more tools.
+     */
+    public String checkToolBudget() {
+        StepTrace trace = currentStep.get();
+        if (trace == null) return null;
+        String exceeded = trace.budget.exceeded();
+        return exceeded == null ? null
+                : "Autonomous work halted (" + exceeded + "). Do not call more tools; report what you have.";
+    }
+
+    /**
+     * Called by ToolCallLogger after each tool call; ignored outside autonomous steps. The
+     * duration is kept per call only: calls in one turn overlap, so step tool time comes from
+     * {@link #recordToolPhase}.
+     */
+    public void recordToolCall(String tool, long millis, boolean error) {
+        StepTrace trace = currentStep.get();
+        if (trace == null) return;
+        trace.budget.addToolCall();
+        Map<String, Object> call = new LinkedHashMap<>();
+        call.put("tool", tool);
+        call.put("ms", millis);
+        if (error) call.put("error", true);
+        trace.tools.add(call);
+    }
+
+    /** Called by ParallelToolCallingManager with the wall time of one turn's tool calls. */
+    public void recordToolPhase(long millis) {
+        StepTrace trace = currentStep.get();
+        if (trace != null) trace.toolMillis.addAndGet(millis);
+    }
+
+    private void append(Map<String, Object> record) {
+        try {
+            Files.createDirectories(LOG_FILE.getParent());
+            Files.writeString(LOG_FILE, objectMapper.writeValueAsString(record) + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.debug("[Autonomous] Could not write telemetry: {}", e.getMessage());
+        }
+    }
+
+    private String costSuffix(long prompt, long completion) {
+        if (promptPricePerMillion <= 0 && completionPricePerMillion <= 0) return "";
+        return String.format(", ~$%.4f", estimateCost(prompt, completion));
+    }
+
+    private double estimateCost(long prompt, long completion) {
+        return prompt / 1e6 * promptPricePerMillion + completion / 1e6 * completionPricePerMillion;
+    }
+
+    // ─── Dashboard ──────────────────────────────────────────────────────────
+
+    /** Current/last session, per-directive usage, time per tool and the most recent steps. */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        Budget s = session;
+        out.put("session", s == null ? null : budgetInfo(s));
+        List<Map<String, Object>> perDirective = new ArrayList<>();
+        directives.values().forEach(b -> perDirective.add(budgetInfo(b)));
+        out.put("directives", perDirective);
+
+        List<Map<String, Object>> steps;
+        synchronized (recentSteps) {
+            steps = new ArrayList<>(recentSteps);
+        }
+        Map<String, long[]> byTool = new TreeMap<>();
+        for (Map<String, Object> step : steps) {
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> tools = (List<Map<String, Object>>) step.get("tools");
+            for (Map<String, Object> call : tools) {
+                long[] agg = byTool.computeIfAbsent((String) call.get("tool"), k -> new long[3]);
+                agg[0]++;
+                agg[1] += (Long) call.get("ms");
+                if (call.containsKey("error")) agg[2]++;
+            }
+        }
+        List<Map<String, Object>> tools = new ArrayList<>();
+        byTool.forEach((tool, agg) -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("tool", tool);
+            m.put("calls", agg[0]);
+            m.put("totalMs", agg[1]);
+            m.put("avgMs", agg[1] / agg[0]);
+            m.put("errors", agg[2]);
+            tools.add(m);
+        });
+        tools.sort((a, b) -> Long.compare((Long) b.get("totalMs"), (Long) a.get("totalMs")));
+        out.put("tools", tools);
+        out.put("recentSteps", steps.subList(0, Math.min(50, steps.size())));
+        return out;
+    }
+
+    private Map<String, Object> budgetInfo(Budget b) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("name", b.name);
+        m.put("running", b.endedAt == 0);
+        m.put("steps", b.steps.get());
+        m.put("promptTokens", b.promptTokens.get());
+        m.put("completionTokens", b.completionTokens.get());
+        m.put("maxTokens", b.maxTokens);
+        m.put("toolCalls", b.toolCalls.get());
+        m.put("maxToolCalls", b.maxToolCalls);
+        m.put("elapsedMs", b.elapsedMillis());
+        m.put("maxMs", b.maxMillis);
+        m.put("llmMs", b.llmMillis.get());
+        m.put("toolMs", b.toolMillis.get());
+        if (promptPricePerMillion > 0 || completionPricePerMillion > 0) {
+            m.put("estimatedCostUsd", estimateCost(b.promptTokens.get(), b.completionTokens.get()));
+        }
+        String exceeded = b.exceeded();
+        if (exceeded != null) m.put("exceeded", exceeded);
+        return m;
+    }
+}
@@ -0,0 +1,412 @@
+package com.botsfer.agent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Downloads files over HTTP into a {@code <target>.part} file that is only renamed onto the
+ * target once complete and verified, so a crash or dropped connection never leaves a truncated
+ * file under the real name.
+ * <p>
+ * Large files on servers that accept byte ranges are fetched as parallel ranged chunks written
+ * in place; per-chunk progress is kept in {@code <target>.part.state} so an interrupted download
+ * resumes where each chunk stopped. Smaller files resume a single stream with a {@code Range}
+ * request. The result is checked against the server-reported (or caller-supplied) size and,
+ * when known, a SHA-256 digest.
+ */
+@Service
+public class DownloadService {
+
+    private static final Logger log = LoggerFactory.getLogger(DownloadService.class);
+    private static final int BUFFER_SIZE = 256 * 1024;
+    /** Chunk progress is persisted after roughly this many bytes per chunk. */
+    private static final long STATE_SAVE_INTERVAL = 8L * 1024 * 1024;
+
+    /** Number of ranged requests used for one large download. 1 disables chunking. */
+    @Value("${app.download.parallel-chunks:4}")
+    private int parallelChunks;
+    /** Files smaller than this are downloaded as a single stream. */
+    @Value("${app.download.parallel-threshold-mb:32}")
+    private long parallelThresholdMb;
+    /** How long each request may wait for the server to start responding. */
+    @Value("${app.download.response-timeout-seconds:60}")
+    private long responseTimeoutSeconds;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(30))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    private final ExecutorService chunkPool = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "download-chunk");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Download {@code url} to {@code target}, verifying only the server-reported size. */
+    public Path download(String url, Path target) throws IOException {
+        return download(url, target, -1, null);
+    }
+
+    /**
+     * Download {@code url} to {@code target}, resuming a previous partial download if present.
+     *
+     * @param expectedSize   expected size in bytes, or -1 to trust the server's Content-Length
+     * @param expectedSha256 expected hex SHA-256 of the content, or null to skip the digest check
+     * @return the target path
+     */
+    public Path download(String url, Path target, long expectedSize, String expectedSha256) throws IOException {
+        target = target.toAbsolutePath();
+        if (target.getParent() != null) Files.createDirectories(target.getParent());
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        Path statePath = target.resolveSibling(target.getFileName() + ".part.state");
+
+        RemoteInfo remote = probe(url);
+        if (expectedSize >= 0 && remote.size() >= 0 && expectedSize != remote.size()) {
+            throw new IOException("Server reports " + remote.size() + " bytes for " + url
+                    + " but " + expectedSize + " were expected");
+        }
+        long size = remote.size() >= 0 ? remote.size() : expectedSize;
+
+        boolean chunked = remote.acceptsRanges() && parallelChunks > 1
+                && size >= parallelThresholdMb * 1024 * 1024;
+        if (chunked) {
+            downloadChunked(url, part, statePath, size, remote.etag());
+        } else {
+            Files.deleteIfExists(statePath);
+            downloadSingle(url, part, size, remote);
+        }
+
+        verify(part, size, expectedSha256);
+        moveIntoPlace(part, target);
+        Files.deleteIfExists(statePath);
+        log.info("[Download] {} -> {} ({} bytes{})", url, target, Files.size(target),
+                chunked ? ", " + parallelChunks + " chunks" : "");
+        return target;
+    }
+
+    // ─── Probe ──────────────────────────────────────────────────────────────
+
+    private record RemoteInfo(long size, boolean acceptsRanges, String etag) {}
+
+    /** HEAD the URL for size, range support and a validator. Servers that refuse HEAD get a plain GET later. */
+    private RemoteInfo probe(String url) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(responseTimeoutSeconds))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<Void> response = send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            log.debug("[Download] HEAD {} returned {}; falling back to a single GET", url, response.statusCode());
+            return new RemoteInfo(-1, false, null);
+        }
+        long size = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        boolean ranges = response.headers().firstValue("Accept-Ranges")
+                .map(v -> v.equalsIgnoreCase("bytes")).orElse(false);
+        // Weak validators are not allowed in If-Range, so only strong ETags are kept.
+        String etag = response.headers().firstValue("ETag").filter(e -> !e.startsWith("W/")).orElse(null);
+        return new RemoteInfo(size, ranges && size > 0, etag);
+    }
+
+    // ─── Single stream ──────────────────────────────────────────────────────
+
+    private void downloadSingle(String url, Path part, long size, RemoteInfo remote) throws IOException {
+        long have = Files.exists(part) ? Files.size(part) : 0;
+        // A leftover .part is only trusted when the server can confirm it is the same file (If-Range).
+        boolean resumable = remote.acceptsRanges() && remote.etag() != null;
+        if (have > 0 && resumable && have == size) {
+            return; // finished earlier but never renamed
+        }
+        if (have > 0 && !(resumable && have < size)) {
+            Files.delete(part);
+            have = 0;
+        }
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(responseTimeoutSeconds))
+                .GET();
+        if (have > 0) {
+            builder.header("Range", "bytes=" + have + "-");
+            builder.header("If-Range", remote.etag());
+        }
+        HttpResponse<InputStream> response = send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        int status = response.statusCode();
+        if (status == 200 && have > 0) {
+            log.info("[Download] Server sent the whole file for {}; restarting from 0", url);
+            have = 0;
+        } else if (status != 200 && status != 206) {
+            response.body().close();
+            throw new IOException("HTTP " + status + " for " + url);
+        } else if (have > 0) {
+            log.info("[Download] Resuming {} at byte {}", url, have);
+        }
+
+        StandardOpenOption mode = have > 0 ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+        try (InputStream in = response.body();
+             OutputStream out = Files.newOutputStream(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+            in.transferTo(out);
+        }
+    }
+
+    // ─── Parallel ranged chunks ─────────────────────────────────────────────
+
+    private void downloadChunked(String url, Path part, Path statePath, long size, String etag) throws IOException {
+        ChunkState state = ChunkState.load(statePath, size, etag);
+        if (state == null || !Files.exists(part)) {
+            state = ChunkState.create(statePath, size, etag, parallelChunks);
+            Files.deleteIfExists(part);
+        } else {
+            log.info("[Download] Resuming {} ({} of {} bytes present)", url, state.completed(), size);
+        }
+
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < state.count(); i++) {
+                if (state.remaining(i) <= 0) continue;
+                int chunk = i;
+                ChunkState s = state;
+                futures.add(chunkPool.submit(() -> {
+                    fetchRange(url, etag, channel, s, chunk);
+                    return null;
+                }));
+            }
+            IOException failure = null;
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+                        futures.forEach(other -> other.cancel(true));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    futures.forEach(other -> other.cancel(true));
+                    failure = new IOException("Interrupted", e);
+                    break;
+                } catch (CancellationException ignored) {
+                }
+            }
+            state.save();
+            if (failure != null) throw failure;
+        }
+    }
+
+    private void fetchRange(String url, String etag, FileChannel channel, ChunkState state, int chunk) throws IOException {
+        long from = state.start(chunk) + state.done(chunk);
+        long to = state.end(chunk);
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(responseTimeoutSeconds))
+                .header("Range", "bytes=" + from + "-" + to)
+                .GET();
+        if (etag != null) builder.header("If-Range", etag);
+        HttpResponse<InputStream> response = send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 206) {
+            response.body().close();
+            // 200 here means the file changed since the probe (If-Range failed) or ranges are not honoured.
+            throw new IOException("Range request for " + url + " returned HTTP " + response.statusCode());
+        }
+
+        byte[] buf = new byte[BUFFER_SIZE];
+        long position = from;
+        long sinceSave = 0;
+        try (InputStream in = response.body()) {
+            int n;
+            while (position <= to && (n = in.read(buf, 0, (int) Math.min(buf.length, to - position + 1))) > 0) {
+                if (Thread.currentThread().isInterrupted()) throw new IOException("Interrupted");
+                ByteBuffer bb = ByteBuffer.wrap(buf, 0, n);
+                while (bb.hasRemaining()) {
+                    position += channel.write(bb, position);
+                }
+                state.advance(chunk, n);
+                sinceSave += n;
+                if (sinceSave >= STATE_SAVE_INTERVAL) {
+                    channel.force(false);
+                    state.save();
+                    sinceSave = 0;
+                }
+            }
+        }
+        if (position <= to) {
+            throw new IOException("Connection closed at byte " + position + " of chunk ending at " + to);
+        }
+    }
+
+    /** Byte ranges of a chunked download and how much of each is on disk. */
+    private static final class ChunkState {
+        private final Path file;
+        private final long size;
+        private final String etag;
+        private final long[] starts;
+        private final long[] ends;
+        private final AtomicLongArray done;
+
+        private ChunkState(Path file, long size, String etag, long[] starts, long[] ends, AtomicLongArray done) {
+            this.file = file;
+            this.size = size;
+            this.etag = etag;
+            this.starts = starts;
+            this.ends = ends;
+            this.done = done;
+        }
+
+        static ChunkState create(Path file, long size, String etag, int chunks) {
+            long chunkSize = (size + chunks - 1) / chunks;
+            int count = (int) ((size + chunkSize - 1) / chunkSize);
+            long[] starts = new long[count];
+            long[] ends = new long[count];
+            for (int i = 0; i < count; i++) {
+                starts[i] = i * chunkSize;
+                ends[i] = Math.min(size, starts[i] + chunkSize) - 1;
+            }
+            return new ChunkState(file, size, etag, starts, ends, new AtomicLongArray(count));
+        }
+
+        /** Previous progress for the same remote file, or null if absent, unreadable or for another version. */
+        static ChunkState load(Path file, long size, String etag) {
+            if (!Files.exists(file)) return null;
+            Properties p = new Properties();
+            try (Reader r = Files.newBufferedReader(file)) {
+                p.load(r);
+                if (Long.parseLong(p.getProperty("size", "-1")) != size) return null;
+                // Without a validator we cannot tell whether the file changed; start over.
+                if (etag == null || !etag.equals(p.getProperty("etag"))) return null;
+                int count = Integer.parseInt(p.getProperty("chunks", "0"));
+                if (count <= 0) return null;
+                long[] starts = new long[count];
+                long[] ends = new long[count];
+                AtomicLongArray done = new AtomicLongArray(count);
+                for (int i = 0; i < count; i++) {
+                    String[] range = p.getProperty("chunk." + i).split(",");
+                    starts[i] = Long.parseLong(range[0]);
+                    ends[i] = Long.parseLong(range[1]);
+                    done.set(i, Long.parseLong(range[2]));
+                }
+                return new ChunkState(file, size, etag, starts, ends, done);
+            } catch (Exception e) {
+                log.debug("[Download] Ignoring unreadable state {}: {}", file, e.getMessage());
+                return null;
+            }
+        }
+
+        int count() { return starts.length; }
+        long start(int i) { return starts[i]; }
+        long end(int i) { return ends[i]; }
+        long done(int i) { return done.get(i); }
+        long remaining(int i) { return ends[i] - starts[i] + 1 - done.get(i); }
+        void advance(int i, long n) { done.addAndGet(i, n); }
+
+        long completed() {
+            long sum = 0;
+            for (int i = 0; i < count(); i++) sum += done.get(i);
+            return sum;
+        }
+
+        /** Written to a temp file and renamed, so a crash mid-save keeps the previous state. */
+        synchronized void save() throws IOException {
+            Properties p = new Properties();
+            p.setProperty("size", Long.toString(size));
+            if (etag != null) p.setProperty("etag", etag);
+            p.setProperty("chunks", Integer.toString(count()));
+            for (int i = 0; i < count(); i++) {
+                p.setProperty("chunk." + i, starts[i] + "," + ends[i] + "," + done.get(i));
+            }
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (Writer w = Files.newBufferedWriter(tmp)) {
+                p.store(w, null);
+            }
+            moveIntoPlace(tmp, file);
+        }
+    }
+
+    // ─── Verify / finish ────────────────────────────────────────────────────
+
+    private static void verify(Path part, long size, String expectedSha256) throws IOException {
+        long actual = Files.size(part);
+        if (size >= 0 && actual < size) {
+            // Keep the partial file so the next attempt resumes.
+            throw new IOException("Incomplete download: " + actual + " of " + size + " bytes");
+        }
+        if (size >= 0 && actual > size) {
+            Files.delete(part);
+            throw new IOException("Download is larger than expected: " + actual + " > " + size + " bytes");
+        }
+        if (expectedSha256 != null && !expectedSha256.isBlank()) {
+            String sha = sha256(part);
+            if (!sha.equalsIgnoreCase(expectedSha256.trim())) {
+                Files.delete(part);
+                throw new IOException("SHA-256 mismatch: expected " + expectedSha256 + ", got " + sha);
+            }
+        }
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(1024 * 1024);
+            while (ch.read(buf) > 0) {
+                buf.flip();
+                digest.update(buf);
+                buf.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return httpClient.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+    }
+}
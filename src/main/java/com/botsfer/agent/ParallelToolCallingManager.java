@@ -0,0 +1,295 @@
+package com.botsfer.agent;
+
+import com.botsfer.agent.tools.InvalidatesToolCache;
+import com.botsfer.tracing.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.model.tool.DefaultToolCallingManager;
+import org.springframework.ai.model.tool.ToolCallingChatOptions;
+import org.springframework.ai.model.tool.ToolCallingManager;
+import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.execution.ToolExecutionException;
+import org.springframework.ai.tool.execution.ToolExecutionExceptionProcessor;
+import org.springframework.ai.tool.resolution.ToolCallbackResolver;
+import org.springframework.ai.tool.support.ToolUtils;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import jakarta.annotation.PreDestroy;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Replaces Spring AI's sequential tool execution: when one assistant message asks for several
+ * tools, they run concurrently and the turn takes as long as the slowest call instead of the sum.
+ * Responses keep the order of the calls.
+ * <p>
+ * Tools that drive the desktop, clipboard or file system ({@code app.tools.parallel.serial})
+ * act as barriers: everything requested before them finishes first, they run alone, and later
+ * calls start after them, so "write file, then zip it" still happens in that order. Every tool
+ * marked {@link InvalidatesToolCache} writes something and is treated as serial as well.
+ * Every call is bounded by {@code app.tools.timeout-seconds} (or {@code app.tools.timeout.<tool>});
+ * a call that times out is interrupted. If it keeps running anyway, the serial tools after it in
+ * the same turn are not started, since they could overlap with it.
+ */
+@Component
+public class ParallelToolCallingManager implements ToolCallingManager {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelToolCallingManager.class);
+    private static final long STOP_GRACE_MS = 2000;
+
+    @Value("${app.tools.parallel.enabled:true}")
+    private boolean parallelEnabled;
+    @Value("${app.tools.timeout-seconds:300}")
+    private long defaultTimeoutSeconds;
+
+    private final Set<String> serialTools;
+    private final ToolCallbackResolver toolCallbackResolver;
+    private final ToolExecutionExceptionProcessor exceptionProcessor;
+    private final DefaultToolCallingManager definitions;
+    private final AutonomousTelemetry telemetry;
+    private final Tracer tracer;
+    private final Environment environment;
+    private final ListableBeanFactory beanFactory;
+    private volatile Set<String> invalidatingTools;
+    // Unbounded on purpose: tools are I/O-bound, and a fixed pool could deadlock if a tool makes a nested model call
+    private final ExecutorService pool = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "tool-call");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ParallelToolCallingManager(ToolCallbackResolver toolCallbackResolver,
+                                      ToolExecutionExceptionProcessor exceptionProcessor,
+                                      AutonomousTelemetry telemetry,
+                                      Tracer tracer,
+                                      Environment environment,
+                                      ListableBeanFactory beanFactory,
+                                      @Value("${app.tools.parallel.serial:}") List<String> serialTools) {
+        this.toolCallbackResolver = toolCallbackResolver;
+        this.exceptionProcessor = exceptionProcessor;
+        this.telemetry = telemetry;
+        this.tracer = tracer;
+        this.environment = environment;
+        this.beanFactory = beanFactory;
+        this.serialTools = new HashSet<>();
+        serialTools.forEach(t -> { if (!t.isBlank()) this.serialTools.add(t.trim()); });
+        this.definitions = DefaultToolCallingManager.builder()
+                .toolCallbackResolver(toolCallbackResolver)
+                .toolExecutionExceptionProcessor(exceptionProcessor)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Override
+    public List<ToolDefinition> resolveToolDefinitions(ToolCallingChatOptions chatOptions) {
+        return definitions.resolveToolDefinitions(chatOptions);
+    }
+
+    @Override
+    public ToolExecutionResult executeToolCalls(Prompt prompt, ChatResponse chatResponse) {
+        AssistantMessage assistantMessage = chatResponse.getResults().stream()
+                .map(Generation::getOutput)
+                .filter(AssistantMessage::hasToolCalls)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No tool call requested by the chat model"));
+        ToolContext toolContext = buildToolContext(prompt, assistantMessage);
+        List<ToolCallback> callbacks = prompt.getOptions() instanceof ToolCallingChatOptions options
+                ? options.getToolCallbacks() : List.of();
+
+        List<AssistantMessage.ToolCall> calls = assistantMessage.getToolCalls();
+        List<ToolCallback> resolved = new ArrayList<>(calls.size());
+        boolean returnDirect = true;
+        for (AssistantMessage.ToolCall call : calls) {
+            ToolCallback callback = callbacks.stream()
+                    .filter(c -> call.name().equals(c.getToolDefinition().name()))
+                    .findFirst()
+                    .orElseGet(() -> toolCallbackResolver.resolve(call.name()));
+            if (callback == null) {
+                throw new IllegalStateException("No ToolCallback found for tool name: " + call.name());
+            }
+            resolved.add(callback);
+            returnDirect &= callback.getToolMetadata().returnDirect();
+        }
+
+        long start = System.currentTimeMillis();
+        String[] results = new String[calls.size()];
+        List<Integer> wave = new ArrayList<>();
+        List<Running> running = new ArrayList<>();
+        String stuck = null;
+        for (int i = 0; i < calls.size(); i++) {
+            AssistantMessage.ToolCall call = calls.get(i);
+            if (isSerial(call.name())) {
+                String waveStuck = awaitAll(calls, wave, running, results);
+                if (stuck == null) stuck = waveStuck;
+                if (stuck != null) {
+                    log.warn("[Tools] Skipping {}: {} timed out and is still running", call.name(), stuck);
+                    results[i] = "Tool " + call.name() + " was not run: " + stuck + " timed out and may still be running.";
+                    continue;
+                }
+                Running r = submit(resolved.get(i), call, toolContext);
+                results[i] = await(call, r);
+                if (r.abandoned) stuck = call.name();
+            } else {
+                wave.add(i);
+                running.add(submit(resolved.get(i), call, toolContext));
+            }
+        }
+        awaitAll(calls, wave, running, results);
+        telemetry.recordToolPhase(System.currentTimeMillis() - start);
+        if (calls.size() > 1) {
+            log.info("[Tools] {} tool calls finished in {}ms", calls.size(), System.currentTimeMillis() - start);
+        }
+
+        List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>(calls.size());
+        for (int i = 0; i < calls.size(); i++) {
+            responses.add(new ToolResponseMessage.ToolResponse(calls.get(i).id(), calls.get(i).name(), results[i]));
+        }
+        List<Message> history = new ArrayList<>(prompt.getInstructions());
+        history.add(assistantMessage);
+        history.add(new ToolResponseMessage(responses, Map.of()));
+        return ToolExecutionResult.builder()
+                .conversationHistory(history)
+                .returnDirect(returnDirect)
+                .build();
+    }
+
+    private boolean isSerial(String tool) {
+        if (!parallelEnabled || serialTools.contains(tool)) return true;
+        Set<String> invalidating = invalidatingTools;
+        if (invalidating == null) invalidatingTools = invalidating = findInvalidatingTools();
+        return invalidating.contains(tool);
+    }
+
+    /** Names of the @Tool methods on beans that are also marked {@link InvalidatesToolCache}. */
+    private Set<String> findInvalidatingTools() {
+        Set<String> names = new HashSet<>();
+        for (String bean : beanFactory.getBeanDefinitionNames()) {
+            Class<?> type = beanFactory.getType(bean, false);
+            if (type == null) continue;
+            for (Method m : ClassUtils.getUserClass(type).getMethods()) {
+                if (m.isAnnotationPresent(Tool.class) && m.isAnnotationPresent(InvalidatesToolCache.class)) {
+                    names.add(ToolUtils.getToolName(m));
+                }
+            }
+        }
+        return names;
+    }
+
+    private Running submit(ToolCallback callback, AssistantMessage.ToolCall call, ToolContext context) {
+        Supplier<String> task = tracer.propagate(telemetry.propagate(() -> {
+            try {
+                return callback.call(call.arguments(), context);
+            } catch (ToolExecutionException e) {
+                return exceptionProcessor.process(e);
+            }
+        }));
+        Running r = new Running();
+        r.future = pool.submit(() -> {
+            r.started = true;
+            try {
+                return task.get();
+            } finally {
+                r.done.countDown();
+            }
+        });
+        return r;
+    }
+
+    /** Waits for the wave; returns the name of a call that timed out and is still running, or null. */
+    private String awaitAll(List<AssistantMessage.ToolCall> calls, List<Integer> wave,
+                            List<Running> running, String[] results) {
+        String stuck = null;
+        for (int j = 0; j < wave.size(); j++) {
+            AssistantMessage.ToolCall call = calls.get(wave.get(j));
+            results[wave.get(j)] = await(call, running.get(j));
+            if (running.get(j).abandoned && stuck == null) stuck = call.name();
+        }
+        wave.clear();
+        running.clear();
+        return stuck;
+    }
+
+    private String await(AssistantMessage.ToolCall call, Running r) {
+        long timeout = environment.getProperty("app.tools.timeout." + call.name(), Long.class, defaultTimeoutSeconds);
+        try {
+            return r.future.get(timeout, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            r.stop();
+            log.warn("[Tools] {} timed out after {}s{}", call.name(), timeout,
+                    r.abandoned ? " and ignored the interrupt; it is still running" : "");
+            return "Tool " + call.name() + " timed out after " + timeout + "s.";
+        } catch (InterruptedException e) {
+            r.future.cancel(true);
+            Thread.currentThread().interrupt();
+            return "Tool " + call.name() + " was interrupted.";
+        } catch (ExecutionException e) {
+            // Same contract as the default manager: anything but ToolExecutionException fails the call
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error err) throw err;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /** A submitted call. Cancelling interrupts its thread, but a tool blocked in I/O may not stop. */
+    private static final class Running {
+        final CountDownLatch done = new CountDownLatch(1);
+        Future<String> future;
+        volatile boolean started;
+        boolean abandoned;
+
+        /** Interrupt the call and give it a moment to finish; {@link #abandoned} if it keeps running. */
+        void stop() {
+            future.cancel(true);
+            try {
+                abandoned = started && !done.await(STOP_GRACE_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                abandoned = started;
+            }
+        }
+    }
+
+    private static ToolContext buildToolContext(Prompt prompt, AssistantMessage assistantMessage) {
+        Map<String, Object> context = Map.of();
+        if (prompt.getOptions() instanceof ToolCallingChatOptions options
+                && options.getToolContext() != null && !options.getToolContext().isEmpty()) {
+            context = new HashMap<>(options.getToolContext());
+            List<Message> history = new ArrayList<>(prompt.copy().getInstructions());
+            history.add(new AssistantMessage(assistantMessage.getText(), assistantMessage.getMetadata(),
+                    assistantMessage.getToolCalls()));
+            context.put(ToolContext.TOOL_CALL_HISTORY, history);
+        }
+        return new ToolContext(context);
+    }
+}
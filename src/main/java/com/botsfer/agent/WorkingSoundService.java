@@ -1,17 +1,22 @@
 package com.botsfer.agent;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.sound.sampled.*;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.awt.GraphicsEnvironment;
 
 /**
  * Plays a low-volume dial-up modem sound while the bot is processing.
  * The sound is synthesized in memory — no external audio file needed.
+ * <p>
+ * The clip is synthesized, opened and given its volume once, off the request path, then only
+ * rewound and looped on {@link #start()} and stopped on {@link #stop()}. Headless systems and
+ * systems without a mixer that can play it get no sound, and {@code start()} returns at once.
  */
 @Component
 public class WorkingSoundService {
@@ -20,50 +25,82 @@ public class WorkingSoundService {
 
     private static final float SAMPLE_RATE = 22050f;
     private static final float VOLUME = 0.20f; // 20% volume
+    private static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 8, 1, true, false);
 
+    @Value("${app.working-sound.enabled:true}")
+    private boolean enabled;
+
+    /** Open and ready once prepared; null while preparing or when there is no usable audio output. */
     private volatile Clip clip;
     private volatile boolean playing = false;
-    private byte[] dialUpWav;
 
-    /** Start looping the dial-up sound. Safe to call multiple times. */
-    public synchronized void start() {
-        if (playing) return;
+    @PostConstruct
+    public void init() {
+        if (!enabled || GraphicsEnvironment.isHeadless()) {
+            log.debug("Working sound disabled ({})", enabled ? "headless" : "app.working-sound.enabled=false");
+            return;
+        }
+        Thread t = new Thread(this::prepare, "working-sound-init");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void prepare() {
         try {
-            if (dialUpWav == null) {
-                dialUpWav = generateDialUpSound();
+            if (!AudioSystem.isLineSupported(new DataLine.Info(Clip.class, FORMAT))) {
+                log.debug("Working sound disabled: no mixer can play it");
+                return;
             }
-            AudioInputStream ais = AudioSystem.getAudioInputStream(
-                    new ByteArrayInputStream(dialUpWav));
-            clip = AudioSystem.getClip();
-            clip.open(ais);
+            byte[] pcm = generateDialUpSound();
+            Clip c = AudioSystem.getClip();
+            c.open(FORMAT, pcm, 0, pcm.length);
 
             // Set volume to 20%
-            if (clip.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
-                FloatControl gain = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
+            if (c.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
+                FloatControl gain = (FloatControl) c.getControl(FloatControl.Type.MASTER_GAIN);
                 // Convert linear 0.0–1.0 to decibels
                 float dB = 20f * (float) Math.log10(VOLUME);
                 dB = Math.max(dB, gain.getMinimum());
                 dB = Math.min(dB, gain.getMaximum());
                 gain.setValue(dB);
             }
+            clip = c;
+        } catch (Exception e) {
+            log.debug("Could not prepare working sound: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        playing = false;
+        Clip c = clip;
+        clip = null;
+        if (c != null) c.close();
+    }
 
-            clip.loop(Clip.LOOP_CONTINUOUSLY);
+    /** Start looping the dial-up sound. Safe to call multiple times; a no-op when there is no sound. */
+    public synchronized void start() {
+        Clip c = clip;
+        if (playing || c == null) return;
+        try {
+            c.setFramePosition(0);
+            c.loop(Clip.LOOP_CONTINUOUSLY);
             playing = true;
         } catch (Exception e) {
             log.debug("Could not play working sound: {}", e.getMessage());
         }
     }
 
-    /** Stop the sound. Safe to call even if not playing. */
+    /** Stop the sound. Safe to call even if not playing. The clip stays open for the next start. */
     public synchronized void stop() {
+        if (!playing) return;
         playing = false;
-        if (clip != null) {
+        Clip c = clip;
+        if (c != null) {
             try {
-                clip.stop();
-                clip.close();
+                c.stop();
             } catch (Exception ignored) {
             }
-            clip = null;
         }
     }
 
@@ -72,10 +109,10 @@ public class WorkingSoundService {
     }
 
     /**
-     * Synthesize a ~4-second dial-up modem sound as a WAV byte array.
+     * Synthesize a ~4-second dial-up modem sound as signed 8-bit mono PCM in {@link #FORMAT}.
      * Mimics the classic sequence: dial tone -> handshake screech -> carrier.
      */
-    private byte[] generateDialUpSound() throws IOException {
+    private byte[] generateDialUpSound() {
         int totalSamples = (int) (SAMPLE_RATE * 4); // 4 seconds
         byte[] pcm = new byte[totalSamples];
 
@@ -118,48 +155,6 @@ public class WorkingSoundService {
             sample = Math.max(-1, Math.min(1, sample));
             pcm[i] = (byte) (sample * 127);
         }
-
-        // Wrap PCM data into a WAV file
-        return wrapWav(pcm, SAMPLE_RATE);
-    }
-
-    /** Create a minimal WAV file from raw 8-bit signed PCM mono data. */
-    private byte[] wrapWav(byte[] pcm, float sampleRate) throws IOException {
-        int sr = (int) sampleRate;
-        ByteArrayOutputStream bos = new ByteArrayOutputStream();
-
-        // RIFF header
-        bos.write("RIFF".getBytes());
-        writeInt(bos, 36 + pcm.length);  // chunk size
-        bos.write("WAVE".getBytes());
-
-        // fmt sub-chunk
-        bos.write("fmt ".getBytes());
-        writeInt(bos, 16);               // sub-chunk size
-        writeShort(bos, 1);              // PCM format
-        writeShort(bos, 1);              // mono
-        writeInt(bos, sr);               // sample rate
-        writeInt(bos, sr);               // byte rate (sr * 1 channel * 1 byte)
-        writeShort(bos, 1);              // block align
-        writeShort(bos, 8);              // bits per sample
-
-        // data sub-chunk
-        bos.write("data".getBytes());
-        writeInt(bos, pcm.length);
-        bos.write(pcm);
-
-        return bos.toByteArray();
-    }
-
-    private void writeInt(ByteArrayOutputStream bos, int v) {
-        bos.write(v & 0xFF);
-        bos.write((v >> 8) & 0xFF);
-        bos.write((v >> 16) & 0xFF);
-        bos.write((v >> 24) & 0xFF);
-    }
-
-    private void writeShort(ByteArrayOutputStream bos, int v) {
-        bos.write(v & 0xFF);
-        bos.write((v >> 8) & 0xFF);
+        return pcm;
     }
 }
@@ -1,20 +1,15 @@
 package com.botsfer.agent.tools;
 
 import com.botsfer.agent.BrowserControlService;
+import com.botsfer.agent.DownloadService;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Component;
 
-import java.io.InputStream;
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.time.Duration;
 
 @Component
 public class BrowserTools {
@@ -24,14 +19,13 @@ public class BrowserTools {
 
     private final BrowserControlService browserControl;
     private final ToolExecutionNotifier notifier;
-    private final HttpClient httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(30))
-            .followRedirects(HttpClient.Redirect.NORMAL)
-            .build();
+    private final DownloadService downloads;
 
-    public BrowserTools(BrowserControlService browserControl, ToolExecutionNotifier notifier) {
+    public BrowserTools(BrowserControlService browserControl, ToolExecutionNotifier notifier,
+                        DownloadService downloads) {
         this.browserControl = browserControl;
         this.notifier = notifier;
+        this.downloads = downloads;
     }
 
     @Tool(description = "Open a URL in the default web browser")
@@ -67,6 +61,7 @@ public class BrowserTools {
         return browserControl.listBrowserTabs();
     }
 
+    @InvalidatesToolCache({"directive-data", "files"})
     @Tool(description = "Download a file from a URL and save it to ~/botsfer_data/downloads/ " +
             "(or to a specific directive folder if directiveName is provided). " +
             "Supports any file type: images, PDFs, documents, etc.")
@@ -98,23 +93,8 @@ public class BrowserTools {
 
             Path target = saveDir.resolve(saveName);
 
-            // Download
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .timeout(Duration.ofMinutes(5))
-                    .GET()
-                    .build();
-
-            HttpResponse<InputStream> response = httpClient.send(request,
-                    HttpResponse.BodyHandlers.ofInputStream());
-
-            if (response.statusCode() < 200 || response.statusCode() >= 300) {
-                return "Download failed: HTTP " + response.statusCode();
-            }
-
-            try (InputStream in = response.body()) {
-                Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
-            }
+            // Download (resumable, written to .part and renamed when complete)
+            downloads.download(url, target);
 
             long size = Files.size(target);
             String sizeStr = size < 1024 ? size + " B"
@@ -0,0 +1,21 @@
+package com.botsfer.agent.tools;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read-only @Tool whose String result may be reused for identical arguments
+ * for {@link #ttlSeconds()}. Entries in a {@link #group()} are dropped when a tool
+ * annotated with {@link InvalidatesToolCache} for that group runs. See {@link ToolResultCache}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CachedTool {
+
+    long ttlSeconds();
+
+    /** Invalidation group, e.g. "files" or "notes"; empty means only the TTL applies. */
+    String group() default "";
+}
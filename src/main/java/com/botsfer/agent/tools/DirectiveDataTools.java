@@ -1,5 +1,6 @@
 package com.botsfer.agent.tools;
 
+import com.botsfer.semantic.SemanticIndexService;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Component;
@@ -32,11 +33,14 @@ public class DirectiveDataTools {
             DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
 
     private final ToolExecutionNotifier notifier;
+    private final SemanticIndexService semanticIndex;
 
-    public DirectiveDataTools(ToolExecutionNotifier notifier) {
+    public DirectiveDataTools(ToolExecutionNotifier notifier, SemanticIndexService semanticIndex) {
         this.notifier = notifier;
+        this.semanticIndex = semanticIndex;
     }
 
+    @InvalidatesToolCache({"directive-data", "files"})
     @Tool(description = "Save a text finding to a directive's data folder. " +
             "Creates ~/botsfer_data/directive_{name}/ if it doesn't exist. " +
             "Use this to store research results, gathered information, or progress notes for a specific directive.")
@@ -50,12 +54,14 @@ public class DirectiveDataTools {
             String filename = LocalDateTime.now().format(TS_FMT) + "_finding.txt";
             Path file = dir.resolve(filename);
             Files.writeString(file, content, StandardCharsets.UTF_8);
+            semanticIndex.indexFinding(file, content);
             return "Finding saved: " + file.toAbsolutePath();
         } catch (Exception e) {
             return "Failed to save finding: " + e.getMessage();
         }
     }
 
+    @InvalidatesToolCache({"directive-data", "files"})
     @Tool(description = "Take a screenshot and save it to a directive's data folder. " +
             "Use this to capture the current screen state as evidence or reference for a directive's research.")
     public String saveDirectiveScreenshot(
@@ -77,6 +83,7 @@ public class DirectiveDataTools {
         }
     }
 
+    @CachedTool(ttlSeconds = 60, group = "directive-data")
     @Tool(description = "List all files gathered for a directive (text findings and screenshots).")
     public String listDirectiveData(
             @ToolParam(description = "Short name of the directive") String directiveName) {
@@ -112,16 +119,13 @@ public class DirectiveDataTools {
             if (!Files.exists(file)) {
                 return "File not found: " + file;
             }
-            String content = Files.readString(file, StandardCharsets.UTF_8);
-            if (content.length() > 5000) {
-                return content.substring(0, 5000) + "\n... (truncated, " + content.length() + " chars total)";
-            }
-            return content;
+            return Files.readString(file, StandardCharsets.UTF_8);
         } catch (Exception e) {
             return "Failed to read finding: " + e.getMessage();
         }
     }
 
+    @CachedTool(ttlSeconds = 60, group = "directive-data")
     @Tool(description = "List all directive data folders that exist under botsfer_data/.")
     public String listAllDirectiveFolders() {
         notifier.notify("Listing directive folders...");
@@ -15,7 +15,8 @@ import java.util.List;
 /**
  * Tools for reading and updating the user's primary directives file.
  * The directives are loaded into the AI system prompt on every request,
- * so changes take effect immediately.
+ * so changes take effect immediately. The mutators are synchronized because
+ * each one reads, edits and rewrites the whole file.
  */
 @Component
 public class DirectivesTools {
@@ -43,8 +44,9 @@ public class DirectivesTools {
         }
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Set or replace the user's primary directives. These are persistent instructions that guide your behavior (e.g. 'always respond in Spanish', 'call me Boss'). This overwrites the entire directives file.")
-    public String setDirectives(
+    public synchronized String setDirectives(
             @ToolParam(description = "The full directives text to save") String directives) {
         notifier.notify("Updating directives...");
         try {
@@ -56,8 +58,9 @@ public class DirectivesTools {
         }
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Append a line or paragraph to the existing directives without replacing them.")
-    public String appendDirective(
+    public synchronized String appendDirective(
             @ToolParam(description = "The directive text to add") String directive) {
         notifier.notify("Adding directive...");
         try {
@@ -93,8 +96,9 @@ public class DirectivesTools {
         }
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Move a directive to a new position. For example, to make directive #3 the top priority, call moveDirective(from=3, to=1). Other directives shift to make room.")
-    public String moveDirective(
+    public synchronized String moveDirective(
             @ToolParam(description = "Current position of the directive to move (1-based)") int from,
             @ToolParam(description = "New position to place it at (1-based)") int to) {
         notifier.notify("Reordering directives...");
@@ -128,8 +132,9 @@ public class DirectivesTools {
         }
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Remove a single directive by its position number (1-based). Other directives shift up.")
-    public String removeDirective(
+    public synchronized String removeDirective(
             @ToolParam(description = "Position of the directive to remove (1-based)") int position) {
         notifier.notify("Removing directive...");
         try {
@@ -163,8 +168,9 @@ public class DirectivesTools {
         return lines;
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Clear all primary directives, removing all custom behavior instructions.")
-    public String clearDirectives() {
+    public synchronized String clearDirectives() {
         notifier.notify("Clearing directives...");
         try {
             if (Files.exists(DIRECTIVES_FILE)) {
@@ -176,6 +182,17 @@ public class DirectivesTools {
         }
     }
 
+    /** One entry per non-empty line of the directives file (empty if none). Used by autonomous mode. */
+    public static List<String> loadDirectiveList() {
+        String content = loadDirectivesForPrompt();
+        List<String> lines = new ArrayList<>();
+        if (content == null) return lines;
+        for (String line : content.split("\n")) {
+            if (!line.trim().isEmpty()) lines.add(line.trim());
+        }
+        return lines;
+    }
+
     /** Called by SystemContextProvider to include directives in the system prompt. */
     public static String loadDirectivesForPrompt() {
         try {
@@ -1,34 +1,28 @@
 package com.botsfer.agent.tools;
 
+import com.botsfer.agent.DownloadService;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Component;
 
-import java.io.InputStream;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.time.Duration;
 
 @Component
 public class DownloadTools {
 
     private final ToolExecutionNotifier notifier;
-    private final HttpClient httpClient = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(30))
-            .followRedirects(HttpClient.Redirect.NORMAL)
-            .build();
+    private final DownloadService downloads;
 
-    public DownloadTools(ToolExecutionNotifier notifier) {
+    public DownloadTools(ToolExecutionNotifier notifier, DownloadService downloads) {
         this.notifier = notifier;
+        this.downloads = downloads;
     }
 
-    @Tool(description = "Download a file from a URL and save it to a local path. Use when the user wants to save a file from a link.")
+    @InvalidatesToolCache({"files", "directive-data"})
+    @Tool(description = "Download a file from a URL and save it to a local path. Use when the user wants to save a file from a link. " +
+            "Large files download in parallel, and calling again after a failure resumes where it stopped.")
     public String downloadFile(
             @ToolParam(description = "Full URL of the file to download") String url,
             @ToolParam(description = "Full local path to save the file, e.g. C:\\Users\\Me\\Downloads\\file.pdf") String savePath) {
@@ -36,17 +30,7 @@ public class DownloadTools {
         if (savePath == null || savePath.isBlank()) return "Save path is required.";
         notifier.notify("Downloading: " + url);
         try {
-            URI uri = URI.create(url);
-            HttpRequest request = HttpRequest.newBuilder().uri(uri).timeout(Duration.ofSeconds(60)).GET().build();
-            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
-            if (response.statusCode() < 200 || response.statusCode() >= 300) {
-                return "Download failed: HTTP " + response.statusCode();
-            }
-            Path out = Paths.get(savePath);
-            Files.createDirectories(out.getParent() != null ? out.getParent() : out.getRoot());
-            try (InputStream in = response.body()) {
-                Files.copy(in, out, StandardCopyOption.REPLACE_EXISTING);
-            }
+            Path out = downloads.download(url, Paths.get(savePath));
             long size = Files.size(out);
             return "Downloaded to " + out.toAbsolutePath() + " (" + size + " bytes).";
         } catch (Exception e) {
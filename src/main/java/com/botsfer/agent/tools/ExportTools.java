@@ -33,6 +33,7 @@ public class ExportTools {
         this.notifier = notifier;
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Export the conversation history to a Markdown (.md) file. " +
             "Saves to ~/botsfer_data/exports/. Returns the file path.")
     public String exportToMarkdown() {
@@ -69,6 +70,7 @@ public class ExportTools {
         }
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Export the conversation history to an HTML file with styled formatting. " +
             "Saves to ~/botsfer_data/exports/. Can be opened in any browser.")
     public String exportToHtml() {
@@ -33,6 +33,7 @@ public class FileSystemTools {
 
     // ─── Browse & inspect ────────────────────────────────────────────────────
 
+    @CachedTool(ttlSeconds = 30, group = "files")
     @Tool(description = "List the contents of a directory showing name, type (file/dir), size, and last modified date")
     public String listDirectory(
             @ToolParam(description = "Full path to the directory to list") String path) {
@@ -65,6 +66,7 @@ public class FileSystemTools {
         }
     }
 
+    @CachedTool(ttlSeconds = 30, group = "files")
     @Tool(description = "Count how many files and directories are in a given directory (non-recursive, top-level only)")
     public String countDirectoryContents(
             @ToolParam(description = "Full path to the directory to inspect") String path) {
@@ -85,6 +87,7 @@ public class FileSystemTools {
         }
     }
 
+    @CachedTool(ttlSeconds = 30, group = "files")
     @Tool(description = "Get detailed info about a file or directory: size, dates, attributes, and for directories the total size recursively")
     public String getFileInfo(
             @ToolParam(description = "Full path to the file or directory") String path) {
@@ -141,6 +144,7 @@ public class FileSystemTools {
         return (Files.isDirectory(p) ? "Directory" : "File") + " exists: " + p;
     }
 
+    @CachedTool(ttlSeconds = 60, group = "files")
     @Tool(description = "List all available disk drives with total space, free space, and used percentage")
     public String listDrives() {
         notifier.notify("Listing drives...");
@@ -163,6 +167,7 @@ public class FileSystemTools {
 
     // ─── Create ──────────────────────────────────────────────────────────────
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Create a new directory (and any missing parent directories)")
     public String createDirectory(
             @ToolParam(description = "Full path for the new directory") String path) {
@@ -177,6 +182,7 @@ public class FileSystemTools {
         }
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Create or overwrite a text file with the given content")
     public String writeTextFile(
             @ToolParam(description = "Full path for the file") String path,
@@ -194,7 +200,8 @@ public class FileSystemTools {
 
     // ─── Read ────────────────────────────────────────────────────────────────
 
-    @Tool(description = "Read the text content of a file (first 10000 characters). For viewing text files, logs, configs, etc.")
+    @CachedTool(ttlSeconds = 30, group = "files")
+    @Tool(description = "Read the text content of a file. For viewing text files, logs, configs, etc. Long files return the start plus a handle for readToolResult.")
     public String readTextFile(
             @ToolParam(description = "Full path to the text file") String path) {
         notifier.notify("Reading " + path + "...");
@@ -204,11 +211,7 @@ public class FileSystemTools {
             if (Files.isDirectory(p)) return "Cannot read a directory. Use listDirectory instead.";
             long size = Files.size(p);
             if (size > 500_000) return "File too large to read as text (" + formatSize(size) + "). Max 500 KB.";
-            String content = Files.readString(p, StandardCharsets.UTF_8);
-            if (content.length() > 10_000) {
-                return content.substring(0, 10_000) + "\n...(truncated, " + content.length() + " chars total)";
-            }
-            return content;
+            return Files.readString(p, StandardCharsets.UTF_8);
         } catch (IOException e) {
             return "Failed to read file: " + e.getMessage();
         }
@@ -216,6 +219,7 @@ public class FileSystemTools {
 
     // ─── Copy / Move / Rename ────────────────────────────────────────────────
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Copy a file from a source path to a destination path")
     public String copyFile(
             @ToolParam(description = "Source file path") String source,
@@ -234,6 +238,7 @@ public class FileSystemTools {
         }
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Move a file or directory to a different location")
     public String movePath(
             @ToolParam(description = "Current full path of the file or directory") String source,
@@ -252,6 +257,7 @@ public class FileSystemTools {
         }
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Rename a file or folder. Give the full path and the new name (just the name, not the full path).")
     public String rename(
             @ToolParam(description = "Full path of the file or folder to rename") String path,
@@ -271,6 +277,7 @@ public class FileSystemTools {
 
     // ─── Delete ──────────────────────────────────────────────────────────────
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Delete a single file by its full path")
     public String deleteFile(
             @ToolParam(description = "Full path to the file to delete") String path) {
@@ -287,6 +294,7 @@ public class FileSystemTools {
         }
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Delete a directory and all its contents recursively. Use with caution.")
     public String deleteDirectory(
             @ToolParam(description = "Full path to the directory to delete") String path) {
@@ -395,6 +403,7 @@ public class FileSystemTools {
 
     // ─── Zip / Unzip ─────────────────────────────────────────────────────────
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Compress a file or directory into a zip archive")
     public String zipPath(
             @ToolParam(description = "Path to the file or directory to compress") String sourcePath,
@@ -446,6 +455,7 @@ public class FileSystemTools {
         }
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Extract a zip archive to a destination directory")
     public String unzipFile(
             @ToolParam(description = "Path to the .zip file") String zipFilePath,
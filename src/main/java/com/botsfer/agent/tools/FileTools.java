@@ -45,6 +45,7 @@ public class FileTools {
         return runningTasks;
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Scan the entire PC and collect all files of a given category "
             + "(photos, videos, music, documents, archives) into a central folder. "
             + "This is a long-running background task.", returnDirect = true)
@@ -61,7 +61,8 @@ public class GlobalHotkeyService implements NativeKeyListener {
             jnhLogger.setLevel(Level.WARNING);
             jnhLogger.setUseParentHandlers(false);
 
-            GlobalScreen.registerNativeHook();
+            // The hook may already be up (ActivityMonitor shares it)
+            if (!GlobalScreen.isNativeHookRegistered()) GlobalScreen.registerNativeHook();
             GlobalScreen.addNativeKeyListener(this);
             hookRegistered = true;
             log.info("[Hotkeys] Global keyboard hook registered.");
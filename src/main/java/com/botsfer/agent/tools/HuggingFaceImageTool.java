@@ -2,15 +2,28 @@ package com.botsfer.agent.tools;
 
 import com.botsfer.huggingface.HuggingFaceOnnxClassifier;
 import com.botsfer.huggingface.HuggingFaceService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Tools to discover Hugging Face image-classification models and run local ONNX inference
@@ -19,6 +32,10 @@ import java.util.stream.Collectors;
 @Component
 public class HuggingFaceImageTool {
 
+    private static final int MAX_FOLDER_IMAGES = 10_000;
+    private static final DateTimeFormatter TS_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     private final HuggingFaceService hfService;
     private final HuggingFaceOnnxClassifier classifier;
     private final ToolExecutionNotifier notifier;
@@ -49,14 +66,18 @@ public class HuggingFaceImageTool {
         }
     }
 
-    @Tool(description = "Classify an image using a Hugging Face model. If the model is ONNX (e.g. suko/nsfw), it is downloaded and run locally. Use for tasks like 'is this image censored/NSFW?' — pass the image path and model ID (e.g. suko/nsfw).")
+    @InvalidatesToolCache({"files", "directive-data"})
+    @Tool(description = "Classify an image using a Hugging Face model. If the model is ONNX (e.g. suko/nsfw), it is downloaded and run locally. Use for tasks like 'is this image censored/NSFW?' — pass the image path and model ID (e.g. suko/nsfw). " +
+            "Pass a FOLDER path to classify every image in it (and its subfolders) in one call: results are written to a CSV or JSON report and a summary is returned.")
     public String classifyImageWithHf(
-            @ToolParam(description = "Full path to the image file") String imagePath,
-            @ToolParam(description = "Hugging Face model ID, e.g. suko/nsfw for NSFW detection") String modelId) {
+            @ToolParam(description = "Full path to the image file, or to a folder of images") String imagePath,
+            @ToolParam(description = "Hugging Face model ID, e.g. suko/nsfw for NSFW detection") String modelId,
+            @ToolParam(description = "Report format when classifying a folder: 'csv' (default) or 'json'", required = false) String reportFormat) {
         notifier.notify("Classifying image with " + modelId + "...");
         try {
             Path imgPath = Paths.get(imagePath).normalize().toAbsolutePath();
-            if (!Files.isRegularFile(imgPath)) {
+            boolean folder = Files.isDirectory(imgPath);
+            if (!folder && !Files.isRegularFile(imgPath)) {
                 return "Image file not found: " + imagePath;
             }
             List<String> paths = hfService.getModelFilePaths(modelId);
@@ -64,10 +85,162 @@ public class HuggingFaceImageTool {
                 return "Model " + modelId + " is not available as ONNX (no model.onnx). Use searchHuggingFaceImageModels to find ONNX models, or use Hugging Face Inference API in the cloud.";
             }
             Path modelDir = hfService.ensureOnnxModelCached(modelId);
+            if (folder) {
+                return classifyFolder(imgPath, modelId, modelDir, "json".equalsIgnoreCase(reportFormat));
+            }
             String result = classifier.classify(imgPath, modelDir);
             return "Result: " + result;
         } catch (Exception e) {
             return "Classification failed: " + e.getMessage();
         }
     }
+
+    /** Classify every image under a folder, streaming one report row per image as batches complete. */
+    private String classifyFolder(Path folder, String modelId, Path modelDir, boolean json) throws Exception {
+        List<Path> images;
+        try (Stream<Path> walk = Files.walk(folder)) {
+            images = walk.filter(Files::isRegularFile)
+                    .filter(HuggingFaceImageTool::isImageFile)
+                    .sorted()
+                    .limit(MAX_FOLDER_IMAGES)
+                    .toList();
+        }
+        if (images.isEmpty()) return "No images found in " + folder;
+        notifier.notify("Classifying " + images.size() + " images with " + modelId + "...");
+
+        String reportName = "_classification_" + modelId.replaceAll("[^A-Za-z0-9]+", "-") + "_"
+                + LocalDateTime.now().format(TS_FMT) + (json ? ".json" : ".csv");
+        Path report = folder.resolve(reportName);
+        Map<String, Integer> topCounts = new TreeMap<>();
+        int[] failed = {0};
+        long start = System.currentTimeMillis();
+
+        try (BufferedWriter out = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            ReportWriter writer = json ? new JsonReport(out) : new CsvReport(out);
+            classifier.classifyBatch(images, modelDir, r -> {
+                if (r.ok()) topCounts.merge(r.topLabel(), 1, Integer::sum);
+                else failed[0]++;
+                try {
+                    writer.write(folder.relativize(r.image()).toString(), r);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.finish();
+        }
+
+        double seconds = Math.max(0.001, (System.currentTimeMillis() - start) / 1000.0);
+        StringBuilder sb = new StringBuilder();
+        sb.append("Classified ").append(images.size() - failed[0]).append(" of ").append(images.size())
+                .append(" images in ").append(String.format("%.1f", seconds)).append("s (")
+                .append(String.format("%.0f", images.size() / seconds)).append(" images/s).\n");
+        topCounts.forEach((label, count) -> sb.append("  ").append(label).append(": ").append(count).append("\n"));
+        if (failed[0] > 0) sb.append("  (").append(failed[0]).append(" could not be read)\n");
+        if (images.size() == MAX_FOLDER_IMAGES) sb.append("Stopped at the first ").append(MAX_FOLDER_IMAGES).append(" images.\n");
+        sb.append("Full report: ").append(report);
+        return sb.toString();
+    }
+
+    private static boolean isImageFile(Path p) {
+        String n = p.getFileName().toString().toLowerCase();
+        return n.endsWith(".jpg") || n.endsWith(".jpeg") || n.endsWith(".png")
+                || n.endsWith(".gif") || n.endsWith(".bmp") || n.endsWith(".webp");
+    }
+
+    private interface ReportWriter {
+        void write(String image, HuggingFaceOnnxClassifier.ImageResult r) throws IOException;
+
+        default void finish() throws IOException {}
+    }
+
+    /**
+     * CSV with one score column per label. The labels come from the first successful result, so
+     * failures before it are held back and written right after the header.
+     */
+    private static final class CsvReport implements ReportWriter {
+        private final BufferedWriter out;
+        private final List<String[]> pendingErrors = new ArrayList<>();
+        private List<String> labels;
+
+        CsvReport(BufferedWriter out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(String image, HuggingFaceOnnxClassifier.ImageResult r) throws IOException {
+            if (!r.ok()) {
+                if (labels == null) pendingErrors.add(new String[] {image, r.error()});
+                else writeError(image, r.error());
+                return;
+            }
+            if (labels == null) writeHeader(List.copyOf(r.scores().keySet()));
+            StringBuilder row = new StringBuilder(csv(image)).append(',')
+                    .append(csv(r.topLabel())).append(',').append(String.format(Locale.ROOT, "%.4f", r.topScore()));
+            for (String label : labels) {
+                Float score = r.scores().get(label);
+                row.append(',').append(score != null ? String.format(Locale.ROOT, "%.4f", score) : "");
+            }
+            out.write(row.append(',').toString());
+            out.newLine();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (labels == null) writeHeader(List.of());
+        }
+
+        private void writeHeader(List<String> labels) throws IOException {
+            this.labels = labels;
+            out.write("image,top_label,top_score,"
+                    + labels.stream().map(l -> csv(l) + ",").collect(Collectors.joining()) + "error");
+            out.newLine();
+            for (String[] e : pendingErrors) writeError(e[0], e[1]);
+            pendingErrors.clear();
+        }
+
+        private void writeError(String image, String error) throws IOException {
+            out.write(csv(image) + ",,," + ",".repeat(labels.size()) + csv(error));
+            out.newLine();
+        }
+
+        private static String csv(String value) {
+            if (value == null) return "";
+            if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+                return "\"" + value.replace("\"", "\"\"") + "\"";
+            }
+            return value;
+        }
+    }
+
+    /** JSON array written one element at a time so large folders never sit in memory. */
+    private static final class JsonReport implements ReportWriter {
+        private final BufferedWriter out;
+        private boolean first = true;
+
+        JsonReport(BufferedWriter out) throws IOException {
+            this.out = out;
+            out.write("[");
+        }
+
+        @Override
+        public void write(String image, HuggingFaceOnnxClassifier.ImageResult r) throws IOException {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("image", image);
+            if (r.ok()) {
+                row.put("topLabel", r.topLabel());
+                row.put("topScore", r.topScore());
+                row.put("scores", r.scores());
+            } else {
+                row.put("error", r.error());
+            }
+            out.write(first ? "\n  " : ",\n  ");
+            out.write(OBJECT_MAPPER.writeValueAsString(row));
+            first = false;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.write("\n]\n");
+        }
+    }
 }
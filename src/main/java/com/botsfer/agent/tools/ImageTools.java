@@ -31,6 +31,7 @@ public class ImageTools {
         this.notifier = notifier;
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Flip an image vertically (top becomes bottom). Saves to a new file with _vflip before the extension (e.g. photo.png -> photo_vflip.png).")
     public String flipImageVertical(
             @ToolParam(description = "Full path to the image file (e.g. C:\\Users\\me\\Pictures\\photo.png)") String imagePath) {
@@ -42,6 +43,7 @@ public class ImageTools {
         });
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Flip an image horizontally (left becomes right). Saves to a new file with _hflip before the extension.")
     public String flipImageHorizontal(
             @ToolParam(description = "Full path to the image file") String imagePath) {
@@ -53,6 +55,7 @@ public class ImageTools {
         });
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Convert an image to black and white (grayscale). Saves to a new file with _bw before the extension.")
     public String imageToBlackAndWhite(
             @ToolParam(description = "Full path to the image file") String imagePath) {
@@ -65,6 +68,7 @@ public class ImageTools {
         });
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Rotate an image by 90, 180, or 270 degrees clockwise. Saves to a new file with _rot90, _rot180, or _rot270 before the extension.")
     public String rotateImage(
             @ToolParam(description = "Full path to the image file") String imagePath,
@@ -97,6 +101,7 @@ public class ImageTools {
         });
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Resize an image to a new width and height. Saves to a new file with _WxH before the extension (e.g. photo_800x600.png). Aspect ratio may change unless you choose dimensions that match.")
     public String resizeImage(
             @ToolParam(description = "Full path to the image file") String imagePath,
@@ -0,0 +1,17 @@
+package com.botsfer.agent.tools;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a @Tool that changes state read by {@link CachedTool} tools: cached results in the
+ * given groups are dropped when it runs. {@link ToolResultCache#ALL} clears every group.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface InvalidatesToolCache {
+
+    String[] value();
+}
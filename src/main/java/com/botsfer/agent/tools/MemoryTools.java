@@ -19,6 +19,7 @@ public class MemoryTools {
         this.notifier = notifier;
     }
 
+    @InvalidatesToolCache("notes")
     @Tool(description = "Save a note or reminder under a key. The user can later ask to recall it. Key must be alphanumeric with dots, dashes, or underscores (e.g. 'meeting-time', 'reminder.birthday').")
     public String saveNote(
             @ToolParam(description = "A short key to remember this by (e.g. 'meeting-time', 'wifi-password')") String key,
@@ -35,6 +36,7 @@ public class MemoryTools {
         }
     }
 
+    @CachedTool(ttlSeconds = 300, group = "notes")
     @Tool(description = "Recall a note or reminder previously saved under a key. Use when the user asks what they asked to remember or to look up a saved note.")
     public String getNote(
             @ToolParam(description = "The key the note was saved under") String key) {
@@ -49,6 +51,7 @@ public class MemoryTools {
         }
     }
 
+    @CachedTool(ttlSeconds = 300, group = "notes")
     @Tool(description = "List all note keys the user has saved. Use to see what notes exist before calling getNote.")
     public String listNoteKeys() {
         if (!memoryService.isEnabled()) return "Notes are disabled (app.memory.enabled=false).";
@@ -62,6 +65,7 @@ public class MemoryTools {
         }
     }
 
+    @InvalidatesToolCache("notes")
     @Tool(description = "Delete a saved note by its key.")
     public String deleteNote(
             @ToolParam(description = "The key of the note to delete") String key) {
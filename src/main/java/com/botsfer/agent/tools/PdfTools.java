@@ -32,10 +32,7 @@ public class PdfTools {
                 PDFTextStripper stripper = new PDFTextStripper();
                 String text = stripper.getText(doc);
                 if (text == null || text.isBlank()) return "No text content in PDF.";
-                text = text.replaceAll("\\s{3,}", "\n\n").trim();
-                int max = 50_000;
-                if (text.length() > max) text = text.substring(0, max) + "\n\n[... truncated at " + max + " chars]";
-                return text;
+                return text.replaceAll("\\s{3,}", "\n\n").trim();
             }
         } catch (Exception e) {
             return "PDF extraction failed: " + e.getMessage();
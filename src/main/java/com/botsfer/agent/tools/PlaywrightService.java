@@ -1,10 +1,13 @@
 package com.botsfer.agent.tools;
 
+import com.google.gson.JsonObject;
 import com.microsoft.playwright.*;
 import com.microsoft.playwright.options.LoadState;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.microsoft.playwright.options.ScreenshotType;
@@ -13,13 +16,20 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * Manages a shared headless Chromium browser instance via Playwright.
- * Lazily initialized on first use. Auto-installs Chromium if not found.
- * The browser persists for the app's lifetime to avoid re-launching overhead.
+ * Manages headless Chromium browsers via Playwright.
+ * The Playwright Java API is thread-confined, so work is dispatched through a queue to a
+ * pool of dedicated worker threads, each of which lazily launches and owns its own browser.
+ * Callers block on the result with a per-task timeout. The viewer page (browser tab) gets
+ * its own single worker thread. Auto-installs Chromium if not found.
  */
 @Service
 public class PlaywrightService {
@@ -27,44 +37,157 @@ public class PlaywrightService {
     private static final Logger log = LoggerFactory.getLogger(PlaywrightService.class);
     private static final Path BASE_DIR =
             Paths.get(System.getProperty("user.home"), "botsfer_data");
-
-    private Playwright playwright;
-    private Browser browser;
-    private final Object lock = new Object();
+    /** How long the viewer thread listens for screencast frames before yielding to queued tasks. */
+    private static final int SCREENCAST_PUMP_MS = 100;
+    private static final Pattern SCRIPT_PATTERN =
+            Pattern.compile("(?is)<script[^>]*>.*?</script>");
+
+    /** Number of browser worker threads (0 = auto, based on available cores). */
+    @Value("${app.playwright.workers:0}")
+    private int configuredWorkers;
+    /** Maximum time a caller waits for a single browser task. */
+    @Value("${app.playwright.task-timeout-seconds:120}")
+    private int taskTimeoutSeconds;
+    /** Whether pages loaded by tools are shown in the viewer (browser tab) while it is open. */
+    @Value("${app.playwright.mirror-to-viewer:true}")
+    private boolean mirrorEnabled;
+
+    private ExecutorService workers;
+    private ExecutorService viewerWorker;
+    /** The Playwright + browser owned by the current worker thread. */
+    private final ThreadLocal<BrowserSlot> currentSlot = new ThreadLocal<>();
+    /** All slots ever created, so shutdown can close them once the workers have stopped. */
+    private final Queue<BrowserSlot> allSlots = new ConcurrentLinkedQueue<>();
+    private final Object installLock = new Object();
     private volatile boolean installAttempted = false;
 
-    // ─── Persistent viewer page (for browser tab) ──────────────────────────
+    // ─── Persistent viewer page (for browser tab) — only touched on viewerWorker ──
     private BrowserContext viewerContext;
     private Page viewerPage;
+    private volatile boolean viewerActive = false;
     private volatile String lastUrl = "";
     private volatile String lastTitle = "";
+    /** Latest page waiting to be mirrored; older requests are superseded, not queued. */
+    private final AtomicReference<ViewerSnapshot> pendingMirror = new AtomicReference<>();
+
+    // ─── Live view (CDP screencast) ────────────────────────────────────────
+    private final Set<Consumer<byte[]>> frameListeners = new CopyOnWriteArraySet<>();
+    private volatile byte[] lastFrame;
+    private CDPSession screencast;      // viewer thread only
+    private boolean pumpScheduled;      // viewer thread only
+
+    /** A thread-confined Playwright driver and the browser it launched. */
+    private static final class BrowserSlot {
+        Playwright playwright;
+        Browser browser;
+
+        void close() {
+            try { if (browser != null) browser.close(); } catch (Exception ignored) {}
+            try { if (playwright != null) playwright.close(); } catch (Exception ignored) {}
+            browser = null;
+            playwright = null;
+        }
+    }
+
+    /** A page a worker already loaded: its final URL and rendered DOM (null = navigate for real). */
+    private record ViewerSnapshot(String url, String html) {}
+
+    /** A unit of browser work, run on a worker thread with a fresh page. */
+    @FunctionalInterface
+    private interface PageTask<T> {
+        T run(Page page) throws Exception;
+    }
+
+    @PostConstruct
+    public void init() {
+        int count = configuredWorkers > 0
+                ? configuredWorkers
+                : Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        workers = Executors.newFixedThreadPool(count, namedDaemonThreads("playwright-worker"));
+        viewerWorker = Executors.newSingleThreadExecutor(namedDaemonThreads("playwright-viewer"));
+        log.info("[Playwright] Browser pool configured with {} workers (browsers launch on first use).", count);
+    }
+
+    private static ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger seq = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
 
-    /** Get (or lazily create) the shared browser. Auto-installs Chromium on first use. */
+    /**
+     * Get (or lazily create) the browser owned by the calling worker thread.
+     * Auto-installs Chromium on first failure. Must only be called on a worker thread.
+     */
     private Browser getBrowser() {
-        synchronized (lock) {
-            if (browser == null || !browser.isConnected()) {
-                // Try to launch — if Chromium isn't installed, install it and retry
-                try {
-                    playwright = Playwright.create();
-                    browser = launchChromium(playwright);
-                } catch (Exception e) {
-                    if (!installAttempted) {
-                        installAttempted = true;
-                        log.info("[Playwright] Chromium not found — installing automatically...");
-                        installChromium();
-                        // Retry after install
-                        if (playwright != null) {
-                            try { playwright.close(); } catch (Exception ignored) {}
-                        }
-                        playwright = Playwright.create();
-                        browser = launchChromium(playwright);
-                    } else {
-                        throw e;
-                    }
-                }
-                log.info("[Playwright] Browser ready.");
+        BrowserSlot slot = currentSlot.get();
+        if (slot == null) {
+            slot = new BrowserSlot();
+            currentSlot.set(slot);
+            allSlots.add(slot);
+        }
+        if (slot.browser == null || !slot.browser.isConnected()) {
+            slot.close();
+            // Try to launch — if Chromium isn't installed, install it and retry
+            try {
+                slot.playwright = Playwright.create();
+                slot.browser = launchChromium(slot.playwright);
+            } catch (Exception e) {
+                slot.close();
+                installChromiumOnce();
+                slot.playwright = Playwright.create();
+                slot.browser = launchChromium(slot.playwright);
             }
-            return browser;
+            log.info("[Playwright] Browser ready on {}.", Thread.currentThread().getName());
+        }
+        return slot.browser;
+    }
+
+    /** Install Chromium at most once, even when several workers fail to launch at the same time. */
+    private void installChromiumOnce() {
+        synchronized (installLock) {
+            if (installAttempted) return;
+            installAttempted = true;
+            log.info("[Playwright] Chromium not found — installing automatically...");
+            installChromium();
+        }
+    }
+
+    /** Queue a task for the browser pool and wait (bounded) for its result. */
+    private <T> T withPage(PageTask<T> task) {
+        return await(workers.submit(() -> {
+            Page page = newPage();
+            try {
+                return task.run(page);
+            } finally {
+                try { page.context().close(); } catch (Exception ignored) {}
+            }
+        }));
+    }
+
+    /** Queue a task for the viewer thread and wait (bounded) for its result. */
+    private <T> T onViewer(Callable<T> task) {
+        return await(viewerWorker.submit(task));
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(taskTimeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            // Don't interrupt: Playwright calls are not interrupt-safe. The context's default
+            // timeout bounds how long the worker stays busy; its finally block cleans up.
+            future.cancel(false);
+            throw new RuntimeException("Browser task timed out after " + taskTimeoutSeconds + "s");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            throw new RuntimeException(cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new RuntimeException("Interrupted while waiting for browser", e);
         }
     }
 
@@ -109,37 +232,37 @@ public class PlaywrightService {
 
     /** Navigate to a URL, wait for content to load, and return the rendered text. */
     public String getPageText(String url) {
-        try (Page page = newPage()) {
+        String text = withPage(page -> {
             page.navigate(url);
             page.waitForLoadState(LoadState.NETWORKIDLE);
-            String text = page.innerText("body");
-            page.context().close();
-            mirrorToViewer(url);
-            if (text.length() > 10000) {
-                text = text.substring(0, 10000) + "\n... (truncated)";
-            }
-            return text;
+            String bodyText = page.innerText("body");
+            mirrorLoadedPage(page, null);
+            return bodyText;
+        });
+        if (text.length() > 10000) {
+            text = text.substring(0, 10000) + "\n... (truncated)";
         }
+        return text;
     }
 
     /** Navigate and return the full rendered HTML. */
     public String getPageHtml(String url) {
-        try (Page page = newPage()) {
+        String html = withPage(page -> {
             page.navigate(url);
             page.waitForLoadState(LoadState.NETWORKIDLE);
-            String html = page.content();
-            page.context().close();
-            mirrorToViewer(url);
-            if (html.length() > 500000) {
-                html = html.substring(0, 500000);
-            }
-            return html;
+            String content = page.content();
+            mirrorLoadedPage(page, content);
+            return content;
+        });
+        if (html.length() > 500000) {
+            html = html.substring(0, 500000);
         }
+        return html;
     }
 
     /** Navigate to a URL and extract all image src URLs (after JS rendering). */
     public List<String> getImageUrls(String url) {
-        try (Page page = newPage()) {
+        return withPage(page -> {
             page.navigate(url);
             page.waitForLoadState(LoadState.NETWORKIDLE);
             // Use JS to extract all img src attributes after rendering
@@ -162,14 +285,13 @@ public class PlaywrightService {
                         return [...new Set(urls)].slice(0, 100);
                     }
                     """);
-            page.context().close();
             return images;
-        }
+        });
     }
 
     /** Navigate and extract all anchor href links. */
     public List<String> getLinkUrls(String url) {
-        try (Page page = newPage()) {
+        return withPage(page -> {
             page.navigate(url);
             page.waitForLoadState(LoadState.NETWORKIDLE);
             @SuppressWarnings("unchecked")
@@ -186,33 +308,31 @@ public class PlaywrightService {
                         return [...new Set(urls)].slice(0, 100);
                     }
                     """);
-            page.context().close();
             return links;
-        }
+        });
     }
 
     /** Navigate to a URL, take a full-page screenshot, save to a directive folder. */
     public Path screenshotPage(String url, String directiveName) throws Exception {
-        try (Page page = newPage()) {
-            page.navigate(url);
-            page.waitForLoadState(LoadState.NETWORKIDLE);
-
-            String safeName = sanitizeName(directiveName);
-            Path dir = BASE_DIR.resolve("directive_" + safeName);
-            Files.createDirectories(dir);
+        String safeName = sanitizeName(directiveName);
+        Path dir = BASE_DIR.resolve("directive_" + safeName);
+        Files.createDirectories(dir);
 
-            String filename = java.time.LocalDateTime.now()
-                    .format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"))
-                    + "_page_screenshot.png";
-            Path target = dir.resolve(filename);
+        String filename = java.time.LocalDateTime.now()
+                .format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss"))
+                + "_page_screenshot.png";
+        Path target = dir.resolve(filename);
 
+        withPage(page -> {
+            page.navigate(url);
+            page.waitForLoadState(LoadState.NETWORKIDLE);
             page.screenshot(new Page.ScreenshotOptions()
                     .setFullPage(true)
                     .setPath(target));
-            page.context().close();
-            mirrorToViewer(url);
+            mirrorLoadedPage(page, null);
             return target;
-        }
+        });
+        return target;
     }
 
     /**
@@ -220,7 +340,7 @@ public class PlaywrightService {
      * and return them.
      */
     public List<String> searchGoogleImages(String query, int maxResults) {
-        try (Page page = newPage()) {
+        return withPage(page -> {
             String searchUrl = "https://www.google.com/search?q=" +
                     java.net.URLEncoder.encode(query, java.nio.charset.StandardCharsets.UTF_8) +
                     "&tbm=isch";
@@ -258,16 +378,15 @@ public class PlaywrightService {
                         return [...new Set(urls)].slice(0, max);
                     }
                     """, maxResults * 2);
-            page.context().close();
             return images;
-        }
+        });
     }
 
     /**
      * Search Bing Images for a query and extract full-size image URLs.
      */
     public List<String> searchBingImages(String query, int maxResults) {
-        try (Page page = newPage()) {
+        return withPage(page -> {
             String searchUrl = "https://www.bing.com/images/search?q=" +
                     java.net.URLEncoder.encode(query, java.nio.charset.StandardCharsets.UTF_8) +
                     "&form=HDRSC2";
@@ -302,29 +421,27 @@ public class PlaywrightService {
                         return [...new Set(urls)].slice(0, max);
                     }
                     """, maxResults);
-            page.context().close();
             return images;
-        }
+        });
     }
 
     /** Click an element matching the CSS selector on a page. Returns the page text after click. */
     public String clickElement(String url, String selector) {
-        try (Page page = newPage()) {
+        return withPage(page -> {
             page.navigate(url);
             page.waitForLoadState(LoadState.NETWORKIDLE);
             page.click(selector);
             page.waitForLoadState(LoadState.NETWORKIDLE);
             String text = page.innerText("body");
             String currentUrl = page.url();
-            page.context().close();
             if (text.length() > 8000) text = text.substring(0, 8000) + "\n... (truncated)";
             return "Navigated to: " + currentUrl + "\n\n" + text;
-        }
+        });
     }
 
     /** Fill a form input and optionally submit. */
     public String fillAndSubmit(String url, String selector, String value, boolean submit) {
-        try (Page page = newPage()) {
+        return withPage(page -> {
             page.navigate(url);
             page.waitForLoadState(LoadState.NETWORKIDLE);
             page.fill(selector, value);
@@ -334,16 +451,16 @@ public class PlaywrightService {
             }
             String text = page.innerText("body");
             String currentUrl = page.url();
-            page.context().close();
             if (text.length() > 8000) text = text.substring(0, 8000) + "\n... (truncated)";
             return "Current URL: " + currentUrl + "\n\n" + text;
-        }
+        });
     }
 
     // ─── Viewer API (for browser tab) ─────────────────────────────────────
+    // All viewer page access is confined to the viewerWorker thread.
 
-    /** Get or create the persistent viewer page. */
-    public synchronized Page getViewerPage() {
+    /** Get or create the persistent viewer page. Must run on the viewer thread. */
+    private Page getViewerPage() {
         if (viewerPage == null || viewerPage.isClosed()) {
             viewerContext = getBrowser().newContext(
                     new Browser.NewContextOptions()
@@ -354,19 +471,28 @@ public class PlaywrightService {
             );
             viewerContext.setDefaultTimeout(30000);
             viewerPage = viewerContext.newPage();
+            viewerActive = true;
+            screencast = null;
+            syncScreencast();
         }
         return viewerPage;
     }
 
+    private boolean hasViewerPage() {
+        return viewerPage != null && !viewerPage.isClosed();
+    }
+
     /** Navigate the viewer page to a URL. */
-    public synchronized String viewerNavigate(String url) {
+    public String viewerNavigate(String url) {
         try {
-            Page page = getViewerPage();
-            page.navigate(url);
-            page.waitForLoadState(LoadState.DOMCONTENTLOADED);
-            lastUrl = page.url();
-            lastTitle = page.title();
-            return lastTitle;
+            return onViewer(() -> {
+                Page page = getViewerPage();
+                page.navigate(url);
+                page.waitForLoadState(LoadState.DOMCONTENTLOADED);
+                lastUrl = page.url();
+                lastTitle = page.title();
+                return lastTitle;
+            });
         } catch (Exception e) {
             log.warn("[Playwright] Viewer navigate failed: {}", e.getMessage());
             return "Error: " + e.getMessage();
@@ -374,15 +500,18 @@ public class PlaywrightService {
     }
 
     /** Take a JPEG screenshot of the viewer page. Returns null if no page open. */
-    public synchronized byte[] viewerScreenshot() {
-        if (viewerPage == null || viewerPage.isClosed()) return null;
+    public byte[] viewerScreenshot() {
+        if (!viewerActive) return null;
         try {
-            lastUrl = viewerPage.url();
-            lastTitle = viewerPage.title();
-            return viewerPage.screenshot(new Page.ScreenshotOptions()
-                    .setFullPage(false)
-                    .setType(ScreenshotType.JPEG)
-                    .setQuality(60));
+            return onViewer(() -> {
+                if (!hasViewerPage()) return null;
+                lastUrl = viewerPage.url();
+                lastTitle = viewerPage.title();
+                return viewerPage.screenshot(new Page.ScreenshotOptions()
+                        .setFullPage(false)
+                        .setType(ScreenshotType.JPEG)
+                        .setQuality(60));
+            });
         } catch (Exception e) {
             log.debug("[Playwright] Viewer screenshot failed: {}", e.getMessage());
             return null;
@@ -394,52 +523,180 @@ public class PlaywrightService {
         return Map.of(
                 "url", lastUrl,
                 "title", lastTitle,
-                "active", String.valueOf(viewerPage != null && !viewerPage.isClosed())
+                "active", String.valueOf(viewerActive)
         );
     }
 
     /** Go back in viewer history. */
-    public synchronized void viewerBack() {
-        if (viewerPage == null || viewerPage.isClosed()) return;
-        try {
-            viewerPage.goBack();
-            lastUrl = viewerPage.url();
-            lastTitle = viewerPage.title();
-        } catch (Exception ignored) {}
+    public void viewerBack() {
+        runOnViewerPage(Page::goBack);
     }
 
     /** Go forward in viewer history. */
-    public synchronized void viewerForward() {
-        if (viewerPage == null || viewerPage.isClosed()) return;
-        try {
-            viewerPage.goForward();
-            lastUrl = viewerPage.url();
-            lastTitle = viewerPage.title();
-        } catch (Exception ignored) {}
+    public void viewerForward() {
+        runOnViewerPage(Page::goForward);
     }
 
     /** Refresh the viewer page. */
-    public synchronized void viewerRefresh() {
-        if (viewerPage == null || viewerPage.isClosed()) return;
+    public void viewerRefresh() {
+        runOnViewerPage(Page::reload);
+    }
+
+    private void runOnViewerPage(java.util.function.Consumer<Page> action) {
+        if (!viewerActive) return;
         try {
-            viewerPage.reload();
-            lastUrl = viewerPage.url();
-            lastTitle = viewerPage.title();
+            onViewer(() -> {
+                if (!hasViewerPage()) return null;
+                action.accept(viewerPage);
+                lastUrl = viewerPage.url();
+                lastTitle = viewerPage.title();
+                return null;
+            });
         } catch (Exception ignored) {}
     }
 
-    /** Called by tool methods after navigating — mirrors URL to the viewer page. */
-    public void mirrorToViewer(String url) {
-        if (viewerPage != null && !viewerPage.isClosed()) {
+    // ─── Live view ────────────────────────────────────────────────────────
+    // Chrome pushes a JPEG frame (Page.screencastFrame) only when the page repaints, so an
+    // idle page costs nothing, unlike polling viewerScreenshot().
+
+    /** Subscribe to live viewer frames. The listener is called on the viewer thread and must not block. */
+    public void addViewerFrameListener(Consumer<byte[]> listener) {
+        frameListeners.add(listener);
+        byte[] frame = lastFrame;
+        if (frame != null) listener.accept(frame);
+        viewerWorker.execute(this::syncScreencast);
+    }
+
+    public void removeViewerFrameListener(Consumer<byte[]> listener) {
+        frameListeners.remove(listener);
+        viewerWorker.execute(this::syncScreencast);
+    }
+
+    /** Start or stop the screencast so it runs only while someone is watching. Viewer thread only. */
+    private void syncScreencast() {
+        boolean wanted = !frameListeners.isEmpty() && hasViewerPage();
+        if (wanted && screencast == null) {
             try {
-                viewerPage.navigate(url);
-                viewerPage.waitForLoadState(LoadState.DOMCONTENTLOADED);
-                lastUrl = viewerPage.url();
-                lastTitle = viewerPage.title();
+                screencast = viewerContext.newCDPSession(viewerPage);
+                screencast.on("Page.screencastFrame", this::onScreencastFrame);
+                JsonObject params = new JsonObject();
+                params.addProperty("format", "jpeg");
+                params.addProperty("quality", 60);
+                params.addProperty("maxWidth", 1280);
+                params.addProperty("maxHeight", 720);
+                screencast.send("Page.startScreencast", params);
+            } catch (Exception e) {
+                log.debug("[Playwright] Screencast start failed: {}", e.getMessage());
+                screencast = null;
+            }
+        } else if (!wanted && screencast != null) {
+            try {
+                screencast.send("Page.stopScreencast");
+                screencast.detach();
             } catch (Exception ignored) {}
-        } else {
-            lastUrl = url;
+            screencast = null;
+        }
+        if (screencast != null && !pumpScheduled) {
+            pumpScheduled = true;
+            viewerWorker.execute(this::pumpScreencast);
+        }
+    }
+
+    /**
+     * Playwright only dispatches events while its thread is inside an API call, so the viewer
+     * thread waits briefly for frames, then re-queues itself behind any pending viewer tasks.
+     */
+    private void pumpScreencast() {
+        pumpScheduled = false;
+        if (screencast == null || !hasViewerPage()) return;
+        try {
+            viewerPage.waitForTimeout(SCREENCAST_PUMP_MS);
+        } catch (Exception e) {
+            log.debug("[Playwright] Screencast pump stopped: {}", e.getMessage());
+            screencast = null;
+            return;
+        }
+        if (screencast != null && !viewerWorker.isShutdown()) {
+            pumpScheduled = true;
+            viewerWorker.execute(this::pumpScreencast);
+        }
+    }
+
+    private void onScreencastFrame(JsonObject event) {
+        // Ack right away so Chrome keeps producing frames; slow clients skip frames downstream
+        try {
+            JsonObject ack = new JsonObject();
+            ack.addProperty("sessionId", event.get("sessionId").getAsInt());
+            screencast.send("Page.screencastFrameAck", ack);
+        } catch (Exception ignored) {}
+        byte[] jpeg = Base64.getDecoder().decode(event.get("data").getAsString());
+        lastFrame = jpeg;
+        if (hasViewerPage()) {
+            lastUrl = viewerPage.url();
+        }
+        for (Consumer<byte[]> listener : frameListeners) {
+            try {
+                listener.accept(jpeg);
+            } catch (Exception e) {
+                log.debug("[Playwright] Frame listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /** Mirrors a URL to the viewer page (asynchronously; the viewer navigates to it itself). */
+    public void mirrorToViewer(String url) {
+        queueMirror(new ViewerSnapshot(url, null));
+    }
+
+    /**
+     * Called on a worker thread after a tool loaded a page. Hands the already-rendered DOM to the
+     * viewer so it can display it without fetching the page a second time.
+     */
+    private void mirrorLoadedPage(Page page, String html) {
+        boolean wanted = viewerActive && mirrorEnabled;
+        String snapshotHtml = !wanted ? null : (html != null ? html : page.content());
+        queueMirror(new ViewerSnapshot(page.url(), snapshotHtml));
+    }
+
+    /** Never blocks the caller: only the newest pending snapshot is applied, and only once. */
+    private void queueMirror(ViewerSnapshot snapshot) {
+        if (!viewerActive) {
+            lastUrl = snapshot.url();
             lastTitle = "";
+            return;
+        }
+        if (!mirrorEnabled) return;
+        if (pendingMirror.getAndSet(snapshot) == null) {
+            viewerWorker.execute(this::applyPendingMirror);
+        }
+    }
+
+    private void applyPendingMirror() {
+        ViewerSnapshot snapshot = pendingMirror.getAndSet(null);
+        if (snapshot == null || !hasViewerPage()) return;
+        if (snapshot.url().equals(viewerPage.url())) return; // already showing it
+        // Serve the main document from the snapshot (scripts stripped, it is already rendered)
+        String url = snapshot.url();
+        Predicate<String> isDocument = url::equals;
+        boolean fromSnapshot = snapshot.html() != null;
+        try {
+            if (fromSnapshot) {
+                String staticHtml = SCRIPT_PATTERN.matcher(snapshot.html()).replaceAll("");
+                viewerPage.route(isDocument, route -> route.fulfill(new Route.FulfillOptions()
+                        .setStatus(200)
+                        .setContentType("text/html; charset=utf-8")
+                        .setBody(staticHtml)));
+            }
+            viewerPage.navigate(url);
+            viewerPage.waitForLoadState(LoadState.DOMCONTENTLOADED);
+            lastUrl = viewerPage.url();
+            lastTitle = viewerPage.title();
+        } catch (Exception e) {
+            log.debug("[Playwright] Viewer mirror failed: {}", e.getMessage());
+        } finally {
+            if (fromSnapshot) {
+                try { viewerPage.unroute(isDocument); } catch (Exception ignored) {}
+            }
         }
     }
 
@@ -453,15 +710,24 @@ public class PlaywrightService {
 
     @PreDestroy
     public void shutdown() {
-        synchronized (lock) {
-            log.info("[Playwright] Shutting down browser...");
-            try { if (viewerContext != null) viewerContext.close(); } catch (Exception ignored) {}
-            viewerPage = null;
-            viewerContext = null;
-            try { if (browser != null) browser.close(); } catch (Exception ignored) {}
-            try { if (playwright != null) playwright.close(); } catch (Exception ignored) {}
-            browser = null;
-            playwright = null;
+        log.info("[Playwright] Shutting down browsers...");
+        viewerActive = false;
+        if (viewerWorker != null) viewerWorker.shutdownNow();
+        if (workers != null) workers.shutdownNow();
+        try {
+            if (viewerWorker != null) viewerWorker.awaitTermination(5, TimeUnit.SECONDS);
+            if (workers != null) workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Workers have stopped, so no thread is still using these drivers
+        BrowserSlot slot;
+        while ((slot = allSlots.poll()) != null) {
+            slot.close();
         }
+        viewerPage = null;
+        viewerContext = null;
+        screencast = null;
+        frameListeners.clear();
     }
 }
@@ -91,6 +91,7 @@ public class PlaywrightTools {
         }
     }
 
+    @InvalidatesToolCache({"directive-data", "files"})
     @Tool(description = "Take a full-page screenshot of a URL using the headless browser and save it " +
             "to a directive's data folder. Captures the entire rendered page as an image.")
     public String screenshotPage(
@@ -106,6 +107,7 @@ public class PlaywrightTools {
         }
     }
 
+    @InvalidatesToolCache({"directive-data", "files"})
     @Tool(description = "Search for images on the web using a real browser, download them, and save " +
             "to a directive's folder. Uses Google/Bing image search with a real rendered browser " +
             "so it can find images that simple HTTP scraping misses.")
@@ -34,6 +34,7 @@ public class QrTools {
         this.notifier = notifier;
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Generate a QR code image from text or URL. Saves to the given file path (e.g. .png).")
     public String generateQr(
             @ToolParam(description = "Text or URL to encode in the QR code") String content,
@@ -0,0 +1,62 @@
+package com.botsfer.agent.tools;
+
+import com.botsfer.semantic.SemanticIndexService;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class SemanticSearchTool {
+
+    private static final int MAX_RESULTS = 20;
+    private static final int MAX_SNIPPET_CHARS = 600;
+
+    private final SemanticIndexService semanticIndex;
+    private final ToolExecutionNotifier notifier;
+
+    public SemanticSearchTool(SemanticIndexService semanticIndex, ToolExecutionNotifier notifier) {
+        this.semanticIndex = semanticIndex;
+        this.notifier = notifier;
+    }
+
+    @Tool(description = "Search by meaning across past conversations, saved notes and directive findings. "
+            + "Use this to answer 'what did we find/say about X' instead of reading whole folders or history files. "
+            + "Matches related wording, not just exact keywords.")
+    public String semanticSearch(
+            @ToolParam(description = "What to look for, in natural language") String query,
+            @ToolParam(required = false, description = "Optional: limit to 'chat', 'note' or 'finding'") String source,
+            @ToolParam(required = false, description = "Optional: number of results (default 8, max 20)") Integer limit) {
+        if (query == null || query.isBlank()) return "Query is required.";
+        if (!semanticIndex.isEnabled()) return "Semantic search is disabled (app.semantic.enabled=false).";
+        String src = source == null || source.isBlank() ? null : source.trim().toLowerCase();
+        if (src != null && !List.of(SemanticIndexService.SOURCE_CHAT, SemanticIndexService.SOURCE_NOTE,
+                SemanticIndexService.SOURCE_FINDING).contains(src)) {
+            return "Unknown source '" + source + "'. Use chat, note or finding.";
+        }
+        int n = limit == null || limit <= 0 ? 8 : Math.min(limit, MAX_RESULTS);
+        notifier.notify("Semantic search: " + query);
+        try {
+            long start = System.currentTimeMillis();
+            List<SemanticIndexService.Hit> hits = semanticIndex.search(query.trim(), n, src);
+            long ms = System.currentTimeMillis() - start;
+            if (hits.isEmpty()) {
+                return "No indexed content matches \"" + query + "\" (" + semanticIndex.status() + ").";
+            }
+            StringBuilder sb = new StringBuilder("Top " + hits.size() + " match(es) for \"" + query + "\" in " + ms + "ms:\n");
+            int i = 1;
+            for (SemanticIndexService.Hit hit : hits) {
+                String text = hit.text().length() > MAX_SNIPPET_CHARS
+                        ? hit.text().substring(0, MAX_SNIPPET_CHARS) + "..." : hit.text();
+                sb.append(i++).append(". [").append(hit.source()).append(": ").append(hit.ref()).append("] ")
+                        .append(String.format("(%.2f)", hit.score())).append('\n')
+                        .append(text).append("\n\n");
+            }
+            return sb.toString().trim();
+        } catch (Exception e) {
+            return "Semantic search failed: " + e.getMessage()
+                    + ". Fall back to searchPastConversations, getNote or listDirectiveData.";
+        }
+    }
+}
@@ -2,19 +2,42 @@ package com.botsfer.agent.tools;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.memory.ChatMemory;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
  * AI-callable tool that summarizes directive findings using the AI model itself.
- * Reads all text files from a directive's data folder and asks the model to summarize.
+ * <p>
+ * Map-reduce: each finding file is summarized on its own (large files in chunks), those partial
+ * summaries are cached in {@code .summary_cache.json} keyed by content hash, and then reduced into
+ * the final summary. A re-run only summarizes new or changed files, and returns the previous
+ * summary outright if nothing changed. Independent model calls run in parallel, at most
+ * {@code app.summarization.max-concurrency} at a time.
  */
 @Component
 public class SummarizationTools {
@@ -22,18 +45,37 @@ public class SummarizationTools {
     private static final Logger log = LoggerFactory.getLogger(SummarizationTools.class);
     private static final Path BASE_DIR =
             Paths.get(System.getProperty("user.home"), "botsfer_data");
+    private static final String SUMMARY_FILE = "_SUMMARY.txt";
+    private static final String CACHE_FILE = ".summary_cache.json";
 
     private final ToolExecutionNotifier notifier;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService summarizerPool;
+    /** Text sent to the model per map call; larger files are split at paragraph boundaries. */
+    private final int chunkChars;
 
     @Autowired(required = false)
     private ChatClient chatClient;
 
-    public SummarizationTools(ToolExecutionNotifier notifier) {
+    @Autowired(required = false)
+    private ChatMemory chatMemory;
+
+    public SummarizationTools(ToolExecutionNotifier notifier,
+                              @Value("${app.summarization.max-concurrency:4}") int maxConcurrency,
+                              @Value("${app.summarization.chunk-chars:12000}") int chunkChars) {
         this.notifier = notifier;
+        this.chunkChars = Math.max(2000, chunkChars);
+        this.summarizerPool = Executors.newFixedThreadPool(Math.max(1, maxConcurrency), r -> {
+            Thread t = new Thread(r, "summarizer");
+            t.setDaemon(true);
+            return t;
+        });
     }
 
+    @InvalidatesToolCache({"directive-data", "files"})
     @Tool(description = "Summarize all findings gathered for a specific directive. " +
             "Reads all text files in the directive's data folder and produces a concise summary. " +
+            "Only new or changed findings are re-read, so it is cheap to call again after adding findings. " +
             "Use after gathering data for a directive to get a digestible overview.")
     public String summarizeDirective(
             @ToolParam(description = "The directive name whose findings to summarize") String directiveName) {
@@ -46,79 +88,244 @@ public class SummarizationTools {
                 return "No data folder found for directive: " + directiveName;
             }
 
-            // Collect all text content from .txt files
-            StringBuilder allText = new StringBuilder();
+            List<Path> textFiles;
             try (var stream = Files.list(dir)) {
-                var textFiles = stream
+                textFiles = stream
                         .filter(p -> p.toString().endsWith(".txt"))
+                        .filter(p -> !p.getFileName().toString().equals(SUMMARY_FILE))
                         .sorted()
                         .collect(Collectors.toList());
-
-                if (textFiles.isEmpty()) {
-                    return "No text findings in directive folder: " + dir.toAbsolutePath();
-                }
-
-                for (Path file : textFiles) {
-                    String content = Files.readString(file);
-                    allText.append("=== ").append(file.getFileName()).append(" ===\n");
-                    allText.append(content).append("\n\n");
-                }
             }
+            if (textFiles.isEmpty()) {
+                return "No text findings in directive folder: " + dir.toAbsolutePath();
+            }
+            long imageCount = countImages(dir);
 
-            // Count images
-            long imageCount;
-            try (var stream = Files.list(dir)) {
-                imageCount = stream
-                        .filter(p -> {
-                            String name = p.toString().toLowerCase();
-                            return name.endsWith(".jpg") || name.endsWith(".jpeg")
-                                    || name.endsWith(".png") || name.endsWith(".gif")
-                                    || name.endsWith(".webp");
-                        })
-                        .count();
-            }
-
-            String rawText = allText.toString();
-            if (rawText.length() > 50000) {
-                rawText = rawText.substring(0, 50000) + "\n... (truncated)";
-            }
-
-            // Use AI to summarize if available
-            if (chatClient != null) {
-                String summaryPrompt = "Summarize the following research findings concisely. " +
-                        "Highlight key facts, numbers, and actionable insights. " +
-                        "Keep it under 500 words.\n\n" + rawText;
-                String summary = chatClient.prompt()
-                        .user(summaryPrompt)
-                        .call()
-                        .content();
-
-                String result = "Summary for directive '" + directiveName + "':\n\n" + summary;
-                if (imageCount > 0) {
-                    result += "\n\n(" + imageCount + " images also saved in " + dir.toAbsolutePath() + ")";
-                }
-
-                // Save summary to file
-                Path summaryFile = dir.resolve("_SUMMARY.txt");
-                Files.writeString(summaryFile, result);
-                log.info("[Summarization] Saved summary to {}", summaryFile);
-
-                return result;
-            } else {
+            if (chatClient == null) {
                 // No AI — return raw stats
-                long wordCount = rawText.split("\\s+").length;
+                long wordCount = 0;
+                for (Path file : textFiles) {
+                    String content = Files.readString(file).strip();
+                    if (!content.isEmpty()) wordCount += content.split("\\s+").length;
+                }
                 return "No AI available for summarization. Raw stats for '" + directiveName + "':\n"
-                        + "- Text files: " + allText.toString().split("===").length / 2 + "\n"
+                        + "- Text files: " + textFiles.size() + "\n"
                         + "- Word count: ~" + wordCount + "\n"
                         + "- Images: " + imageCount + "\n"
                         + "- Folder: " + dir.toAbsolutePath();
             }
+
+            // Map: one summary per file, reused from the cache when the content is unchanged
+            SummaryCache cache = loadCache(dir);
+            Map<String, String> fileHashes = new LinkedHashMap<>();
+            Map<String, String> newContent = new LinkedHashMap<>();
+            for (Path file : textFiles) {
+                String content = Files.readString(file);
+                if (content.isBlank()) continue;
+                String hash = sha256(content);
+                fileHashes.put(file.getFileName().toString(), hash);
+                if (!cache.files.containsKey(hash)) newContent.put(hash, content);
+            }
+            if (fileHashes.isEmpty()) {
+                return "No text findings in directive folder: " + dir.toAbsolutePath();
+            }
+
+            String runKey = sha256(String.join("\n", fileHashes.values()));
+            Path summaryFile = dir.resolve(SUMMARY_FILE);
+            if (newContent.isEmpty() && runKey.equals(cache.runKey) && Files.exists(summaryFile)) {
+                log.info("[Summarization] {} unchanged since last summary", directiveName);
+                return Files.readString(summaryFile);
+            }
+
+            long start = System.currentTimeMillis();
+            try {
+                Map<String, String> fresh = summarizeFiles(newContent);
+                cache.files.putAll(fresh);
+            } finally {
+                cache.files.keySet().retainAll(new HashSet<>(fileHashes.values()));
+                saveCache(dir, cache);
+            }
+
+            // Reduce: fold the per-file summaries into one
+            List<String> partials = new ArrayList<>();
+            for (Map.Entry<String, String> e : fileHashes.entrySet()) {
+                partials.add("=== " + e.getKey() + " ===\n" + cache.files.get(e.getValue()));
+            }
+            String summary = reduce(partials);
+            log.info("[Summarization] {}: {} file(s), {} newly summarized, in {}ms",
+                    directiveName, fileHashes.size(), newContent.size(), System.currentTimeMillis() - start);
+
+            String result = "Summary for directive '" + directiveName + "':\n\n" + summary;
+            if (imageCount > 0) {
+                result += "\n\n(" + imageCount + " images also saved in " + dir.toAbsolutePath() + ")";
+            }
+
+            // Save summary to file
+            Files.writeString(summaryFile, result);
+            cache.runKey = runKey;
+            saveCache(dir, cache);
+            log.info("[Summarization] Saved summary to {}", summaryFile);
+
+            return result;
         } catch (Exception e) {
             log.error("[Summarization] Failed: {}", e.getMessage());
             return "Summarization failed: " + e.getMessage();
         }
     }
 
+    /** Summarize each new file (content hash -> text); files over the chunk size are split first. */
+    private Map<String, String> summarizeFiles(Map<String, String> contentByHash) throws Exception {
+        Map<String, List<Future<String>>> chunkFutures = new LinkedHashMap<>();
+        for (Map.Entry<String, String> e : contentByHash.entrySet()) {
+            List<String> chunks = split(e.getValue(), chunkChars);
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < chunks.size(); i++) {
+                String prompt = chunks.size() == 1
+                        ? "Summarize this research finding. Keep every key fact, number, name, URL and " +
+                          "actionable insight; drop filler. Be concise.\n\n" + chunks.get(i)
+                        : "Summarize part " + (i + 1) + " of " + chunks.size() + " of a research finding. " +
+                          "Keep every key fact, number, name, URL and actionable insight; drop filler. " +
+                          "Be concise.\n\n" + chunks.get(i);
+                futures.add(summarizerPool.submit(() -> ask(prompt)));
+            }
+            chunkFutures.put(e.getKey(), futures);
+        }
+
+        // Files that were split get their chunk summaries merged into one file summary
+        Map<String, Future<String>> fileFutures = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Future<String>>> e : chunkFutures.entrySet()) {
+            List<String> parts = await(e.getValue());
+            fileFutures.put(e.getKey(), parts.size() == 1
+                    ? CompletableFuture.completedFuture(parts.get(0))
+                    : summarizerPool.submit(() -> ask("Merge these partial summaries of one document into a " +
+                    "single concise summary. Keep all key facts and numbers.\n\n" + String.join("\n\n", parts))));
+        }
+        Map<String, String> out = new LinkedHashMap<>();
+        for (Map.Entry<String, Future<String>> e : fileFutures.entrySet()) {
+            out.put(e.getKey(), e.getValue().get());
+        }
+        return out;
+    }
+
+    /** Tree-reduce partial summaries until they fit in one call, then write the final summary. */
+    private String reduce(List<String> partials) throws Exception {
+        while (String.join("\n\n", partials).length() > chunkChars * 2 && partials.size() > 1) {
+            List<Future<String>> futures = new ArrayList<>();
+            for (List<String> group : group(partials, chunkChars * 2)) {
+                if (group.size() == 1) {
+                    futures.add(CompletableFuture.completedFuture(group.get(0)));
+                    continue;
+                }
+                futures.add(summarizerPool.submit(() -> ask("Combine these summaries of research findings into " +
+                        "one concise summary. Keep all key facts, numbers and actionable insights.\n\n" +
+                        String.join("\n\n", group))));
+            }
+            partials = await(futures);
+        }
+        return ask("Summarize the following research findings concisely. " +
+                "Highlight key facts, numbers, and actionable insights. " +
+                "Keep it under 500 words.\n\n" + String.join("\n\n", partials));
+    }
+
+    /**
+     * One model call in its own throwaway conversation, so parallel calls neither see each other
+     * nor push raw findings into the user's chat memory.
+     */
+    private String ask(String prompt) {
+        String conversationId = "summarizer-" + UUID.randomUUID();
+        try {
+            String content = chatClient.prompt()
+                    .user(prompt)
+                    .advisors(a -> a.param(ChatMemory.CONVERSATION_ID, conversationId))
+                    .call()
+                    .content();
+            return content != null ? content.strip() : "";
+        } finally {
+            if (chatMemory != null) chatMemory.clear(conversationId);
+        }
+    }
+
+    private static List<String> await(List<Future<String>> futures) throws Exception {
+        List<String> out = new ArrayList<>(futures.size());
+        try {
+            for (Future<String> f : futures) out.add(f.get());
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e.getCause() instanceof Exception ex ? ex : e;
+        }
+        return out;
+    }
+
+    /** Consecutive groups whose joined length stays under {@code maxChars} (a single oversized item is its own group). */
+    private static List<List<String>> group(List<String> items, int maxChars) {
+        List<List<String>> groups = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int size = 0;
+        for (String item : items) {
+            if (!current.isEmpty() && size + item.length() > maxChars) {
+                groups.add(current);
+                current = new ArrayList<>();
+                size = 0;
+            }
+            current.add(item);
+            size += item.length() + 2;
+        }
+        if (!current.isEmpty()) groups.add(current);
+        return groups;
+    }
+
+    /** Split at paragraph (then line, then hard) boundaries into pieces of at most {@code maxChars}. */
+    private static List<String> split(String text, int maxChars) {
+        List<String> out = new ArrayList<>();
+        String rest = text.strip();
+        while (rest.length() > maxChars) {
+            int cut = rest.lastIndexOf("\n\n", maxChars);
+            if (cut < maxChars / 2) cut = rest.lastIndexOf('\n', maxChars);
+            if (cut < maxChars / 2) cut = maxChars;
+            out.add(rest.substring(0, cut).strip());
+            rest = rest.substring(cut).strip();
+        }
+        if (!rest.isEmpty()) out.add(rest);
+        return out;
+    }
+
+    /** Per-file summaries by content hash, plus the file set the saved _SUMMARY.txt was built from. */
+    static class SummaryCache {
+        public String runKey;
+        public Map<String, String> files = new LinkedHashMap<>();
+    }
+
+    private SummaryCache loadCache(Path dir) {
+        Path file = dir.resolve(CACHE_FILE);
+        if (Files.exists(file)) {
+            try {
+                SummaryCache cache = objectMapper.readValue(file.toFile(), SummaryCache.class);
+                if (cache.files == null) cache.files = new LinkedHashMap<>();
+                return cache;
+            } catch (IOException e) {
+                log.warn("[Summarization] Ignoring unreadable {}: {}", file, e.getMessage());
+            }
+        }
+        return new SummaryCache();
+    }
+
+    private void saveCache(Path dir, SummaryCache cache) {
+        try {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(dir.resolve(CACHE_FILE).toFile(), cache);
+        } catch (IOException e) {
+            log.warn("[Summarization] Could not save summary cache: {}", e.getMessage());
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Tool(description = "List all directive folders and show a brief status for each " +
             "(number of findings, images, whether a summary exists).")
     public String directiveOverview() {
@@ -143,7 +350,7 @@ public class SummarizationTools {
                     String name = dir.getFileName().toString().replace("directive_", "");
                     long txtCount = countFiles(dir, ".txt");
                     long imgCount = countImages(dir);
-                    boolean hasSummary = Files.exists(dir.resolve("_SUMMARY.txt"));
+                    boolean hasSummary = Files.exists(dir.resolve(SUMMARY_FILE));
 
                     sb.append(count).append(". ").append(name)
                             .append(" — ").append(txtCount).append(" text file(s)")
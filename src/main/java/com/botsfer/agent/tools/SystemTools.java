@@ -1,5 +1,6 @@
 package com.botsfer.agent.tools;
 
+import com.botsfer.ScreenshotService;
 import com.botsfer.agent.SystemControlService;
 import com.sun.management.OperatingSystemMXBean;
 import org.springframework.ai.tool.annotation.Tool;
@@ -9,31 +10,36 @@ import org.springframework.stereotype.Component;
 import java.awt.Desktop;
 import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
-import java.nio.file.DirectoryStream;
 import java.nio.file.FileStore;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Component
 public class SystemTools {
 
     private final SystemControlService systemControl;
     private final ToolExecutionNotifier notifier;
+    private final ScreenshotService screenshots;
 
-    public SystemTools(SystemControlService systemControl, ToolExecutionNotifier notifier) {
+    public SystemTools(SystemControlService systemControl, ToolExecutionNotifier notifier, ScreenshotService screenshots) {
         this.systemControl = systemControl;
         this.notifier = notifier;
+        this.screenshots = screenshots;
     }
 
     @Tool(description = "Close all running user application windows on the PC, except system processes and Botsfer itself")
@@ -68,6 +74,7 @@ public class SystemTools {
         return systemControl.lockScreen();
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Take a screenshot of the entire screen right now and save it")
     public String takeScreenshot() {
         notifier.notify("Taking screenshot...");
@@ -108,6 +115,7 @@ public class SystemTools {
         return systemControl.openAppWithArgs(appName, args);
     }
 
+    @InvalidatesToolCache(ToolResultCache.ALL)
     @Tool(description = "Execute a PowerShell command and return its output. Use for system queries like disk space, RAM, installed programs, battery status, etc.")
     public String runPowerShell(
             @ToolParam(description = "The PowerShell command to execute") String command) {
@@ -115,6 +123,7 @@ public class SystemTools {
         return systemControl.runPowerShell(command);
     }
 
+    @InvalidatesToolCache(ToolResultCache.ALL)
     @Tool(description = "Execute a CMD command and return its output. Use for commands like ipconfig, ping, dir, systeminfo, netstat, etc.")
     public String runCmd(
             @ToolParam(description = "The CMD command to execute") String command) {
@@ -122,6 +131,7 @@ public class SystemTools {
         return systemControl.runCmd(command);
     }
 
+    @CachedTool(ttlSeconds = 30)
     @Tool(description = "Get system hardware and OS information: RAM (total, free, used), CPU (name, cores, usage), OS, computer name, uptime, Java version, and disk space for all drives")
     public String getSystemInfo() {
         notifier.notify("Gathering system info...");
@@ -284,37 +294,127 @@ public class SystemTools {
         }
     }
 
-    @Tool(description = "List the most recent screenshot files (name and date).")
-    public String listRecentScreenshots(
-            @ToolParam(description = "Maximum number of screenshots to list (e.g. 10)") int maxCount) {
-        notifier.notify("Listing recent screenshots...");
+    @Tool(description = "Find screenshots from the automatic screen history by time and/or window title. "
+            + "Examples: when='10 minutes ago', 'yesterday 14:30', '2025-03-01', 'last 2 hours', 'today'; "
+            + "what='invoice excel' (words in the window title). Both blank = most recent. "
+            + "Returns time, window title and image paths; the first result includes a full-screen PNG.")
+    public String findScreenshot(
+            @ToolParam(description = "When: a moment ('14:30', '20 minutes ago', 'yesterday 9:15', '2025-03-01 14:30') "
+                    + "or a period ('today', 'yesterday', 'last 3 hours', '2025-03-01'). Blank = any time.", required = false) String when,
+            @ToolParam(description = "Words that must appear in the window title, e.g. 'chrome gmail'. Blank = any window.", required = false) String what,
+            @ToolParam(description = "Maximum results (default 5, max 20)", required = false) Integer maxResults) {
+        notifier.notify("Searching screenshots...");
         try {
-            Path dir = Paths.get(System.getProperty("user.home"), "botsfer_data", "screenshots");
-            if (!Files.isDirectory(dir)) return "Screenshots folder does not exist yet.";
-            List<Path> files = new ArrayList<>();
-            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.png")) {
-                for (Path p : stream) {
-                    if (Files.isRegularFile(p)) files.add(p);
+            long now = System.currentTimeMillis();
+            long from = 0;
+            long to = now + 1;
+            Long moment = null;
+            if (when != null && !when.isBlank()) {
+                long[] range = parseWhen(when.trim().toLowerCase(), LocalDateTime.now());
+                if (range == null) {
+                    return "Could not understand when='" + when + "'. Use e.g. '14:30', '20 minutes ago', "
+                            + "'yesterday 9:15', '2025-03-01 14:30', 'today', 'last 2 hours'.";
+                }
+                if (range.length == 1) {
+                    moment = range[0];
+                    from = moment - MOMENT_WINDOW_MS;
+                    to = moment + MOMENT_WINDOW_MS;
+                } else {
+                    from = range[0];
+                    to = range[1];
                 }
             }
-            files.sort(Comparator.<Path, FileTime>comparing((Path p) -> {
-                try { return Files.getLastModifiedTime(p); } catch (Exception e) { return FileTime.fromMillis(0); }
-            }).reversed());
-            int n = Math.min(Math.max(1, maxCount), files.size());
-            StringBuilder sb = new StringBuilder("Recent screenshots (newest first):\n");
-            for (int i = 0; i < n; i++) {
-                Path p = files.get(i);
-                try {
-                    FileTime mod = Files.getLastModifiedTime(p);
-                    sb.append("  ").append(p.getFileName()).append("  ").append(mod.toString()).append("\n");
-                } catch (Exception e) {
-                    sb.append("  ").append(p.getFileName()).append("\n");
+            String[] words = what == null || what.isBlank() ? new String[0] : what.toLowerCase().trim().split("\\s+");
+            List<ScreenshotService.Shot> matches = new ArrayList<>();
+            for (ScreenshotService.Shot shot : screenshots.shots(from, to)) {
+                String title = shot.title().toLowerCase();
+                boolean all = true;
+                for (String w : words) all &= title.contains(w);
+                if (all) matches.add(shot);
+            }
+            if (matches.isEmpty()) return "No screenshots found" + (words.length > 0 ? " with '" + what + "' in the window title" : "")
+                    + (when != null && !when.isBlank() ? " around '" + when + "'" : "") + ".";
+
+            int limit = Math.min(20, Math.max(1, maxResults == null ? 5 : maxResults));
+            List<ScreenshotService.Shot> picked = new ArrayList<>();
+            if (moment != null) {
+                long target = moment;
+                matches.sort(Comparator.comparingLong(s -> Math.abs(s.time() - target)));
+                picked.addAll(matches.subList(0, Math.min(limit, matches.size())));
+            } else {
+                // Newest first, one frame per stretch of time spent in the same window
+                ScreenshotService.Shot last = null;
+                for (int i = matches.size() - 1; i >= 0 && picked.size() < limit; i--) {
+                    ScreenshotService.Shot s = matches.get(i);
+                    if (last != null && last.title().equals(s.title()) && last.time() - s.time() < 10 * 60_000) continue;
+                    picked.add(s);
+                    last = s;
                 }
             }
+
+            DateTimeFormatter fmt = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+            StringBuilder sb = new StringBuilder("Screenshots (").append(matches.size()).append(" matching frames):\n");
+            for (int i = 0; i < picked.size(); i++) {
+                ScreenshotService.Shot s = picked.get(i);
+                sb.append("  ").append(LocalDateTime.ofInstant(Instant.ofEpochMilli(s.time()), ZoneId.systemDefault()).format(fmt))
+                        .append("  ").append(s.title().isEmpty() ? "(window unknown)" : s.title())
+                        .append("  [change ").append(Math.round(s.change() * 100)).append("%]\n");
+                if (i == 0) {
+                    sb.append("    image: ").append(screenshots.fullImage(s).toAbsolutePath()).append("\n");
+                } else if (s.keyframe()) {
+                    sb.append("    image: ").append(screenshots.file(s).toAbsolutePath()).append("\n");
+                }
+                Path thumb = screenshots.thumbnail(s);
+                if (thumb != null) sb.append("    thumbnail: ").append(thumb.toAbsolutePath()).append("\n");
+            }
             return sb.toString();
         } catch (Exception e) {
-            return "Failed to list screenshots: " + e.getMessage();
+            return "Failed to find screenshots: " + e.getMessage();
+        }
+    }
+
+    /** Frames within this distance of a requested moment are considered. */
+    private static final long MOMENT_WINDOW_MS = 30 * 60_000L;
+    private static final Pattern AGO = Pattern.compile("(\\d+)\\s*(min|minute|minutes|m|hour|hours|h|day|days|d)\\s+ago");
+    private static final Pattern LAST = Pattern.compile("(?:last|past)\\s+(\\d+)?\\s*(min|minute|minutes|m|hour|hours|h|day|days|d)");
+    private static final Pattern CLOCK = Pattern.compile("(\\d{1,2})[:.](\\d{2})");
+    private static final Pattern DATE = Pattern.compile("(\\d{4}-\\d{2}-\\d{2})");
+
+    /** A moment {@code [epochMs]}, a period {@code [from, to)}, or null when not understood. */
+    static long[] parseWhen(String when, LocalDateTime now) {
+        ZoneId zone = ZoneId.systemDefault();
+        Matcher m = AGO.matcher(when);
+        if (m.find()) return new long[]{epoch(now.minus(Long.parseLong(m.group(1)), unit(m.group(2))), zone)};
+        m = LAST.matcher(when);
+        if (m.find()) {
+            long n = m.group(1) == null ? 1 : Long.parseLong(m.group(1));
+            return new long[]{epoch(now.minus(n, unit(m.group(2))), zone), epoch(now, zone) + 1};
+        }
+        LocalDate day = null;
+        m = DATE.matcher(when);
+        if (m.find()) day = LocalDate.parse(m.group(1));
+        else if (when.contains("yesterday")) day = now.toLocalDate().minusDays(1);
+        else if (when.contains("today")) day = now.toLocalDate();
+        m = CLOCK.matcher(when.replaceFirst("\\d{4}-\\d{2}-\\d{2}", ""));
+        if (m.find()) {
+            int hour = Integer.parseInt(m.group(1));
+            int minute = Integer.parseInt(m.group(2));
+            if (hour > 23 || minute > 59) return null;
+            if (when.contains("pm") && hour < 12) hour += 12;
+            LocalDateTime at = (day != null ? day : now.toLocalDate()).atTime(hour, minute);
+            if (day == null && at.isAfter(now)) at = at.minusDays(1); // "14:30" said at 09:00 means yesterday
+            return new long[]{epoch(at, zone)};
         }
+        if (day != null) return new long[]{epoch(day.atStartOfDay(), zone), epoch(day.plusDays(1).atStartOfDay(), zone)};
+        return null;
+    }
+
+    private static ChronoUnit unit(String s) {
+        return s.startsWith("d") ? ChronoUnit.DAYS : s.startsWith("h") ? ChronoUnit.HOURS : ChronoUnit.MINUTES;
+    }
+
+    private static long epoch(LocalDateTime t, ZoneId zone) {
+        return t.atZone(zone).toInstant().toEpochMilli();
     }
 
     @Tool(description = "Get recently opened files from Windows (shell recent items). Returns paths so the user can open one.")
@@ -1,31 +1,108 @@
 package com.botsfer.agent.tools;
 
+import com.botsfer.agent.AutonomousTelemetry;
+import com.botsfer.tracing.Span;
+import com.botsfer.tracing.Tracer;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 /**
  * AOP aspect that intercepts every @Tool method call and logs:
  * tool name, parameters, execution time, and result summary.
- * Also caps tool output to MAX_OUTPUT_CHARS to prevent Jackson/Spring AI overflow.
+ * Results longer than {@code app.tools.results.inline-chars} are kept whole in {@link ToolResultStore}
+ * and the model gets the head plus a handle for {@code readToolResult}. Also
+ * records per-tool latency/size metrics in {@link ToolMetrics},
+ * reports each call's time to {@link AutonomousTelemetry}, and refuses String-returning
+ * tools once the calling autonomous worker's budget is spent. Each call is a "tool &lt;name&gt;"
+ * span in the current trace.
+ * <p>
+ * Log lines are key=value on the "botsfer.tools" logger, which logback-spring.xml writes through
+ * an async appender so tool threads never wait on the console.
  */
 @Aspect
 @Component
+@Order(1)
 public class ToolCallLogger {
 
-    private static final int MAX_OUTPUT_CHARS = 50_000;
+    private static final Logger log = LoggerFactory.getLogger("botsfer.tools");
+
+    private final AutonomousTelemetry telemetry;
+    private final ToolMetrics metrics;
+    private final Tracer tracer;
+    private final ToolResultStore resultStore;
+
+    public ToolCallLogger(AutonomousTelemetry telemetry, ToolMetrics metrics, Tracer tracer,
+                          ToolResultStore resultStore) {
+        this.telemetry = telemetry;
+        this.metrics = metrics;
+        this.tracer = tracer;
+        this.resultStore = resultStore;
+    }
 
     @Around("@annotation(tool)")
     public Object logToolCall(ProceedingJoinPoint joinPoint, Tool tool) throws Throwable {
         MethodSignature sig = (MethodSignature) joinPoint.getSignature();
-        String methodName = sig.getDeclaringType().getSimpleName() + "." + sig.getName();
-        String[] paramNames = sig.getParameterNames();
-        Object[] args = joinPoint.getArgs();
+        String toolName = sig.getName();
+        String methodName = sig.getDeclaringType().getSimpleName() + "." + toolName;
+
+        if (log.isDebugEnabled()) {
+            log.debug("event=tool_start tool={} args=\"{}\"", methodName, describeArgs(sig.getParameterNames(), joinPoint.getArgs()));
+        }
 
-        // Build param string
+        String refusal = telemetry.checkToolBudget();
+        if (refusal != null && sig.getReturnType() == String.class) {
+            metrics.record(toolName, 0, ToolMetrics.REFUSED, -1, false);
+            log.info("event=tool_refused tool={} reason=\"{}\"", methodName, refusal);
+            return refusal;
+        }
+
+        try (Span span = tracer.start("tool " + toolName)) {
+            long start = System.nanoTime();
+            try {
+                Object result = joinPoint.proceed();
+                long nanos = System.nanoTime() - start;
+                long elapsed = nanos / 1_000_000;
+                telemetry.recordToolCall(toolName, elapsed, false);
+
+                // Long output: keep it server-side and hand the model the head plus a handle to page with
+                boolean truncated = false;
+                long bytes = -1;
+                if (result instanceof String s) {
+                    bytes = ToolMetrics.utf8Length(s);
+                    if (s.length() > resultStore.inlineChars() && !ToolResultTools.READ_TOOL.equals(toolName)) {
+                        String handle = resultStore.put(toolName, s);
+                        result = resultStore.preview(handle, s);
+                        span.attr("handle", handle);
+                        truncated = true;
+                    }
+                }
+                metrics.record(toolName, nanos, ToolMetrics.OK, bytes, truncated);
+                log.info("event=tool_call tool={} outcome=ok ms={} bytes={} truncated={} args=\"{}\" result=\"{}\"",
+                        methodName, elapsed, bytes, truncated,
+                        describeArgs(sig.getParameterNames(), joinPoint.getArgs()), truncate(result, 200));
+                span.attr("outcome", ToolMetrics.OK).attr("bytes", bytes).attr("truncated", truncated);
+                return result;
+            } catch (Throwable ex) {
+                long nanos = System.nanoTime() - start;
+                telemetry.recordToolCall(toolName, nanos / 1_000_000, true);
+                metrics.record(toolName, nanos, ToolMetrics.ERROR, -1, false);
+                log.warn("event=tool_call tool={} outcome=error ms={} error={} message=\"{}\" args=\"{}\"",
+                        methodName, nanos / 1_000_000, ex.getClass().getSimpleName(), ex.getMessage(),
+                        describeArgs(sig.getParameterNames(), joinPoint.getArgs()));
+                span.attr("outcome", ToolMetrics.ERROR).error(ex);
+                throw ex;
+            }
+        }
+    }
+
+    private static String describeArgs(String[] paramNames, Object[] args) {
         StringBuilder params = new StringBuilder();
         if (paramNames != null && args != null) {
             for (int i = 0; i < paramNames.length; i++) {
@@ -33,34 +110,13 @@ public class ToolCallLogger {
                 params.append(paramNames[i]).append("=").append(truncate(args[i], 120));
             }
         }
-
-        System.out.println("[TOOL-CALL] >>> " + methodName + "(" + params + ")");
-        System.out.println("[TOOL-CALL]     description: " + tool.description());
-
-        long start = System.currentTimeMillis();
-        try {
-            Object result = joinPoint.proceed();
-            long elapsed = System.currentTimeMillis() - start;
-
-            // Cap tool output to prevent Jackson StreamConstraintsException
-            if (result instanceof String s && s.length() > MAX_OUTPUT_CHARS) {
-                result = s.substring(0, MAX_OUTPUT_CHARS)
-                        + "\n...(output truncated at " + MAX_OUTPUT_CHARS + " chars, total was " + s.length() + ")";
-                System.out.println("[TOOL-CALL] <<< " + methodName + " returned in " + elapsed + "ms => TRUNCATED from " + s.length() + " to " + MAX_OUTPUT_CHARS + " chars");
-            } else {
-                System.out.println("[TOOL-CALL] <<< " + methodName + " returned in " + elapsed + "ms => " + truncate(result, 200));
-            }
-            return result;
-        } catch (Throwable ex) {
-            long elapsed = System.currentTimeMillis() - start;
-            System.out.println("[TOOL-CALL] !!! " + methodName + " FAILED in " + elapsed + "ms => " + ex.getClass().getSimpleName() + ": " + ex.getMessage());
-            throw ex;
-        }
+        return params.toString();
     }
 
     private static String truncate(Object obj, int maxLen) {
         if (obj == null) return "null";
         String s = obj.toString();
-        return s.length() <= maxLen ? s : s.substring(0, maxLen) + "...(" + s.length() + " chars)";
+        String head = s.length() <= maxLen ? s : s.substring(0, maxLen) + "...(" + s.length() + " chars)";
+        return head.replace("\n", "\\n").replace("\"", "'");
     }
 }
@@ -0,0 +1,127 @@
+package com.botsfer.agent.tools;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-tool Micrometer meters recorded by {@link ToolCallLogger}: a latency timer (tagged by
+ * outcome, with percentile histograms for Prometheus), output size, and truncation count.
+ * Served at {@code /actuator/prometheus} and summarized for {@code /api/metrics/tools}.
+ */
+@Component
+public class ToolMetrics {
+
+    static final String CALLS = "botsfer.tool.calls";
+    static final String OUTPUT = "botsfer.tool.output";
+    static final String TRUNCATIONS = "botsfer.tool.truncations";
+
+    public static final String OK = "ok";
+    public static final String ERROR = "error";
+    public static final String REFUSED = "refused";
+
+    private final MeterRegistry registry;
+
+    public ToolMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    void record(String tool, long nanos, String outcome, long outputBytes, boolean truncated) {
+        Timer.builder(CALLS)
+                .description("@Tool call latency")
+                .tag("tool", tool)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(30))
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (outputBytes >= 0) {
+            DistributionSummary.builder(OUTPUT)
+                    .description("@Tool result size")
+                    .baseUnit("bytes")
+                    .tag("tool", tool)
+                    .register(registry)
+                    .record(outputBytes);
+        }
+        if (truncated) {
+            Counter.builder(TRUNCATIONS)
+                    .description("@Tool results replaced by a preview and a result handle")
+                    .tag("tool", tool)
+                    .register(registry)
+                    .increment();
+        }
+    }
+
+    /** One row per tool: calls, errors, latency percentiles (ms), output bytes, truncations. Slowest p99 first. */
+    public List<Map<String, Object>> summary() {
+        Map<String, Map<String, Object>> byTool = new TreeMap<>();
+        for (Timer timer : registry.find(CALLS).timers()) {
+            String tool = timer.getId().getTag("tool");
+            String outcome = timer.getId().getTag("outcome");
+            Map<String, Object> row = byTool.computeIfAbsent(tool, ToolMetrics::emptyRow);
+            row.merge("calls", timer.count(), (a, b) -> (Long) a + (Long) b);
+            if (ERROR.equals(outcome)) row.put("errors", (Long) row.get("errors") + timer.count());
+            if (REFUSED.equals(outcome)) row.put("refused", (Long) row.get("refused") + timer.count());
+            if (!OK.equals(outcome)) continue;
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            row.put("meanMs", round(snapshot.mean(TimeUnit.MILLISECONDS)));
+            row.put("maxMs", round(snapshot.max(TimeUnit.MILLISECONDS)));
+            for (ValueAtPercentile p : snapshot.percentileValues()) {
+                row.put("p" + Math.round(p.percentile() * 100) + "Ms", round(p.value(TimeUnit.MILLISECONDS)));
+            }
+        }
+        for (DistributionSummary output : registry.find(OUTPUT).summaries()) {
+            Map<String, Object> row = byTool.computeIfAbsent(output.getId().getTag("tool"), ToolMetrics::emptyRow);
+            row.put("outputBytes", (long) output.totalAmount());
+        }
+        for (Counter counter : registry.find(TRUNCATIONS).counters()) {
+            Map<String, Object> row = byTool.computeIfAbsent(counter.getId().getTag("tool"), ToolMetrics::emptyRow);
+            row.put("truncations", (long) counter.count());
+        }
+        List<Map<String, Object>> rows = new ArrayList<>(byTool.values());
+        rows.sort((a, b) -> Double.compare((Double) b.getOrDefault("p99Ms", 0.0), (Double) a.getOrDefault("p99Ms", 0.0)));
+        return rows;
+    }
+
+    private static Map<String, Object> emptyRow(String tool) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("tool", tool);
+        row.put("calls", 0L);
+        row.put("errors", 0L);
+        row.put("refused", 0L);
+        row.put("outputBytes", 0L);
+        row.put("truncations", 0L);
+        return row;
+    }
+
+    private static double round(double ms) {
+        return Math.round(ms * 10) / 10.0;
+    }
+
+    /** UTF-8 length without encoding the string. */
+    static long utf8Length(String s) {
+        long bytes = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) bytes++;
+            else if (c < 0x800) bytes += 2;
+            else if (Character.isHighSurrogate(c)) { bytes += 4; i++; }
+            else bytes += 3;
+        }
+        return bytes;
+    }
+}
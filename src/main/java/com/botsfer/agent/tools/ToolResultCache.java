@@ -0,0 +1,175 @@
+package com.botsfer.agent.tools;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memoizes {@link CachedTool} results by tool name and arguments. Runs inside
+ * {@link ToolCallLogger}, so hits are still logged and timed. Identical calls made at the same
+ * time (parallel tool calls in one turn) share one execution. Results that look like failures
+ * are not kept, and {@link InvalidatesToolCache} tools drop whole groups.
+ */
+@Aspect
+@Component
+@Order(2)
+public class ToolResultCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ToolResultCache.class);
+
+    /** Group name that clears every cached result (for tools like runCmd that can change anything). */
+    public static final String ALL = "*";
+
+    @Value("${app.tools.cache.enabled:true}")
+    private boolean enabled;
+    @Value("${app.tools.cache.max-entries:500}")
+    private int maxEntries;
+
+    private record Entry(String value, String group, long expiresAt) {}
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, long[]> stats = new ConcurrentHashMap<>(); // tool -> {hits, misses}
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Around("@annotation(cached)")
+    public Object cache(ProceedingJoinPoint joinPoint, CachedTool cached) throws Throwable {
+        if (!enabled) return joinPoint.proceed();
+        MethodSignature sig = (MethodSignature) joinPoint.getSignature();
+        String tool = sig.getName();
+        String key = sig.getDeclaringType().getSimpleName() + "." + tool + Arrays.deepToString(joinPoint.getArgs());
+
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e != null && e.expiresAt > System.currentTimeMillis()) {
+                count(tool, 0);
+                return e.value;
+            }
+            if (e != null) entries.remove(key);
+        }
+
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            count(tool, 0);
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        }
+        count(tool, 1);
+        try {
+            Object result = joinPoint.proceed();
+            mine.complete(result);
+            if (result instanceof String s && !looksLikeFailure(s)) {
+                synchronized (entries) {
+                    entries.put(key, new Entry(s, cached.group(), System.currentTimeMillis() + cached.ttlSeconds() * 1000));
+                    if (entries.size() > maxEntries) {
+                        entries.values().removeIf(en -> en.expiresAt <= System.currentTimeMillis());
+                        var it = entries.keySet().iterator();
+                        while (entries.size() > maxEntries && it.hasNext()) {
+                            it.next();
+                            it.remove();
+                        }
+                    }
+                }
+            }
+            return result;
+        } catch (Throwable t) {
+            mine.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    @Around("@annotation(invalidates)")
+    public Object invalidate(ProceedingJoinPoint joinPoint, InvalidatesToolCache invalidates) throws Throwable {
+        // Before and after: drop stale reads now, and anything cached while the change was in progress
+        invalidate(invalidates.value());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            int dropped = invalidate(invalidates.value());
+            if (dropped > 0) {
+                log.debug("[ToolCache] {} dropped {} cached result(s) in {}",
+                        joinPoint.getSignature().getName(), dropped, List.of(invalidates.value()));
+            }
+        }
+    }
+
+    private int invalidate(String[] groups) {
+        List<String> targets = List.of(groups);
+        int dropped;
+        synchronized (entries) {
+            int before = entries.size();
+            if (targets.contains(ALL)) {
+                entries.clear();
+            } else {
+                entries.values().removeIf(e -> targets.contains(e.group));
+            }
+            dropped = before - entries.size();
+        }
+        invalidations.addAndGet(dropped);
+        return dropped;
+    }
+
+    private void count(String tool, int slot) {
+        long[] s = stats.computeIfAbsent(tool, k -> new long[2]);
+        synchronized (s) {
+            s[slot]++;
+        }
+    }
+
+    /** Tool errors are usually reported as text; caching them would repeat a transient failure. */
+    private static boolean looksLikeFailure(String result) {
+        String head = result.length() > 200 ? result.substring(0, 200) : result;
+        return head.startsWith("Failed") || head.startsWith("Error") || head.contains(" failed: ")
+                || head.contains(" timed out");
+    }
+
+    /** Hit/miss counts per tool plus totals, for the dashboard. */
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        long hits = 0;
+        long misses = 0;
+        Map<String, Map<String, Long>> perTool = new TreeMap<>();
+        for (var e : stats.entrySet()) {
+            long h;
+            long m;
+            synchronized (e.getValue()) {
+                h = e.getValue()[0];
+                m = e.getValue()[1];
+            }
+            hits += h;
+            misses += m;
+            perTool.put(e.getKey(), Map.of("hits", h, "misses", m));
+        }
+        synchronized (entries) {
+            out.put("entries", entries.size());
+        }
+        out.put("hits", hits);
+        out.put("misses", misses);
+        out.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        out.put("invalidated", invalidations.get());
+        out.put("tools", perTool);
+        return out;
+    }
+}
@@ -0,0 +1,123 @@
+package com.botsfer.agent.tools;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps full tool outputs that were too long to hand to the model, under short handles like
+ * {@code r-1a2b3c}. {@link ToolCallLogger} stores anything over {@code app.tools.results.inline-chars}
+ * and gives the model a head plus a pointer; {@link ToolResultTools#readToolResult} pages through
+ * the rest. Least recently read results are dropped once {@code app.tools.results.max-chars} is
+ * exceeded.
+ */
+@Component
+public class ToolResultStore {
+
+    @Value("${app.tools.results.inline-chars:8000}")
+    private int inlineChars;
+    @Value("${app.tools.results.max-chars:20000000}")
+    private long maxChars;
+
+    private record Entry(String tool, String content) {}
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(32, 0.75f, true);
+    private final AtomicLong collisions = new AtomicLong();
+    private long totalChars;
+
+    /** Results longer than this are stored and shown to the model as a head plus a handle. */
+    public int inlineChars() {
+        return inlineChars;
+    }
+
+    /**
+     * Store a result and return its handle. The same output stored twice (e.g. a cached tool called
+     * again) gets the same handle rather than a second copy.
+     */
+    public String put(String tool, String content) {
+        if (content.length() > maxChars) content = content.substring(0, (int) maxChars);
+        String handle = "r-" + Integer.toHexString(content.hashCode()) + Integer.toHexString(content.length());
+        synchronized (entries) {
+            Entry existing = entries.get(handle);
+            if (existing != null && !existing.content.equals(content)) {
+                handle = handle + "-" + collisions.incrementAndGet();
+                existing = null;
+            }
+            if (existing == null) {
+                entries.put(handle, new Entry(tool, content));
+                totalChars += content.length();
+                Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+                while (totalChars > maxChars && entries.size() > 1 && it.hasNext()) {
+                    Map.Entry<String, Entry> eldest = it.next();
+                    if (eldest.getKey().equals(handle)) continue;
+                    totalChars -= eldest.getValue().content.length();
+                    it.remove();
+                }
+            }
+        }
+        return handle;
+    }
+
+    /** The full stored text, or null when the handle is unknown or has been evicted. */
+    public String get(String handle) {
+        synchronized (entries) {
+            Entry e = entries.get(handle);
+            return e == null ? null : e.content;
+        }
+    }
+
+    /**
+     * What the model sees instead of a long result: the first {@code inlineChars} (cut at a line
+     * break when one is near), then the size and how to read on.
+     */
+    public String preview(String handle, String content) {
+        int end = headEnd(content, 0, inlineChars);
+        int lines = 1;
+        for (int i = 0; i < content.length(); i++) {
+            if (content.charAt(i) == '\n') lines++;
+        }
+        return content.substring(0, end)
+                + "\n\n[Result truncated: showing chars 0-" + end + " of " + content.length()
+                + " (" + lines + " lines). Full output stored as handle \"" + handle
+                + "\"; call readToolResult(handle=\"" + handle + "\", offset=" + end
+                + ") to read more, or use a narrower query.]";
+    }
+
+    /** One page of a stored result, ending at a line break when one is near the requested end. */
+    public String read(String handle, int offset, int length) {
+        String content = get(handle);
+        if (content == null) {
+            return "Unknown or expired result handle: " + handle + ". Run the original tool again.";
+        }
+        if (offset < 0) offset = 0;
+        if (offset >= content.length()) {
+            return "[Offset " + offset + " is past the end of " + handle + " (" + content.length() + " chars).]";
+        }
+        int max = length <= 0 ? inlineChars : Math.min(length, inlineChars);
+        int end = headEnd(content, offset, max);
+        String page = content.substring(offset, end);
+        return end < content.length()
+                ? page + "\n\n[chars " + offset + "-" + end + " of " + content.length()
+                        + "; next offset=" + end + "]"
+                : page + "\n\n[chars " + offset + "-" + end + " of " + content.length() + "; end of result]";
+    }
+
+    private static int headEnd(String content, int offset, int max) {
+        int end = Math.min(content.length(), offset + max);
+        if (end == content.length()) return end;
+        int newline = content.lastIndexOf('\n', end - 1);
+        // Prefer a clean line break, but not at the cost of more than a fifth of the page
+        return newline > offset + max * 4 / 5 ? newline + 1 : end;
+    }
+
+    /** Entry count and stored size, for the dashboard. */
+    public Map<String, Object> stats() {
+        synchronized (entries) {
+            return Map.of("entries", entries.size(), "chars", totalChars);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.botsfer.agent.tools;
+
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lets the model page through tool outputs that were too long to return whole
+ * (see {@link ToolResultStore}).
+ */
+@Component
+public class ToolResultTools {
+
+    static final String READ_TOOL = "readToolResult";
+
+    private final ToolResultStore store;
+
+    public ToolResultTools(ToolResultStore store) {
+        this.store = store;
+    }
+
+    @Tool(description = "Read more of a long tool result that was truncated. Pass the handle from the " +
+            "truncation note and the offset to continue from. Read only the parts you need.")
+    public String readToolResult(
+            @ToolParam(description = "Result handle from the truncation note, e.g. 'r-1a2b3c4d'") String handle,
+            @ToolParam(description = "Character offset to start reading from (the 'next offset' from the note)") int offset,
+            @ToolParam(description = "Maximum characters to return; 0 for the default page size", required = false) Integer length) {
+        if (handle == null || handle.isBlank()) return "Result handle is required.";
+        return store.read(handle.trim(), offset, length == null ? 0 : length);
+    }
+}
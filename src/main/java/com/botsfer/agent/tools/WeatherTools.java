@@ -36,6 +36,7 @@ public class WeatherTools {
         this.notifier = notifier;
     }
 
+    @CachedTool(ttlSeconds = 600)
     @Tool(description = "Get current weather for a city or place (e.g. 'New York', 'London', 'Tokyo'). " +
             "Uses Open-Meteo; no API key required. Returns temperature, conditions, humidity, wind.")
     public String getWeather(
@@ -19,9 +19,17 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,6 +48,11 @@ public class WebScraperTools {
 
     private static final int MAX_PAGE_SIZE = 500_000; // 500 KB text limit
     private static final int MAX_IMAGES_PER_SEARCH = 20;
+    private static final int MAX_CRAWL_PAGES = 25;
+    private static final int MAX_CRAWL_DEPTH = 2;
+    private static final int MAX_LINKS_FOLLOWED_PER_PAGE = 5;
+    private static final int CRAWL_TEXT_BUDGET = 40_000; // total chars returned by crawlPages
+    private static final int CRAWL_MIN_PAGE_CHARS = 1_500;
 
     private static final Pattern IMG_PATTERN =
             Pattern.compile("<img[^>]+src\\s*=\\s*[\"']([^\"']+)[\"']", Pattern.CASE_INSENSITIVE);
@@ -51,42 +64,30 @@ public class WebScraperTools {
             Pattern.compile("\\s{3,}");
 
     private final ToolExecutionNotifier notifier;
+    private final PlaywrightService pw;
     private final HttpClient httpClient = HttpClient.newBuilder()
             .connectTimeout(Duration.ofSeconds(20))
             .followRedirects(HttpClient.Redirect.NORMAL)
             .build();
+    private final ExecutorService crawlExecutor = Executors.newFixedThreadPool(8, r -> {
+        Thread t = new Thread(r, "web-crawl-worker");
+        t.setDaemon(true);
+        return t;
+    });
 
-    public WebScraperTools(ToolExecutionNotifier notifier) {
+    public WebScraperTools(ToolExecutionNotifier notifier, PlaywrightService pw) {
         this.notifier = notifier;
+        this.pw = pw;
     }
 
+    @CachedTool(ttlSeconds = 120)
     @Tool(description = "Fetch a web page and return its readable text content (HTML stripped). " +
             "Use this to read articles, search results, or any web page without opening a browser.")
     public String fetchPageText(
             @ToolParam(description = "The full URL to fetch, e.g. 'https://example.com'") String url) {
         notifier.notify("Fetching page: " + url);
         try {
-            String html = fetchHtml(url);
-            // Remove script/style blocks
-            String cleaned = html.replaceAll("(?is)<script[^>]*>.*?</script>", " ");
-            cleaned = cleaned.replaceAll("(?is)<style[^>]*>.*?</style>", " ");
-            cleaned = cleaned.replaceAll("(?is)<noscript[^>]*>.*?</noscript>", " ");
-            // Convert <br>, <p>, <div>, <li> to newlines
-            cleaned = cleaned.replaceAll("(?i)<br\\s*/?>", "\n");
-            cleaned = cleaned.replaceAll("(?i)</(p|div|li|tr|h[1-6])>", "\n");
-            // Strip remaining tags
-            cleaned = TAG_PATTERN.matcher(cleaned).replaceAll(" ");
-            // Decode common entities
-            cleaned = cleaned.replace("&amp;", "&").replace("&lt;", "<")
-                    .replace("&gt;", ">").replace("&quot;", "\"")
-                    .replace("&#39;", "'").replace("&nbsp;", " ");
-            // Collapse whitespace
-            cleaned = WHITESPACE_PATTERN.matcher(cleaned).replaceAll("\n");
-            cleaned = cleaned.trim();
-
-            if (cleaned.length() > 8000) {
-                cleaned = cleaned.substring(0, 8000) + "\n... (truncated, " + cleaned.length() + " chars total)";
-            }
+            String cleaned = htmlToText(fetchHtml(url));
             return cleaned.isEmpty() ? "Page fetched but no readable text found." : cleaned;
         } catch (Exception e) {
             return "Failed to fetch page: " + e.getMessage();
@@ -157,6 +158,7 @@ public class WebScraperTools {
         }
     }
 
+    @InvalidatesToolCache({"files", "directive-data"})
     @Tool(description = "Search the web for images matching a query, download them, and save to a directive's " +
             "data folder. This is the main tool for finding and collecting images from the internet. " +
             "Downloads up to maxImages images.")
@@ -274,6 +276,76 @@ public class WebScraperTools {
         }
     }
 
+    @Tool(description = "Fetch several web pages concurrently and return the readable text of all of them " +
+            "in one response, deduplicated and trimmed to a size budget. Can optionally follow same-site links. " +
+            "Use this instead of calling fetchPageText or browsePage once per URL when researching several pages.")
+    public String crawlPages(
+            @ToolParam(description = "The URLs to fetch, e.g. ['https://a.com/x', 'https://b.com/y']") List<String> urls,
+            @ToolParam(description = "'http' for a fast plain fetch (static pages) or 'browser' to render JavaScript " +
+                    "with the headless browser") String mode,
+            @ToolParam(description = "Levels of same-site links to follow from each URL (0-2). 0 fetches only the given URLs.",
+                    required = false) Integer depth) {
+        if (urls == null || urls.isEmpty()) return "No URLs given.";
+        boolean useBrowser = mode != null && mode.trim().equalsIgnoreCase("browser");
+        int maxDepth = depth == null ? 0 : Math.max(0, Math.min(MAX_CRAWL_DEPTH, depth));
+        notifier.notify("Crawling " + urls.size() + " page(s)" + (maxDepth > 0 ? " (depth " + maxDepth + ")" : ""));
+
+        // url -> extracted text (or "Failed: ..." marker), in crawl order
+        Map<String, String> results = new LinkedHashMap<>();
+        Set<String> seen = new HashSet<>();
+        List<String> level = new ArrayList<>();
+        for (String u : urls) {
+            String norm = normalizeUrl(u);
+            if (norm != null && seen.add(norm) && level.size() < MAX_CRAWL_PAGES) level.add(norm);
+        }
+
+        for (int d = 0; d <= maxDepth && !level.isEmpty(); d++) {
+            List<Future<String>> futures = new ArrayList<>();
+            for (String u : level) {
+                futures.add(crawlExecutor.submit(() -> useBrowser ? pw.getPageHtml(u) : fetchHtml(u)));
+            }
+            List<String> next = new ArrayList<>();
+            // The pages load in parallel, so the whole level shares one 90s budget
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(90);
+            for (int i = 0; i < level.size(); i++) {
+                String u = level.get(i);
+                String html;
+                try {
+                    html = futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    futures.get(i).cancel(true);
+                    results.put(u, "Failed: timed out");
+                    continue;
+                } catch (Exception e) {
+                    futures.get(i).cancel(true);
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    results.put(u, "Failed: " + cause.getMessage());
+                    continue;
+                }
+                results.put(u, htmlToText(html));
+
+                if (d < maxDepth) {
+                    String host = URI.create(u).getHost();
+                    int followed = 0;
+                    Matcher m = LINK_PATTERN.matcher(html);
+                    while (m.find() && followed < MAX_LINKS_FOLLOWED_PER_PAGE
+                            && seen.size() < MAX_CRAWL_PAGES) {
+                        String link = normalizeUrl(resolveUrl(u, m.group(1)));
+                        if (link == null || isImageUrl(link)) continue;
+                        if (!host.equalsIgnoreCase(URI.create(link).getHost())) continue;
+                        if (seen.add(link)) {
+                            next.add(link);
+                            followed++;
+                        }
+                    }
+                }
+            }
+            level = next;
+        }
+
+        return formatCrawlResults(results);
+    }
+
     @Tool(description = "Fetch a web page and return both its text content and all image URLs found. " +
             "Combines fetchPageText and extractImageUrls in a single call for efficiency.")
     public String fetchPageWithImages(
@@ -347,6 +419,80 @@ public class WebScraperTools {
         return body;
     }
 
+    /** Strip an HTML document down to readable text (scripts, styles and tags removed). */
+    private String htmlToText(String html) {
+        // Remove script/style blocks
+        String cleaned = html.replaceAll("(?is)<script[^>]*>.*?</script>", " ");
+        cleaned = cleaned.replaceAll("(?is)<style[^>]*>.*?</style>", " ");
+        cleaned = cleaned.replaceAll("(?is)<noscript[^>]*>.*?</noscript>", " ");
+        // Convert <br>, <p>, <div>, <li> to newlines
+        cleaned = cleaned.replaceAll("(?i)<br\\s*/?>", "\n");
+        cleaned = cleaned.replaceAll("(?i)</(p|div|li|tr|h[1-6])>", "\n");
+        // Strip remaining tags
+        cleaned = TAG_PATTERN.matcher(cleaned).replaceAll(" ");
+        // Decode common entities
+        cleaned = cleaned.replace("&amp;", "&").replace("&lt;", "<")
+                .replace("&gt;", ">").replace("&quot;", "\"")
+                .replace("&#39;", "'").replace("&nbsp;", " ");
+        // Collapse whitespace
+        cleaned = WHITESPACE_PATTERN.matcher(cleaned).replaceAll("\n");
+        return cleaned.trim();
+    }
+
+    /**
+     * Render crawl results as one report. Lines already emitted for an earlier page
+     * (navigation, footers, cookie banners) are dropped, and each page gets an equal
+     * share of CRAWL_TEXT_BUDGET.
+     */
+    private String formatCrawlResults(Map<String, String> results) {
+        int pages = Math.max(1, results.size());
+        int perPage = Math.max(CRAWL_MIN_PAGE_CHARS, CRAWL_TEXT_BUDGET / pages);
+        Set<String> seenLines = new HashSet<>();
+        int ok = 0;
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> e : results.entrySet()) {
+            sb.append("=== ").append(e.getKey()).append(" ===\n");
+            String text = e.getValue();
+            if (text.startsWith("Failed: ")) {
+                sb.append(text).append("\n\n");
+                continue;
+            }
+            ok++;
+            StringBuilder page = new StringBuilder();
+            for (String line : text.split("\n")) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || !seenLines.add(trimmed)) continue;
+                page.append(trimmed).append("\n");
+            }
+            if (page.length() == 0) {
+                sb.append("(no new text — duplicate of an earlier page)\n\n");
+            } else if (page.length() > perPage) {
+                sb.append(page, 0, perPage).append("\n... (truncated, ")
+                        .append(page.length()).append(" chars total)\n\n");
+            } else {
+                sb.append(page).append("\n");
+            }
+        }
+        return "Crawled " + ok + " of " + results.size() + " page(s).\n\n" + sb.toString().trim();
+    }
+
+    /** Normalize a URL for de-duplication: absolute http(s) only, fragment removed. */
+    private String normalizeUrl(String url) {
+        if (url == null || url.isBlank()) return null;
+        String u = url.trim();
+        if (!u.startsWith("http://") && !u.startsWith("https://")) {
+            if (u.contains("://")) return null;
+            u = "https://" + u;
+        }
+        int hash = u.indexOf('#');
+        if (hash >= 0) u = u.substring(0, hash);
+        try {
+            return URI.create(u).getHost() == null ? null : u;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
     /** Resolve a potentially relative URL against a base URL. */
     private String resolveUrl(String baseUrl, String href) {
         if (href == null || href.isBlank()) return null;
@@ -4,116 +4,240 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.imageio.ImageIO;
-import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
+import ai.onnxruntime.NodeInfo;
 import ai.onnxruntime.OnnxTensor;
-import ai.onnxruntime.OnnxValue;
-import ai.onnxruntime.OrtEnvironment;
 import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.TensorInfo;
 
 /**
- * Runs ONNX image classification models (e.g. suko/nsfw) that expect input shape [1, 224, 224, 3] float NHWC.
- * Reads signature.json for label names if present.
+ * Runs ONNX image classification models (e.g. suko/nsfw) that expect input shape [N, 224, 224, 3] float NHWC.
+ * Reads signature.json for label names if present. Sessions come from {@link OnnxSessionRegistry}.
+ * Folders are classified in batches while the next batch is decoded in parallel. Decoded pixels go
+ * straight into pooled direct input buffers that ONNX Runtime reads without copying.
  */
 @Component
 public class HuggingFaceOnnxClassifier {
 
     private static final Logger log = LoggerFactory.getLogger(HuggingFaceOnnxClassifier.class);
     private static final int INPUT_SIZE = 224;
+    private static final int IMAGE_FLOATS = INPUT_SIZE * INPUT_SIZE * 3;
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
+    /** Images per inference call when the model accepts a dynamic batch dimension. */
+    @Value("${app.onnx.batch-size:32}")
+    private int batchSize;
+
+    private final OnnxSessionRegistry sessions;
+    /** Reusable direct input buffers (two per running batch job: one decoding, one in inference). */
+    private final Queue<FloatBuffer> bufferPool = new ConcurrentLinkedQueue<>();
+    private final ExecutorService imageLoader = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+                Thread t = new Thread(r, "onnx-image-loader");
+                t.setDaemon(true);
+                return t;
+            });
+
+    public HuggingFaceOnnxClassifier(OnnxSessionRegistry sessions) {
+        this.sessions = sessions;
+    }
+
+    /** Classification of one image: top label plus every label's score (in model order), or an error. */
+    public record ImageResult(Path image, String topLabel, float topScore, Map<String, Float> scores, String error) {
+        public boolean ok() {
+            return error == null;
+        }
+    }
+
     /**
      * Run classification on an image using a cached ONNX model. Returns a human-readable result string.
      * Model dir must contain model.onnx and optionally signature.json (for class names).
      */
     public String classify(Path imagePath, Path modelDir) throws Exception {
+        List<ImageResult> results = new ArrayList<>();
+        classifyBatch(List.of(imagePath), modelDir, results::add);
+        ImageResult r = results.get(0);
+        if (!r.ok()) return r.error();
+
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Float> e : r.scores().entrySet()) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(e.getKey()).append(": ").append(String.format("%.2f", e.getValue()));
+        }
+        return r.topLabel() + " (" + String.format("%.2f", r.topScore()) + "). All: " + sb;
+    }
+
+    /**
+     * Classify many images, feeding the model batches of [B, 224, 224, 3]. Images for the next batch
+     * are decoded on the loader pool while the current one runs. Each result (or per-image error)
+     * is passed to {@code sink} as soon as its batch finishes. Returns the number of images processed.
+     */
+    public int classifyBatch(List<Path> images, Path modelDir, Consumer<ImageResult> sink) throws Exception {
         Path onnxPath = modelDir.resolve("model.onnx");
         if (!Files.isRegularFile(onnxPath)) {
             throw new IllegalArgumentException("No model.onnx in " + modelDir);
         }
-        float[][][][] imageTensor = loadAndPreprocessImage(imagePath);
         List<String> labels = readLabels(modelDir);
 
-        try (OrtEnvironment env = OrtEnvironment.getEnvironment();
-             OrtSession session = env.createSession(onnxPath.toString(), new OrtSession.SessionOptions())) {
+        try (OnnxSessionRegistry.Lease lease = sessions.acquire(modelDir)) {
+            OrtSession session = lease.session();
+            String inputName = session.getInputNames().iterator().next();
+            int batch = supportsDynamicBatch(session.getInputInfo().get(inputName)) ? Math.max(1, batchSize) : 1;
+
+            // Double-buffered: batch k+1 decodes into one buffer while batch k runs from the other
+            int slots = Math.min(batch, images.size());
+            FloatBuffer[] buffers = {borrowBuffer(slots), borrowBuffer(slots)};
+            List<Future<?>> current = List.of();
+            List<Future<?>> next = List.of();
+            try {
+                next = submitLoads(images, 0, slots, buffers[0]);
+                for (int start = 0, k = 0; start < images.size(); start += slots, k++) {
+                    FloatBuffer input = buffers[k % 2];
+                    current = next;
+                    next = submitLoads(images, start + slots, slots, buffers[(k + 1) % 2]);
+
+                    // Images that fail to decode leave a stale slot; it is inferred but its output ignored
+                    boolean[] loaded = new boolean[current.size()];
+                    int loadedCount = 0;
+                    for (int i = 0; i < current.size(); i++) {
+                        try {
+                            current.get(i).get();
+                            loaded[i] = true;
+                            loadedCount++;
+                        } catch (Exception e) {
+                            Throwable cause = e.getCause() != null ? e.getCause() : e;
+                            sink.accept(new ImageResult(images.get(start + i), null, 0f, Map.of(), cause.getMessage()));
+                        }
+                    }
+                    if (loadedCount == 0) continue;
 
-            long[] shape = {1, INPUT_SIZE, INPUT_SIZE, 3};
-            float[] flat = new float[1 * INPUT_SIZE * INPUT_SIZE * 3];
-            int idx = 0;
-            for (int y = 0; y < INPUT_SIZE; y++) {
-                for (int x = 0; x < INPUT_SIZE; x++) {
-                    for (int c = 0; c < 3; c++) {
-                        flat[idx++] = imageTensor[0][y][x][c];
+                    FloatBuffer tensorData = input.duplicate().position(0).limit(current.size() * IMAGE_FLOATS);
+                    long[] shape = {current.size(), INPUT_SIZE, INPUT_SIZE, 3};
+                    try (OnnxTensor inputTensor = OnnxTensor.createTensor(lease.environment(), tensorData, shape);
+                         OrtSession.Result result = session.run(Map.of(inputName, inputTensor))) {
+                        Object outputObj = result.get(0).getValue();
+                        float[][] output;
+                        if (outputObj instanceof float[][] f) {
+                            output = f;
+                        } else if (outputObj instanceof float[] f1) {
+                            output = new float[][]{f1};
+                        } else {
+                            output = null;
+                        }
+                        for (int i = 0; i < current.size(); i++) {
+                            if (!loaded[i]) continue;
+                            Path image = images.get(start + i);
+                            if (output == null) {
+                                sink.accept(new ImageResult(image, null, 0f, Map.of(),
+                                        "Unexpected model output type: " + (outputObj != null ? outputObj.getClass() : "null")));
+                            } else if (i >= output.length || output[i] == null) {
+                                sink.accept(new ImageResult(image, null, 0f, Map.of(), "Model returned no output."));
+                            } else {
+                                sink.accept(toResult(image, output[i], labels));
+                            }
+                        }
                     }
                 }
+            } finally {
+                // Let in-flight decodes finish, even after a failed batch, before their buffer goes back to the pool
+                awaitQuietly(current);
+                awaitQuietly(next);
+                returnBuffer(buffers[0]);
+                returnBuffer(buffers[1]);
             }
-            FloatBuffer buffer = FloatBuffer.wrap(flat);
+        }
+        return images.size();
+    }
 
-            String inputName = session.getInputNames().iterator().next();
-            try (OnnxTensor inputTensor = OnnxTensor.createTensor(env, buffer, shape)) {
-                OrtSession.Result result = session.run(java.util.Map.of(inputName, inputTensor));
-                try (result) {
-                    OnnxValue outputValue = result.get(0);
-                    Object outputObj = outputValue.getValue();
-                    float[][] output;
-                    if (outputObj instanceof float[][] f) {
-                        output = f;
-                    } else if (outputObj instanceof float[] f1) {
-                        output = new float[][]{f1};
-                    } else {
-                        return "Unexpected model output type: " + (outputObj != null ? outputObj.getClass() : "null");
-                    }
-                    if (output == null || output.length == 0 || output[0] == null) {
-                        return "Model returned no output.";
-                    }
-                    float[] scores = output[0];
-                    while (labels.size() < scores.length) {
-                        labels.add("class_" + labels.size());
-                    }
-                    StringBuilder sb = new StringBuilder();
-                    int maxIdx = 0;
-                    for (int i = 0; i < scores.length; i++) {
-                        String label = i < labels.size() ? labels.get(i) : "class_" + i;
-                        sb.append(label).append(": ").append(String.format("%.2f", scores[i]));
-                        if (i < scores.length - 1) sb.append(", ");
-                        if (scores[i] > scores[maxIdx]) maxIdx = i;
-                    }
-                    String topLabel = maxIdx < labels.size() ? labels.get(maxIdx) : "class_" + maxIdx;
-                    return topLabel + " (" + String.format("%.2f", scores[maxIdx]) + "). All: " + sb;
+    private static void awaitQuietly(List<Future<?>> futures) {
+        boolean interrupted = false;
+        for (Future<?> f : futures) {
+            while (true) {
+                try {
+                    f.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true; // the decode still writes into the buffer, so keep waiting
+                } catch (Exception ignored) {
+                    break;
                 }
             }
         }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /** Decode images [from, from + count) in parallel, each into its own slot of {@code target}. */
+    private List<Future<?>> submitLoads(List<Path> images, int from, int count, FloatBuffer target) {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = from; i < Math.min(images.size(), from + count); i++) {
+            Path image = images.get(i);
+            FloatBuffer slot = target.slice((i - from) * IMAGE_FLOATS, IMAGE_FLOATS);
+            futures.add(imageLoader.submit(() -> {
+                loadAndPreprocessImage(image, slot);
+                return null;
+            }));
+        }
+        return futures;
+    }
+
+    private FloatBuffer borrowBuffer(int images) {
+        int needed = images * IMAGE_FLOATS;
+        FloatBuffer buf;
+        while ((buf = bufferPool.poll()) != null) {
+            if (buf.capacity() >= needed) return buf;
+        }
+        return ByteBuffer.allocateDirect(needed * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
     }
 
-    /** Load image and resize to INPUT_SIZE x INPUT_SIZE, normalize to [0,1] float [1][H][W][3]. */
-    private float[][][][] loadAndPreprocessImage(Path imagePath) throws Exception {
+    private void returnBuffer(FloatBuffer buf) {
+        if (bufferPool.size() < 4) bufferPool.offer(buf);
+    }
+
+    /** True unless the model declares a fixed batch dimension of 1. */
+    private boolean supportsDynamicBatch(NodeInfo input) {
+        if (input != null && input.getInfo() instanceof TensorInfo ti) {
+            long[] shape = ti.getShape();
+            return shape.length == 0 || shape[0] != 1;
+        }
+        return true;
+    }
+
+    private ImageResult toResult(Path image, float[] scores, List<String> labels) {
+        Map<String, Float> all = new LinkedHashMap<>();
+        int maxIdx = 0;
+        for (int i = 0; i < scores.length; i++) {
+            all.put(i < labels.size() ? labels.get(i) : "class_" + i, scores[i]);
+            if (scores[i] > scores[maxIdx]) maxIdx = i;
+        }
+        String topLabel = maxIdx < labels.size() ? labels.get(maxIdx) : "class_" + maxIdx;
+        return new ImageResult(image, topLabel, scores.length > 0 ? scores[maxIdx] : 0f, all, null);
+    }
+
+    /** Decode an image and write its INPUT_SIZE x INPUT_SIZE x 3 normalized pixels into {@code slot}. */
+    private void loadAndPreprocessImage(Path imagePath, FloatBuffer slot) throws Exception {
         BufferedImage img = ImageIO.read(imagePath.toFile());
         if (img == null) throw new IllegalArgumentException("Could not read image: " + imagePath);
-        BufferedImage resized = new BufferedImage(INPUT_SIZE, INPUT_SIZE, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g = resized.createGraphics();
-        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        g.drawImage(img, 0, 0, INPUT_SIZE, INPUT_SIZE, null);
-        g.dispose();
-
-        float[][][][] out = new float[1][INPUT_SIZE][INPUT_SIZE][3];
-        for (int y = 0; y < INPUT_SIZE; y++) {
-            for (int x = 0; x < INPUT_SIZE; x++) {
-                int rgb = resized.getRGB(x, y);
-                out[0][y][x][0] = ((rgb >> 16) & 0xFF) / 255f;
-                out[0][y][x][1] = ((rgb >> 8) & 0xFF) / 255f;
-                out[0][y][x][2] = (rgb & 0xFF) / 255f;
-            }
-        }
-        return out;
+        ImagePreprocessor.preprocess(img, INPUT_SIZE, slot);
     }
 
     private List<String> readLabels(Path modelDir) {
@@ -1,5 +1,6 @@
 package com.botsfer.huggingface;
 
+import com.botsfer.agent.DownloadService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
@@ -8,7 +9,6 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -16,12 +16,22 @@ import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 /**
  * Calls Hugging Face Hub API to list models and download files. Used by HuggingFaceImageTool
  * to discover image-classification models and cache ONNX models for local inference.
+ * <p>
+ * Each model's file tree (paths, sizes, blob ids) is kept as a manifest in memory and in
+ * {@code <cache>/<model>/.manifest.json}, revalidated with the Hub (ETag) only after the TTL,
+ * and reused if the Hub is unreachable. In offline mode no network call is made at all.
  */
 @Service
 public class HuggingFaceService {
@@ -29,18 +39,35 @@ public class HuggingFaceService {
     private static final Logger log = LoggerFactory.getLogger(HuggingFaceService.class);
     private static final String API_BASE = "https://huggingface.co/api";
     private static final String RESOLVE_BASE = "https://huggingface.co";
+    private static final String MANIFEST_FILE = ".manifest.json";
 
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final HttpClient httpClient = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NORMAL).build();
 
     @Value("${app.huggingface.cache-dir:${user.home}/.cache/botsfer/hf_models}")
     private String cacheDir;
+    /** Never contact the Hub; work only from models already in the cache directory. */
+    @Value("${app.huggingface.offline:false}")
+    private boolean offline;
+    /** How long a model's cached file tree is trusted before revalidating with the Hub. */
+    @Value("${app.huggingface.manifest-ttl-minutes:1440}")
+    private long manifestTtlMinutes;
+
+    private final Map<String, ModelManifest> manifests = new ConcurrentHashMap<>();
+    private final DownloadService downloads;
+
+    public HuggingFaceService(DownloadService downloads) {
+        this.downloads = downloads;
+    }
 
     /**
      * List public image-classification models, optionally filtered by search term (e.g. "nsfw", "censored").
      * Returns model IDs and basic metadata.
      */
     public List<HfModelInfo> listImageClassificationModels(String search) throws IOException {
+        if (offline) {
+            return listCachedModels(search);
+        }
         String q = "?pipeline_tag=image-classification&limit=20";
         if (search != null && !search.isBlank()) {
             q += "&search=" + java.net.URLEncoder.encode(search.trim(), java.nio.charset.StandardCharsets.UTF_8);
@@ -75,59 +102,199 @@ public class HuggingFaceService {
     }
 
     /**
-     * Get file tree for a model repo (main branch).
+     * Get file tree for a model repo (main branch). Served from the manifest cache when fresh.
      */
     public List<String> getModelFilePaths(String modelId) throws IOException {
-        String url = API_BASE + "/models/" + modelId + "/tree/main";
-        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(url)).GET().build();
-        HttpResponse<String> response;
+        return getManifest(modelId).paths();
+    }
+
+    /**
+     * Get the cached manifest for a model, revalidating it with the Hub once the TTL has passed.
+     * A stale manifest is still returned if the Hub cannot be reached.
+     */
+    public ModelManifest getManifest(String modelId) throws IOException {
+        ModelManifest cached = manifests.computeIfAbsent(modelId, this::readManifestFile);
+        // Manifests saved before subfolders were listed lack onnx/... files: refresh them regardless of age
+        boolean complete = cached != null && cached.recursive();
+        if (offline) {
+            if (complete) return cached;
+            ModelManifest local = manifestFromLocalFiles(modelId);
+            if (local == null && cached != null) return cached;
+            if (local == null) {
+                throw new IOException("Offline mode: " + modelId + " is not in the local cache (" + modelDir(modelId) + ")");
+            }
+            manifests.put(modelId, local);
+            return local;
+        }
+        if (complete && System.currentTimeMillis() - cached.fetchedAt() < Duration.ofMinutes(manifestTtlMinutes).toMillis()) {
+            return cached;
+        }
         try {
-            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("Interrupted", e);
+            ModelManifest fresh = fetchManifest(modelId, complete ? cached : null);
+            if (cached != null) dropChangedFiles(cached, fresh);
+            manifests.put(modelId, fresh);
+            writeManifestFile(fresh);
+            return fresh;
+        } catch (IOException e) {
+            if (cached != null) {
+                log.warn("Could not revalidate {} ({}); using cached file list", modelId, e.getMessage());
+                return cached;
+            }
+            throw e;
         }
-        if (response.statusCode() != 200) {
-            throw new IOException("HF API tree returned " + response.statusCode() + " for " + modelId);
+    }
+
+    /**
+     * Fetch the whole file tree, subfolders included, following the Hub's page links. The previous
+     * ETag is sent with the first page so an unchanged tree costs only a 304.
+     */
+    private ModelManifest fetchManifest(String modelId, ModelManifest previous) throws IOException {
+        String url = API_BASE + "/models/" + modelId + "/tree/main?recursive=true";
+        List<ModelFile> files = new ArrayList<>();
+        String etag = null;
+        for (int page = 0; url != null; page++) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder().uri(URI.create(url)).GET();
+            if (page == 0 && previous != null && previous.etag() != null) {
+                builder.header("If-None-Match", previous.etag());
+            }
+            HttpResponse<String> response;
+            try {
+                response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted", e);
+            }
+            if (page == 0 && response.statusCode() == 304 && previous != null) {
+                return new ModelManifest(modelId, previous.files(), previous.etag(), System.currentTimeMillis(), true);
+            }
+            if (response.statusCode() != 200) {
+                throw new IOException("HF API tree returned " + response.statusCode() + " for " + modelId);
+            }
+            if (page == 0) etag = response.headers().firstValue("ETag").orElse(null);
+            JsonNode root = objectMapper.readTree(response.body());
+            for (JsonNode node : root) {
+                if (node.has("path") && !"directory".equals(node.path("type").asText())) {
+                    files.add(new ModelFile(
+                            node.path("path").asText(),
+                            node.path("size").asLong(-1),
+                            node.path("oid").asText(null),
+                            node.path("lfs").path("oid").asText(null)));
+                }
+            }
+            url = nextPage(response);
         }
-        JsonNode root = objectMapper.readTree(response.body());
-        List<String> paths = new ArrayList<>();
-        for (JsonNode node : root) {
-            if (node.has("path")) {
-                paths.add(node.path("path").asText());
+        return new ModelManifest(modelId, files, etag, System.currentTimeMillis(), true);
+    }
+
+    /** The {@code rel="next"} target of a paginated Hub response, or null on the last page. */
+    static String nextPage(HttpResponse<?> response) {
+        for (String link : response.headers().allValues("Link")) {
+            for (String part : link.split(",")) {
+                int open = part.indexOf('<');
+                int close = part.indexOf('>');
+                if (open >= 0 && close > open && part.substring(close).contains("rel=\"next\"")) {
+                    return part.substring(open + 1, close).trim();
+                }
+            }
+        }
+        return null;
+    }
+
+    /** Delete cached copies of files whose blob changed upstream so they are downloaded again. */
+    private void dropChangedFiles(ModelManifest before, ModelManifest after) {
+        for (ModelFile old : before.files()) {
+            Optional<ModelFile> now = after.file(old.path());
+            if (now.isPresent() && old.oid() != null && !old.oid().equals(now.get().oid())) {
+                try {
+                    if (Files.deleteIfExists(modelDir(before.modelId()).resolve(old.path()))) {
+                        log.info("{} {} changed upstream; cached copy dropped", before.modelId(), old.path());
+                    }
+                } catch (IOException e) {
+                    log.debug("Could not delete stale {}: {}", old.path(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private ModelManifest readManifestFile(String modelId) {
+        Path file = modelDir(modelId).resolve(MANIFEST_FILE);
+        if (!Files.isRegularFile(file)) return null;
+        try {
+            return objectMapper.readValue(file.toFile(), ModelManifest.class);
+        } catch (IOException e) {
+            log.debug("Ignoring unreadable manifest {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeManifestFile(ModelManifest manifest) {
+        Path dir = modelDir(manifest.modelId());
+        try {
+            Files.createDirectories(dir);
+            Path tmp = dir.resolve(MANIFEST_FILE + ".tmp");
+            objectMapper.writeValue(tmp.toFile(), manifest);
+            Files.move(tmp, dir.resolve(MANIFEST_FILE), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.debug("Could not write manifest for {}: {}", manifest.modelId(), e.getMessage());
+        }
+    }
+
+    /** Offline fallback for a model cached before manifests existed: describe the files on disk. */
+    private ModelManifest manifestFromLocalFiles(String modelId) {
+        Path dir = modelDir(modelId);
+        if (!Files.isDirectory(dir)) return null;
+        List<ModelFile> files = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) walk.filter(Files::isRegularFile)::iterator) {
+                String rel = dir.relativize(p).toString().replace('\\', '/');
+                if (rel.startsWith(".")) continue;
+                files.add(new ModelFile(rel, Files.size(p), null, null));
             }
+        } catch (IOException e) {
+            return null;
         }
-        return paths;
+        return files.isEmpty() ? null : new ModelManifest(modelId, files, null, System.currentTimeMillis(), true);
+    }
+
+    /** Offline model search: cached models whose ID contains the search term. */
+    private List<HfModelInfo> listCachedModels(String search) throws IOException {
+        Path root = Paths.get(cacheDir).toAbsolutePath();
+        List<HfModelInfo> out = new ArrayList<>();
+        if (!Files.isDirectory(root)) return out;
+        String needle = search == null ? "" : search.trim().toLowerCase();
+        try (Stream<Path> dirs = Files.list(root)) {
+            for (Path dir : (Iterable<Path>) dirs.filter(Files::isDirectory)::iterator) {
+                ModelManifest m = readManifestFile(dir.getFileName().toString().replaceFirst("_", "/"));
+                String id = m != null ? m.modelId() : dir.getFileName().toString().replaceFirst("_", "/");
+                if (id.toLowerCase().contains(needle)) {
+                    out.add(new HfModelInfo(id, "image-classification", "onnx", List.of("cached", "offline")));
+                }
+            }
+        }
+        return out;
     }
 
     /**
-     * Download a file from a model repo to the cache. Returns the local path. Skips download if already present.
+     * Download a file from a model repo to the cache. Returns the local path. Skips download if already
+     * present (and, when the manifest knows it, of the expected size).
      */
     public Path downloadToCache(String modelId, String filePath) throws IOException {
-        Path cacheRoot = Paths.get(cacheDir).toAbsolutePath();
-        Path localDir = cacheRoot.resolve(modelId.replace("/", "_"));
+        Path localDir = modelDir(modelId);
         Path localFile = localDir.resolve(filePath);
-        if (Files.exists(localFile) && Files.size(localFile) > 0) {
+        ModelManifest manifest = manifests.get(modelId);
+        Optional<ModelFile> expected = manifest == null ? Optional.empty() : manifest.file(filePath);
+        long expectedSize = expected.map(ModelFile::size).orElse(-1L);
+        if (Files.exists(localFile) && Files.size(localFile) > 0
+                && (expectedSize < 0 || Files.size(localFile) == expectedSize)) {
             log.debug("Using cached {} {}", modelId, filePath);
             return localFile;
         }
-        Files.createDirectories(localDir);
-        String url = RESOLVE_BASE + "/" + modelId.replace("/", "/") + "/resolve/main/" + filePath;
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .GET()
-                .build();
-        HttpResponse<InputStream> response;
-        try {
-            response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("Interrupted", e);
+        if (offline) {
+            throw new IOException("Offline mode: " + filePath + " of " + modelId + " is not cached");
         }
-        if (response.statusCode() != 200) {
-            throw new IOException("Download returned " + response.statusCode() + " for " + url);
-        }
-        Files.copy(response.body(), localFile);
+        String url = RESOLVE_BASE + "/" + modelId.replace("/", "/") + "/resolve/main/" + filePath;
+        // LFS files (the model weights) carry a sha256 in the manifest; small git files are size-checked only.
+        downloads.download(url, localFile, expectedSize, expected.map(ModelFile::sha256).orElse(null));
         log.info("Downloaded {} to {}", url, localFile);
         return localFile;
     }
@@ -147,6 +314,10 @@ public class HuggingFaceService {
         if (paths.contains("labels.txt")) {
             downloadToCache(modelId, "labels.txt");
         }
+        return modelDir(modelId);
+    }
+
+    private Path modelDir(String modelId) {
         return Paths.get(cacheDir).toAbsolutePath().resolve(modelId.replace("/", "_"));
     }
 
@@ -155,4 +326,21 @@ public class HuggingFaceService {
     }
 
     public record HfModelInfo(String modelId, String pipelineTag, String libraryName, List<String> tags) {}
+
+    /** One file in a model repo: size in bytes (-1 if unknown), git blob id, and LFS sha256 if any. */
+    public record ModelFile(String path, long size, String oid, String sha256) {}
+
+    /**
+     * A model's file tree as last seen on the Hub, with the ETag used to revalidate it.
+     * {@code recursive} is false for manifests saved before subfolders were listed.
+     */
+    public record ModelManifest(String modelId, List<ModelFile> files, String etag, long fetchedAt, boolean recursive) {
+        public List<String> paths() {
+            return files.stream().map(ModelFile::path).toList();
+        }
+
+        public Optional<ModelFile> file(String path) {
+            return files.stream().filter(f -> f.path().equals(path)).findFirst();
+        }
+    }
 }
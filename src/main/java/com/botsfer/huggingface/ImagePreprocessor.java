@@ -0,0 +1,152 @@
+package com.botsfer.huggingface;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.nio.FloatBuffer;
+
+/**
+ * Turns a decoded image into the SIZE x SIZE x 3 float input of an NHWC image model, without
+ * intermediate images or arrays. Pixels are read straight from the raster's DataBuffer for the
+ * common ImageIO layouts (getRGB row reads for anything else), downscaled with an area-average
+ * box filter, normalized to [0,1] and written row by row into the caller's buffer.
+ * Per-thread scratch rows are reused, so steady-state preprocessing allocates nothing.
+ */
+final class ImagePreprocessor {
+
+    private static final float INV_255 = 1f / 255f;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private ImagePreprocessor() {}
+
+    /** Per-thread working memory, sized for the largest image width seen so far. */
+    private static final class Scratch {
+        int[] row = new int[0];
+        int[] colStart = new int[0];
+        int[] sumR = new int[0];
+        int[] sumG = new int[0];
+        int[] sumB = new int[0];
+        float[] out = new float[0];
+
+        void ensure(int width, int size) {
+            if (row.length < width) row = new int[width];
+            if (colStart.length != size + 1) {
+                colStart = new int[size + 1];
+                sumR = new int[size];
+                sumG = new int[size];
+                sumB = new int[size];
+                out = new float[size * 3];
+            }
+        }
+    }
+
+    /**
+     * Write {@code size * size * 3} floats (HWC, RGB, [0,1]) for {@code src} at the buffer's
+     * current position, advancing it.
+     */
+    static void preprocess(BufferedImage src, int size, FloatBuffer dest) {
+        int sw = src.getWidth();
+        int sh = src.getHeight();
+        Scratch s = SCRATCH.get();
+        s.ensure(sw, size);
+        RowReader reader = rowReader(src);
+
+        // Source column span of each output column (at least one pixel when upscaling)
+        for (int ox = 0; ox <= size; ox++) {
+            s.colStart[ox] = (int) ((long) ox * sw / size);
+        }
+
+        for (int oy = 0; oy < size; oy++) {
+            int y0 = (int) ((long) oy * sh / size);
+            int y1 = Math.max(y0 + 1, (int) ((long) (oy + 1) * sh / size));
+            java.util.Arrays.fill(s.sumR, 0);
+            java.util.Arrays.fill(s.sumG, 0);
+            java.util.Arrays.fill(s.sumB, 0);
+
+            for (int y = y0; y < y1; y++) {
+                reader.read(y, s.row);
+                for (int ox = 0; ox < size; ox++) {
+                    int x0 = s.colStart[ox];
+                    int x1 = Math.max(x0 + 1, s.colStart[ox + 1]);
+                    int r = 0, g = 0, b = 0;
+                    for (int x = x0; x < x1; x++) {
+                        int p = s.row[x];
+                        r += (p >> 16) & 0xFF;
+                        g += (p >> 8) & 0xFF;
+                        b += p & 0xFF;
+                    }
+                    s.sumR[ox] += r;
+                    s.sumG[ox] += g;
+                    s.sumB[ox] += b;
+                }
+            }
+
+            int rows = y1 - y0;
+            for (int ox = 0; ox < size; ox++) {
+                int x0 = s.colStart[ox];
+                int n = rows * (Math.max(x0 + 1, s.colStart[ox + 1]) - x0);
+                float scale = INV_255 / n;
+                s.out[ox * 3] = s.sumR[ox] * scale;
+                s.out[ox * 3 + 1] = s.sumG[ox] * scale;
+                s.out[ox * 3 + 2] = s.sumB[ox] * scale;
+            }
+            dest.put(s.out, 0, size * 3);
+        }
+    }
+
+    /** Reads one source row as packed 0xRRGGBB ints. */
+    @FunctionalInterface
+    private interface RowReader {
+        void read(int y, int[] row);
+    }
+
+    private static RowReader rowReader(BufferedImage src) {
+        Raster raster = src.getRaster();
+        int w = src.getWidth();
+        boolean plain = raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0;
+
+        if (plain && (src.getType() == BufferedImage.TYPE_INT_RGB || src.getType() == BufferedImage.TYPE_INT_ARGB)
+                && raster.getDataBuffer() instanceof DataBufferInt db
+                && raster.getSampleModel() instanceof SinglePixelPackedSampleModel sm) {
+            int[] data = db.getData();
+            int offset = db.getOffset();
+            int stride = sm.getScanlineStride();
+            return (y, row) -> System.arraycopy(data, offset + y * stride, row, 0, w);
+        }
+
+        if (plain && (src.getType() == BufferedImage.TYPE_3BYTE_BGR || src.getType() == BufferedImage.TYPE_4BYTE_ABGR
+                || src.getType() == BufferedImage.TYPE_BYTE_GRAY)
+                && raster.getDataBuffer() instanceof DataBufferByte db
+                && raster.getSampleModel() instanceof ComponentSampleModel sm) {
+            byte[] data = db.getData();
+            int offset = db.getOffset();
+            int stride = sm.getScanlineStride();
+            int pixelStride = sm.getPixelStride();
+            int[] bands = sm.getBandOffsets();
+            if (bands.length == 1) {
+                int k = bands[0];
+                return (y, row) -> {
+                    int i = offset + y * stride + k;
+                    for (int x = 0; x < w; x++, i += pixelStride) {
+                        int v = data[i] & 0xFF;
+                        row[x] = (v << 16) | (v << 8) | v;
+                    }
+                };
+            }
+            int rOff = bands[0], gOff = bands[1], bOff = bands[2];
+            return (y, row) -> {
+                int i = offset + y * stride;
+                for (int x = 0; x < w; x++, i += pixelStride) {
+                    row[x] = ((data[i + rOff] & 0xFF) << 16) | ((data[i + gOff] & 0xFF) << 8) | (data[i + bOff] & 0xFF);
+                }
+            };
+        }
+
+        // Palette, 16-bit, premultiplied, sub-rasters...: let the color model convert, one row at a time
+        return (y, row) -> src.getRGB(0, y, w, 1, row, 0, w);
+    }
+}
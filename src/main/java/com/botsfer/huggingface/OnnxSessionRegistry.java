@@ -0,0 +1,203 @@
+package com.botsfer.huggingface;
+
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared cache of ONNX Runtime sessions, keyed by model file. Creating an OrtSession (parsing and
+ * optimizing the graph) costs far more than a single inference, so sessions are loaded lazily,
+ * kept warm, and evicted least-recently-used once their combined size exceeds the memory budget.
+ * <p>
+ * The first load runs full graph optimization and saves the result next to the model
+ * ({@code <name>.optimized.onnx}); later loads read that file with optimization disabled.
+ * Callers hold a {@link Lease} while running inference so a session is never closed mid-use.
+ */
+@Component
+public class OnnxSessionRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(OnnxSessionRegistry.class);
+
+    /** Intra-op threads per session (0 = ONNX Runtime default, one per physical core). */
+    @Value("${app.onnx.intra-op-threads:0}")
+    private int intraOpThreads;
+    /** Approximate memory budget for loaded sessions, measured by model file size. */
+    @Value("${app.onnx.memory-budget-mb:1024}")
+    private long memoryBudgetMb;
+
+    private final OrtEnvironment env = OrtEnvironment.getEnvironment();
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+    /** The shared ONNX Runtime environment. Never close it. */
+    public OrtEnvironment environment() {
+        return env;
+    }
+
+    /** Acquire the session for {@code modelDir/model.onnx}, loading it if needed. */
+    public Lease acquire(Path modelDir) throws OrtException {
+        return acquire(modelDir, "model.onnx");
+    }
+
+    /** Acquire the session for a model file inside {@code modelDir}, loading it if needed. */
+    public Lease acquire(Path modelDir, String modelFileName) throws OrtException {
+        Path modelFile = modelDir.toAbsolutePath().normalize().resolve(modelFileName);
+        Entry entry = entries.computeIfAbsent(modelFile, Entry::new);
+        Lease lease = entry.acquire();
+        evictOverBudget(entry);
+        return lease;
+    }
+
+    /** Close least-recently-used sessions until the loaded total fits the budget. */
+    private synchronized void evictOverBudget(Entry justUsed) {
+        long budget = memoryBudgetMb * 1024 * 1024;
+        long total = entries.values().stream().mapToLong(e -> e.loadedBytes).sum();
+        while (total > budget) {
+            Entry lru = null;
+            for (Entry e : entries.values()) {
+                if (e == justUsed || e.loadedBytes == 0) continue;
+                if (lru == null || e.lastUsed < lru.lastUsed) lru = e;
+            }
+            if (lru == null) break; // only the session in use is left — keep it
+            total -= lru.loadedBytes;
+            log.info("[ONNX] Evicting session {} (memory budget {} MB)", lru.modelFile, memoryBudgetMb);
+            lru.evict();
+        }
+    }
+
+    private OrtSession load(Path modelFile) throws OrtException {
+        String name = modelFile.getFileName().toString();
+        String base = name.endsWith(".onnx") ? name.substring(0, name.length() - 5) : name;
+        Path optimized = modelFile.resolveSibling(base + ".optimized.onnx");
+        long start = System.currentTimeMillis();
+
+        if (isUpToDate(optimized, modelFile)) {
+            try (OrtSession.SessionOptions opts = baseOptions()) {
+                opts.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.NO_OPT);
+                OrtSession session = env.createSession(optimized.toString(), opts);
+                log.info("[ONNX] Loaded pre-optimized {} in {}ms", optimized, System.currentTimeMillis() - start);
+                return session;
+            } catch (OrtException e) {
+                log.warn("[ONNX] Optimized model {} unusable, rebuilding: {}", optimized, e.getMessage());
+                try { Files.deleteIfExists(optimized); } catch (IOException ignored) {}
+            }
+        }
+        try (OrtSession.SessionOptions opts = baseOptions()) {
+            opts.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+            opts.setOptimizedModelFilePath(optimized.toString());
+            OrtSession session = env.createSession(modelFile.toString(), opts);
+            log.info("[ONNX] Loaded and optimized {} in {}ms", modelFile, System.currentTimeMillis() - start);
+            return session;
+        }
+    }
+
+    private OrtSession.SessionOptions baseOptions() throws OrtException {
+        OrtSession.SessionOptions opts = new OrtSession.SessionOptions();
+        opts.setExecutionMode(OrtSession.SessionOptions.ExecutionMode.SEQUENTIAL);
+        opts.setInterOpNumThreads(1);
+        if (intraOpThreads > 0) opts.setIntraOpNumThreads(intraOpThreads);
+        return opts;
+    }
+
+    private static boolean isUpToDate(Path derived, Path source) {
+        try {
+            return Files.isRegularFile(derived) && Files.size(derived) > 0
+                    && Files.getLastModifiedTime(derived).compareTo(Files.getLastModifiedTime(source)) >= 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        entries.values().forEach(Entry::evict);
+        entries.clear();
+    }
+
+    /** One model file's session plus reference count, so eviction waits for in-flight inference. */
+    private final class Entry {
+        final Path modelFile;
+        private OrtSession session;
+        private int refs;
+        private boolean evicted;
+        volatile long loadedBytes;
+        volatile long lastUsed;
+
+        Entry(Path modelFile) {
+            this.modelFile = modelFile;
+        }
+
+        synchronized Lease acquire() throws OrtException {
+            if (session == null) {
+                session = load(modelFile);
+                try {
+                    loadedBytes = Math.max(1, Files.size(modelFile));
+                } catch (IOException e) {
+                    loadedBytes = 1;
+                }
+            }
+            evicted = false;
+            refs++;
+            lastUsed = System.nanoTime();
+            return new Lease(this, session);
+        }
+
+        synchronized void release() {
+            refs--;
+            if (evicted && refs == 0) closeSession();
+        }
+
+        synchronized void evict() {
+            evicted = true;
+            if (refs == 0) closeSession();
+        }
+
+        private void closeSession() {
+            if (session == null) return;
+            try {
+                session.close();
+            } catch (OrtException e) {
+                log.debug("[ONNX] Error closing session {}: {}", modelFile, e.getMessage());
+            }
+            session = null;
+            loadedBytes = 0;
+        }
+    }
+
+    /** A borrowed session. Close it when the inference is done; the session itself stays cached. */
+    public final class Lease implements AutoCloseable {
+        private final Entry entry;
+        private final OrtSession session;
+        private boolean released;
+
+        private Lease(Entry entry, OrtSession session) {
+            this.entry = entry;
+            this.session = session;
+        }
+
+        public OrtSession session() {
+            return session;
+        }
+
+        public OrtEnvironment environment() {
+            return env;
+        }
+
+        @Override
+        public void close() {
+            if (released) return;
+            released = true;
+            entry.release();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.botsfer.memory;
 
+import com.botsfer.semantic.SemanticIndexService;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,10 +22,12 @@ public class MemoryService {
     private static final Pattern SAFE_KEY = Pattern.compile("^[a-zA-Z0-9._-]+$");
 
     private final MemoryConfig.MemoryProperties properties;
+    private final SemanticIndexService semanticIndex;
     private Path memoryDir;
 
-    public MemoryService(MemoryConfig.MemoryProperties properties) {
+    public MemoryService(MemoryConfig.MemoryProperties properties, SemanticIndexService semanticIndex) {
         this.properties = properties;
+        this.semanticIndex = semanticIndex;
     }
 
     public boolean isEnabled() {
@@ -42,6 +45,7 @@ public class MemoryService {
     public void save(String key, String value) throws IOException {
         Path file = resolveKey(key);
         Files.writeString(file, value != null ? value : "", StandardCharsets.UTF_8);
+        semanticIndex.indexNote(key, value);
     }
 
     public Optional<String> load(String key) throws IOException {
@@ -52,7 +56,9 @@ public class MemoryService {
 
     public boolean delete(String key) throws IOException {
         Path file = resolveKey(key);
-        return Files.deleteIfExists(file);
+        boolean removed = Files.deleteIfExists(file);
+        if (removed) semanticIndex.removeNote(key);
+        return removed;
     }
 
     public List<String> listKeys() throws IOException {
@@ -0,0 +1,191 @@
+package com.botsfer.semantic;
+
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import com.botsfer.huggingface.HuggingFaceService;
+import com.botsfer.huggingface.OnnxSessionRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns text into sentence embeddings with a small sentence-transformers model run in-process on
+ * ONNX Runtime. The model and its vocab are fetched once into the Hugging Face cache; the session
+ * comes from the shared {@link OnnxSessionRegistry}. Embeddings are mean-pooled over the attention
+ * mask and L2-normalized, so cosine similarity is a plain dot product.
+ */
+@Service
+public class EmbeddingService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingService.class);
+    private static final int BATCH_SIZE = 16;
+    /** After a failed load (offline, no network), wait this long before trying again. */
+    private static final long RETRY_AFTER_MS = 10 * 60 * 1000L;
+
+    @Value("${app.semantic.model:sentence-transformers/all-MiniLM-L6-v2}")
+    private String modelId;
+    /** Path of the ONNX export inside the model repo. */
+    @Value("${app.semantic.model-file:onnx/model.onnx}")
+    private String modelFile;
+    @Value("${app.semantic.max-tokens:256}")
+    private int maxTokens;
+
+    private final HuggingFaceService huggingFace;
+    private final OnnxSessionRegistry sessions;
+
+    private volatile WordPieceTokenizer tokenizer;
+    private volatile Path modelDir;
+    private volatile String failure;
+    private volatile long retryAt;
+
+    public EmbeddingService(HuggingFaceService huggingFace, OnnxSessionRegistry sessions) {
+        this.huggingFace = huggingFace;
+        this.sessions = sessions;
+    }
+
+    public String modelId() {
+        return modelId;
+    }
+
+    /** Whether the model is loaded (loading it now if needed). Cheap after the first call. */
+    public boolean isAvailable() {
+        return tokenizer != null || load();
+    }
+
+    /** Why the model could not be loaded, or null. */
+    public String unavailableReason() {
+        return tokenizer != null ? null : failure;
+    }
+
+    private synchronized boolean load() {
+        if (tokenizer != null) return true;
+        if (System.currentTimeMillis() < retryAt) return false;
+        try {
+            List<String> paths = huggingFace.getModelFilePaths(modelId);
+            if (!paths.contains(modelFile) || !paths.contains("vocab.txt")) {
+                throw new IOException(modelId + " has no " + modelFile + " and vocab.txt");
+            }
+            huggingFace.downloadToCache(modelId, modelFile);
+            Path vocab = huggingFace.downloadToCache(modelId, "vocab.txt");
+            modelDir = vocab.getParent();
+            tokenizer = WordPieceTokenizer.load(vocab);
+            failure = null;
+            log.info("[Semantic] Embedding model {} ready", modelId);
+            return true;
+        } catch (Exception e) {
+            failure = e.getMessage();
+            retryAt = System.currentTimeMillis() + RETRY_AFTER_MS;
+            log.warn("[Semantic] Embedding model {} unavailable: {}", modelId, e.getMessage());
+            return false;
+        }
+    }
+
+    /** Embed one text. */
+    public float[] embed(String text) throws IOException {
+        return embed(List.of(text)).get(0);
+    }
+
+    /** Embed texts in batches; returns one unit-length vector per input, in order. */
+    public List<float[]> embed(List<String> texts) throws IOException {
+        if (!isAvailable()) {
+            throw new IOException("Embedding model unavailable: " + failure);
+        }
+        List<float[]> out = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i += BATCH_SIZE) {
+            out.addAll(embedBatch(texts.subList(i, Math.min(texts.size(), i + BATCH_SIZE))));
+        }
+        return out;
+    }
+
+    private List<float[]> embedBatch(List<String> texts) throws IOException {
+        int batch = texts.size();
+        long[][] encoded = new long[batch][];
+        int seq = 0;
+        for (int i = 0; i < batch; i++) {
+            encoded[i] = tokenizer.encode(texts.get(i), maxTokens);
+            seq = Math.max(seq, encoded[i].length);
+        }
+        long[] ids = new long[batch * seq];
+        long[] mask = new long[batch * seq];
+        long[] types = new long[batch * seq];
+        Arrays.fill(ids, tokenizer.padId());
+        for (int i = 0; i < batch; i++) {
+            System.arraycopy(encoded[i], 0, ids, i * seq, encoded[i].length);
+            Arrays.fill(mask, i * seq, i * seq + encoded[i].length, 1L);
+        }
+
+        try (OnnxSessionRegistry.Lease lease = sessions.acquire(modelDir, modelFile)) {
+            OrtSession session = lease.session();
+            OrtEnvironment env = lease.environment();
+            long[] shape = {batch, seq};
+            Map<String, OnnxTensor> inputs = new HashMap<>();
+            try {
+                for (String name : session.getInputNames()) {
+                    long[] data = name.contains("mask") ? mask : name.contains("type") ? types : ids;
+                    inputs.put(name, OnnxTensor.createTensor(env, LongBuffer.wrap(data), shape));
+                }
+                try (OrtSession.Result result = session.run(inputs)) {
+                    OnnxTensor output = (OnnxTensor) result.get(0);
+                    return pool(output.getFloatBuffer(), output.getInfo().getShape(), mask, batch, seq);
+                }
+            } finally {
+                inputs.values().forEach(OnnxTensor::close);
+            }
+        } catch (OrtException e) {
+            throw new IOException("Embedding failed: " + e.getMessage(), e);
+        }
+    }
+
+    /** Mean-pool token states ([batch, seq, dim]) over the mask, or take pooled output ([batch, dim]) as is. */
+    private static List<float[]> pool(FloatBuffer data, long[] shape, long[] mask, int batch, int seq) {
+        List<float[]> out = new ArrayList<>(batch);
+        if (shape.length == 2) {
+            int dim = (int) shape[1];
+            for (int b = 0; b < batch; b++) {
+                float[] v = new float[dim];
+                data.get(b * dim, v);
+                out.add(normalize(v));
+            }
+            return out;
+        }
+        int dim = (int) shape[2];
+        for (int b = 0; b < batch; b++) {
+            float[] v = new float[dim];
+            int count = 0;
+            for (int t = 0; t < seq; t++) {
+                if (mask[b * seq + t] == 0) continue;
+                count++;
+                int base = (b * seq + t) * dim;
+                for (int d = 0; d < dim; d++) v[d] += data.get(base + d);
+            }
+            if (count > 0) {
+                for (int d = 0; d < dim; d++) v[d] /= count;
+            }
+            out.add(normalize(v));
+        }
+        return out;
+    }
+
+    private static float[] normalize(float[] v) {
+        double norm = 0;
+        for (float x : v) norm += x * x;
+        norm = Math.sqrt(norm);
+        if (norm > 0) {
+            for (int i = 0; i < v.length; i++) v[i] /= (float) norm;
+        }
+        return v;
+    }
+}
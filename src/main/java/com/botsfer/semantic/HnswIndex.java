@@ -0,0 +1,296 @@
+package com.botsfer.semantic;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Hierarchical navigable small-world graph over unit vectors, scored by dot product (cosine).
+ * Nodes are numbered in insertion order; removal only marks a node deleted so the graph stays
+ * navigable, and {@link #deletedRatio()} tells the owner when a rebuild is worthwhile.
+ * <p>
+ * Not thread-safe, searches included (they share a visited-marks array): the owner serializes all access.
+ */
+final class HnswIndex {
+
+    private static final int M = 16;
+    private static final int M_MAX0 = 2 * M;
+    private static final int EF_CONSTRUCTION = 100;
+    private static final double LEVEL_MULT = 1 / Math.log(M);
+
+    private final int dim;
+    private final List<Node> nodes = new ArrayList<>();
+    private final Random random = new Random(42);
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int deleted;
+    private int[] visitedStamp = new int[0];
+    private int stamp;
+
+    HnswIndex(int dim) {
+        this.dim = dim;
+    }
+
+    int dim() {
+        return dim;
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    int liveSize() {
+        return nodes.size() - deleted;
+    }
+
+    double deletedRatio() {
+        return nodes.isEmpty() ? 0 : (double) deleted / nodes.size();
+    }
+
+    float[] vector(int id) {
+        return nodes.get(id).vector;
+    }
+
+    boolean isDeleted(int id) {
+        return nodes.get(id).deleted;
+    }
+
+    void markDeleted(int id) {
+        Node n = nodes.get(id);
+        if (!n.deleted) {
+            n.deleted = true;
+            deleted++;
+        }
+    }
+
+    /** Insert a unit vector; returns its node id. */
+    int add(float[] vector) {
+        if (vector.length != dim) throw new IllegalArgumentException("Expected dimension " + dim + ", got " + vector.length);
+        int level = (int) (-Math.log(1 - random.nextDouble()) * LEVEL_MULT);
+        Node node = new Node(vector, level);
+        nodes.add(node);
+        int id = nodes.size() - 1;
+        if (entryPoint < 0) {
+            entryPoint = id;
+            maxLevel = level;
+            return id;
+        }
+
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(vector, current, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> found = searchLayer(vector, current, EF_CONSTRUCTION, l);
+            int cap = l == 0 ? M_MAX0 : M;
+            for (Candidate c : selectNeighbors(found, M)) {
+                link(id, c.id, l, cap);
+                link(c.id, id, l, cap);
+            }
+            current = found.get(0).id;
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = id;
+        }
+        return id;
+    }
+
+    /** Up to {@code k} live nodes closest to {@code query}, best first. */
+    List<Candidate> search(float[] query, int k, int ef) {
+        if (entryPoint < 0 || liveSize() == 0) return List.of();
+        int current = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            current = greedyClosest(query, current, l);
+        }
+        List<Candidate> found = searchLayer(query, current, Math.max(ef, k), 0);
+        List<Candidate> out = new ArrayList<>(k);
+        for (Candidate c : found) {
+            if (nodes.get(c.id).deleted) continue;
+            out.add(c);
+            if (out.size() == k) break;
+        }
+        return out;
+    }
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int best = start;
+        float bestScore = dot(query, nodes.get(start).vector);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            Node n = nodes.get(best);
+            for (int i = 0; i < n.counts[level]; i++) {
+                int next = n.links[level][i];
+                float s = dot(query, nodes.get(next).vector);
+                if (s > bestScore) {
+                    bestScore = s;
+                    best = next;
+                    improved = true;
+                }
+            }
+        }
+        return best;
+    }
+
+    /** Beam search on one layer; returns up to {@code ef} candidates, best first. */
+    private List<Candidate> searchLayer(float[] query, int start, int ef, int level) {
+        if (visitedStamp.length < nodes.size()) {
+            visitedStamp = Arrays.copyOf(visitedStamp, Math.max(nodes.size(), visitedStamp.length * 2));
+        }
+        if (++stamp == 0) {
+            Arrays.fill(visitedStamp, 0);
+            stamp = 1;
+        }
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(Comparator.comparingDouble((Candidate c) -> c.score).reversed());
+        PriorityQueue<Candidate> best = new PriorityQueue<>(Comparator.comparingDouble(c -> c.score));
+        Candidate first = new Candidate(start, dot(query, nodes.get(start).vector));
+        visitedStamp[start] = stamp;
+        frontier.add(first);
+        best.add(first);
+
+        while (!frontier.isEmpty()) {
+            Candidate c = frontier.poll();
+            if (best.size() >= ef && c.score < best.peek().score) break;
+            Node n = nodes.get(c.id);
+            if (level > n.level) continue;
+            for (int i = 0; i < n.counts[level]; i++) {
+                int next = n.links[level][i];
+                if (visitedStamp[next] == stamp) continue;
+                visitedStamp[next] = stamp;
+                float s = dot(query, nodes.get(next).vector);
+                if (best.size() < ef || s > best.peek().score) {
+                    Candidate cand = new Candidate(next, s);
+                    frontier.add(cand);
+                    best.add(cand);
+                    if (best.size() > ef) best.poll();
+                }
+            }
+        }
+        List<Candidate> out = new ArrayList<>(best);
+        out.sort(Comparator.comparingDouble((Candidate c) -> c.score).reversed());
+        return out;
+    }
+
+    /**
+     * Neighbor selection heuristic: keep a candidate only if it is closer to the new node than to
+     * any neighbor already kept, which spreads links across clusters; fill up with the rest.
+     */
+    private List<Candidate> selectNeighbors(List<Candidate> candidates, int m) {
+        List<Candidate> kept = new ArrayList<>(m);
+        List<Candidate> skipped = new ArrayList<>();
+        for (Candidate c : candidates) {
+            if (kept.size() >= m) break;
+            boolean diverse = true;
+            for (Candidate k : kept) {
+                if (dot(nodes.get(c.id).vector, nodes.get(k.id).vector) > c.score) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) kept.add(c); else skipped.add(c);
+        }
+        for (int i = 0; kept.size() < m && i < skipped.size(); i++) kept.add(skipped.get(i));
+        return kept;
+    }
+
+    /** Add {@code to} to {@code from}'s links, dropping the weakest link when over capacity. */
+    private void link(int from, int to, int level, int cap) {
+        Node n = nodes.get(from);
+        if (level > n.level) return;
+        int[] links = n.links[level];
+        int count = n.counts[level];
+        for (int i = 0; i < count; i++) {
+            if (links[i] == to) return;
+        }
+        if (count < cap) {
+            if (count == links.length) {
+                links = n.links[level] = Arrays.copyOf(links, Math.min(cap, Math.max(4, links.length * 2)));
+            }
+            links[count] = to;
+            n.counts[level] = count + 1;
+            return;
+        }
+        int weakest = -1;
+        float weakestScore = dot(n.vector, nodes.get(to).vector);
+        for (int i = 0; i < count; i++) {
+            float s = dot(n.vector, nodes.get(links[i]).vector);
+            if (s < weakestScore) {
+                weakestScore = s;
+                weakest = i;
+            }
+        }
+        if (weakest >= 0) links[weakest] = to;
+    }
+
+    static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+
+    // ─── Persistence ────────────────────────────────────────────────────────
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(dim);
+        out.writeInt(nodes.size());
+        out.writeInt(entryPoint);
+        out.writeInt(maxLevel);
+        for (Node n : nodes) {
+            out.writeBoolean(n.deleted);
+            for (float f : n.vector) out.writeFloat(f);
+            out.writeInt(n.level);
+            for (int l = 0; l <= n.level; l++) {
+                out.writeInt(n.counts[l]);
+                for (int i = 0; i < n.counts[l]; i++) out.writeInt(n.links[l][i]);
+            }
+        }
+    }
+
+    static HnswIndex read(DataInputStream in) throws IOException {
+        HnswIndex index = new HnswIndex(in.readInt());
+        int count = in.readInt();
+        index.entryPoint = in.readInt();
+        index.maxLevel = in.readInt();
+        for (int id = 0; id < count; id++) {
+            boolean deleted = in.readBoolean();
+            float[] vector = new float[index.dim];
+            for (int d = 0; d < vector.length; d++) vector[d] = in.readFloat();
+            Node n = new Node(vector, in.readInt());
+            for (int l = 0; l <= n.level; l++) {
+                int c = in.readInt();
+                n.links[l] = new int[Math.max(4, c)];
+                for (int i = 0; i < c; i++) n.links[l][i] = in.readInt();
+                n.counts[l] = c;
+            }
+            n.deleted = deleted;
+            if (deleted) index.deleted++;
+            index.nodes.add(n);
+        }
+        return index;
+    }
+
+    record Candidate(int id, float score) {}
+
+    private static final class Node {
+        final float[] vector;
+        final int level;
+        final int[][] links;
+        final int[] counts;
+        boolean deleted;
+
+        Node(float[] vector, int level) {
+            this.vector = vector;
+            this.level = level;
+            this.links = new int[level + 1][];
+            this.counts = new int[level + 1];
+            for (int l = 0; l <= level; l++) links[l] = new int[4];
+        }
+    }
+}
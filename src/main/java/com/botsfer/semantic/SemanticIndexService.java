@@ -0,0 +1,519 @@
+package com.botsfer.semantic;
+
+import com.botsfer.memory.MemoryConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Vector index over chat history, saved notes and directive findings, persisted to
+ * {@code ~/botsfer_data/semantic_index/index.bin}. Writers ({@code TranscriptService},
+ * {@code MemoryService}, {@code DirectiveDataTools}) only enqueue documents; a single indexer
+ * thread chunks and embeds them in batches and adds them to an HNSW graph, so saving never waits
+ * on the model. On startup (and whenever the model was unavailable) anything on disk that is
+ * missing or changed since the last run is indexed in the background.
+ */
+@Service
+public class SemanticIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(SemanticIndexService.class);
+    private static final Path BASE_DIR = Paths.get(System.getProperty("user.home"), "botsfer_data");
+    private static final Path INDEX_FILE = BASE_DIR.resolve("semantic_index").resolve("index.bin");
+    private static final int FORMAT_VERSION = 1;
+    private static final int CHUNK_CHARS = 1000;
+    private static final int MAX_BATCH_DOCS = 128;
+    private static final int SEARCH_EF = 96;
+    private static final Pattern CHAT_PREFIX = Pattern.compile("^\\[[^]]+] ");
+
+    public static final String SOURCE_CHAT = "chat";
+    public static final String SOURCE_NOTE = "note";
+    public static final String SOURCE_FINDING = "finding";
+
+    @Value("${app.semantic.enabled:true}")
+    private boolean enabled;
+    /** How many of the newest daily chat history files are indexed on first run. */
+    @Value("${app.semantic.backfill-days:30}")
+    private int backfillDays;
+
+    private final EmbeddingService embeddings;
+    private final MemoryConfig.MemoryProperties memoryProperties;
+
+    private final ConcurrentLinkedQueue<Doc> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService indexer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "semantic-indexer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Guards everything below. Held for graph updates and searches, never while embedding. */
+    private final Object lock = new Object();
+    private HnswIndex index;
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final Map<String, List<Integer>> docNodes = new HashMap<>();
+    private final Map<String, String> docHashes = new HashMap<>();
+    private boolean dirty;
+    private volatile boolean backfillPending = true;
+
+    public SemanticIndexService(EmbeddingService embeddings, MemoryConfig.MemoryProperties memoryProperties) {
+        this.embeddings = embeddings;
+        this.memoryProperties = memoryProperties;
+    }
+
+    /** A stored chunk: the document it came from and the text shown in results. */
+    private record Chunk(String docId, String source, String ref, String text) {}
+
+    /** A document waiting to be (re)indexed. Null text removes it. */
+    private record Doc(String docId, String source, String ref, String text) {}
+
+    /** A search result; score is cosine similarity (higher is closer). */
+    public record Hit(String source, String ref, String text, float score) {}
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) return;
+        indexer.execute(this::loadIndex);
+        indexer.schedule(this::backfill, 5, TimeUnit.SECONDS);
+        indexer.scheduleWithFixedDelay(() -> {
+            if (backfillPending) backfill();
+            saveIfDirty();
+        }, 30, 30, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexer.shutdownNow();
+        saveIfDirty();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // ─── Writers ────────────────────────────────────────────────────────────
+
+    /** Index one line as written to a chat_history_*.dat file. */
+    public void indexChatLine(String historyFile, String line) {
+        if (line == null || line.isBlank()) return;
+        submit(new Doc(SOURCE_CHAT + ":" + sha256(line).substring(0, 24), SOURCE_CHAT, historyFile, line.strip()));
+    }
+
+    /** Index (or re-index) a saved note. */
+    public void indexNote(String key, String value) {
+        submit(new Doc(SOURCE_NOTE + ":" + key, SOURCE_NOTE, key, value == null ? "" : value));
+    }
+
+    public void removeNote(String key) {
+        submit(new Doc(SOURCE_NOTE + ":" + key, SOURCE_NOTE, key, null));
+    }
+
+    /** Index a finding file from a directive folder. */
+    public void indexFinding(Path file, String content) {
+        String ref = BASE_DIR.relativize(file.toAbsolutePath()).toString().replace('\\', '/');
+        submit(new Doc(SOURCE_FINDING + ":" + ref, SOURCE_FINDING, ref, content));
+    }
+
+    private void submit(Doc doc) {
+        if (!enabled) return;
+        pending.add(doc);
+        if (drainScheduled.compareAndSet(false, true)) {
+            indexer.execute(this::drain);
+        }
+    }
+
+    // ─── Search ─────────────────────────────────────────────────────────────
+
+    /**
+     * Closest chunks to {@code query}, at most one per document.
+     *
+     * @param source chat, note or finding to restrict results, or null for all
+     */
+    public List<Hit> search(String query, int limit, String source) throws IOException {
+        if (!enabled) throw new IOException("Semantic search is disabled (app.semantic.enabled=false)");
+        float[] q = embeddings.embed(query);
+        synchronized (lock) {
+            if (index == null) return List.of();
+            int want = source == null ? limit * 3 : limit * 10;
+            List<Hit> hits = new ArrayList<>(limit);
+            Set<String> seenDocs = new HashSet<>();
+            for (HnswIndex.Candidate c : index.search(q, want, Math.max(SEARCH_EF, want))) {
+                Chunk chunk = chunks.get(c.id());
+                if (source != null && !source.equals(chunk.source())) continue;
+                if (!seenDocs.add(chunk.docId())) continue;
+                hits.add(new Hit(chunk.source(), chunk.ref(), chunk.text(), c.score()));
+                if (hits.size() == limit) break;
+            }
+            return hits;
+        }
+    }
+
+    /** Short status line: size and model, or why search is unavailable. */
+    public String status() {
+        if (!enabled) return "disabled";
+        synchronized (lock) {
+            int size = index == null ? 0 : index.liveSize();
+            String model = embeddings.unavailableReason() == null
+                    ? embeddings.modelId() : "unavailable (" + embeddings.unavailableReason() + ")";
+            return size + " chunks from " + docHashes.size() + " documents, model " + model
+                    + (pending.isEmpty() ? "" : ", " + pending.size() + " queued");
+        }
+    }
+
+    // ─── Indexer thread ─────────────────────────────────────────────────────
+
+    private void drain() {
+        drainScheduled.set(false);
+        while (!pending.isEmpty()) {
+            if (!embeddings.isAvailable()) {
+                // Anything dropped here is still on disk and is picked up by the next backfill.
+                pending.clear();
+                backfillPending = true;
+                return;
+            }
+            if (!indexBatch()) return;
+        }
+    }
+
+    /** Embed and add up to {@link #MAX_BATCH_DOCS} queued documents. Returns false if embedding failed. */
+    private boolean indexBatch() {
+        Map<String, Doc> batch = new HashMap<>();
+        for (Doc d; batch.size() < MAX_BATCH_DOCS && (d = pending.poll()) != null; ) {
+            batch.put(d.docId(), d); // later writes of the same document win
+        }
+        List<Doc> toEmbed = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        List<String> hashes = new ArrayList<>();
+        synchronized (lock) {
+            for (Doc d : batch.values()) {
+                if (d.text() == null) {
+                    removeDoc(d.docId());
+                    continue;
+                }
+                String hash = sha256(d.text());
+                if (hash.equals(docHashes.get(d.docId()))) continue;
+                toEmbed.add(d);
+                hashes.add(hash);
+            }
+        }
+        List<List<String>> docChunks = new ArrayList<>();
+        for (int i = 0; i < toEmbed.size(); i++) {
+            Doc d = toEmbed.get(i);
+            List<String> parts = SOURCE_CHAT.equals(d.source()) ? List.of(d.text()) : chunk(d.text());
+            docChunks.add(parts);
+            for (String part : parts) {
+                texts.add(SOURCE_CHAT.equals(d.source()) ? CHAT_PREFIX.matcher(part).replaceFirst("") : part);
+                owners.add(i);
+            }
+        }
+        if (texts.isEmpty()) return true;
+
+        List<float[]> vectors;
+        try {
+            long start = System.currentTimeMillis();
+            vectors = embeddings.embed(texts);
+            log.debug("[Semantic] Embedded {} chunks from {} documents in {}ms",
+                    texts.size(), toEmbed.size(), System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            log.warn("[Semantic] Indexing failed: {}", e.getMessage());
+            pending.clear();
+            backfillPending = true;
+            return false;
+        }
+
+        synchronized (lock) {
+            if (index == null) index = new HnswIndex(vectors.get(0).length);
+            int v = 0;
+            for (int i = 0; i < toEmbed.size(); i++) {
+                Doc d = toEmbed.get(i);
+                removeDoc(d.docId());
+                List<Integer> ids = new ArrayList<>();
+                for (String part : docChunks.get(i)) {
+                    int id = index.add(vectors.get(v++));
+                    chunks.add(new Chunk(d.docId(), d.source(), d.ref(), part));
+                    ids.add(id);
+                }
+                docNodes.put(d.docId(), ids);
+                docHashes.put(d.docId(), hashes.get(i));
+            }
+            dirty = true;
+            if (index.size() > 1000 && index.deletedRatio() > 0.3) compact();
+        }
+        return true;
+    }
+
+    private void removeDoc(String docId) {
+        List<Integer> ids = docNodes.remove(docId);
+        docHashes.remove(docId);
+        if (ids == null || index == null) return;
+        ids.forEach(index::markDeleted);
+        dirty = true;
+    }
+
+    /** Rebuild the graph from live nodes once too many deleted ones slow searches down. */
+    private void compact() {
+        long start = System.currentTimeMillis();
+        HnswIndex fresh = new HnswIndex(index.dim());
+        List<Chunk> freshChunks = new ArrayList<>();
+        docNodes.clear();
+        for (int id = 0; id < index.size(); id++) {
+            if (index.isDeleted(id)) continue;
+            int newId = fresh.add(index.vector(id));
+            Chunk c = chunks.get(id);
+            freshChunks.add(c);
+            docNodes.computeIfAbsent(c.docId(), k -> new ArrayList<>()).add(newId);
+        }
+        log.info("[Semantic] Compacted index {} -> {} nodes in {}ms",
+                index.size(), fresh.size(), System.currentTimeMillis() - start);
+        index = fresh;
+        chunks.clear();
+        chunks.addAll(freshChunks);
+    }
+
+    /** Queue everything on disk that is not indexed yet or changed since it was indexed. */
+    private void backfill() {
+        if (!embeddings.isAvailable()) {
+            backfillPending = true;
+            return;
+        }
+        backfillPending = false;
+        int queued = 0;
+        try {
+            queued += backfillChat();
+            queued += backfillNotes();
+            queued += backfillFindings();
+        } catch (IOException e) {
+            log.warn("[Semantic] Backfill failed: {}", e.getMessage());
+        }
+        if (queued > 0) {
+            log.info("[Semantic] Backfill queued {} documents", queued);
+            drain();
+        }
+    }
+
+    private int backfillChat() throws IOException {
+        Path historyDir = BASE_DIR.resolve("botsfer_history");
+        if (!Files.isDirectory(historyDir)) return 0;
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(historyDir, "chat_history_*.dat")) {
+            stream.forEach(files::add);
+        }
+        files.sort((a, b) -> b.getFileName().toString().compareTo(a.getFileName().toString()));
+        int queued = 0;
+        for (Path file : files.subList(0, Math.min(backfillDays, files.size()))) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) continue;
+                String docId = SOURCE_CHAT + ":" + sha256(line).substring(0, 24);
+                boolean known;
+                synchronized (lock) {
+                    known = docHashes.containsKey(docId);
+                }
+                if (!known) {
+                    pending.add(new Doc(docId, SOURCE_CHAT, file.getFileName().toString(), line.strip()));
+                    queued++;
+                }
+            }
+        }
+        return queued;
+    }
+
+    private int backfillNotes() throws IOException {
+        if (!memoryProperties.isEnabled()) return 0;
+        Path memoryDir = Paths.get(memoryProperties.getBasePath()).toAbsolutePath();
+        if (!Files.isDirectory(memoryDir)) return 0;
+        Set<String> present = new HashSet<>();
+        int queued = 0;
+        try (Stream<Path> stream = Files.list(memoryDir)) {
+            for (Path file : stream.filter(Files::isRegularFile).toList()) {
+                String key = file.getFileName().toString();
+                if (key.equals(".gitkeep")) continue;
+                present.add(SOURCE_NOTE + ":" + key);
+                queued += queueIfChanged(new Doc(SOURCE_NOTE + ":" + key, SOURCE_NOTE, key,
+                        Files.readString(file, StandardCharsets.UTF_8)));
+            }
+        }
+        synchronized (lock) {
+            for (String docId : new ArrayList<>(docHashes.keySet())) {
+                if (docId.startsWith(SOURCE_NOTE + ":") && !present.contains(docId)) removeDoc(docId);
+            }
+        }
+        return queued;
+    }
+
+    private int backfillFindings() throws IOException {
+        if (!Files.isDirectory(BASE_DIR)) return 0;
+        int queued = 0;
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(BASE_DIR, "directive_*")) {
+            for (Path dir : dirs) {
+                if (!Files.isDirectory(dir)) continue;
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.{txt,md}")) {
+                    for (Path file : files) {
+                        String ref = BASE_DIR.relativize(file.toAbsolutePath()).toString().replace('\\', '/');
+                        queued += queueIfChanged(new Doc(SOURCE_FINDING + ":" + ref, SOURCE_FINDING, ref,
+                                Files.readString(file, StandardCharsets.UTF_8)));
+                    }
+                }
+            }
+        }
+        return queued;
+    }
+
+    private int queueIfChanged(Doc doc) {
+        synchronized (lock) {
+            if (sha256(doc.text()).equals(docHashes.get(doc.docId()))) return 0;
+        }
+        pending.add(doc);
+        return 1;
+    }
+
+    /** Split on paragraph, then sentence, boundaries into pieces of at most {@link #CHUNK_CHARS}. */
+    static List<String> chunk(String text) {
+        List<String> out = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String para : text.split("\\n\\s*\\n")) {
+            String p = para.strip();
+            if (p.isEmpty()) continue;
+            if (current.length() > 0 && current.length() + p.length() + 2 > CHUNK_CHARS) {
+                out.add(current.toString());
+                current.setLength(0);
+            }
+            while (p.length() > CHUNK_CHARS) {
+                int cut = p.lastIndexOf(". ", CHUNK_CHARS);
+                if (cut < CHUNK_CHARS / 2) cut = p.lastIndexOf(' ', CHUNK_CHARS);
+                if (cut < CHUNK_CHARS / 2) cut = CHUNK_CHARS - 1;
+                if (current.length() > 0) {
+                    out.add(current.toString());
+                    current.setLength(0);
+                }
+                out.add(p.substring(0, cut + 1).strip());
+                p = p.substring(cut + 1).strip();
+            }
+            if (current.length() > 0) current.append("\n\n");
+            current.append(p);
+        }
+        if (current.length() > 0) out.add(current.toString());
+        if (out.isEmpty()) out.add(text.strip());
+        return out;
+    }
+
+    // ─── Persistence ────────────────────────────────────────────────────────
+
+    private void loadIndex() {
+        if (!Files.isRegularFile(INDEX_FILE)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(INDEX_FILE), 1 << 16))) {
+            if (in.readInt() != FORMAT_VERSION) return;
+            String model = in.readUTF();
+            if (!model.equals(embeddings.modelId())) {
+                log.info("[Semantic] Index was built with {}, rebuilding for {}", model, embeddings.modelId());
+                return;
+            }
+            HnswIndex loaded = HnswIndex.read(in);
+            List<Chunk> loadedChunks = new ArrayList<>(loaded.size());
+            for (int i = 0; i < loaded.size(); i++) {
+                loadedChunks.add(new Chunk(in.readUTF(), in.readUTF(), in.readUTF(), readText(in)));
+            }
+            Map<String, String> hashes = new HashMap<>();
+            int docs = in.readInt();
+            for (int i = 0; i < docs; i++) hashes.put(in.readUTF(), in.readUTF());
+            synchronized (lock) {
+                index = loaded;
+                chunks.clear();
+                chunks.addAll(loadedChunks);
+                docHashes.clear();
+                docHashes.putAll(hashes);
+                docNodes.clear();
+                for (int id = 0; id < loaded.size(); id++) {
+                    if (!loaded.isDeleted(id)) {
+                        docNodes.computeIfAbsent(loadedChunks.get(id).docId(), k -> new ArrayList<>()).add(id);
+                    }
+                }
+            }
+            log.info("[Semantic] Loaded index: {} chunks from {} documents", loaded.liveSize(), hashes.size());
+        } catch (Exception e) {
+            log.warn("[Semantic] Could not read {}, rebuilding: {}", INDEX_FILE, e.getMessage());
+        }
+    }
+
+    private void saveIfDirty() {
+        synchronized (lock) {
+            if (!dirty || index == null) return;
+            try {
+                Files.createDirectories(INDEX_FILE.getParent());
+                Path tmp = INDEX_FILE.resolveSibling(INDEX_FILE.getFileName() + ".tmp");
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                    out.writeInt(FORMAT_VERSION);
+                    out.writeUTF(embeddings.modelId());
+                    index.write(out);
+                    for (Chunk c : chunks) {
+                        out.writeUTF(c.docId());
+                        out.writeUTF(c.source());
+                        out.writeUTF(c.ref());
+                        writeText(out, c.text());
+                    }
+                    out.writeInt(docHashes.size());
+                    for (Map.Entry<String, String> e : docHashes.entrySet()) {
+                        out.writeUTF(e.getKey());
+                        out.writeUTF(e.getValue());
+                    }
+                }
+                Files.move(tmp, INDEX_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                dirty = false;
+            } catch (IOException e) {
+                log.warn("[Semantic] Failed to save index: {}", e.getMessage());
+            }
+        }
+    }
+
+    /** writeUTF is limited to 64 KB; chunk text is written as length-prefixed UTF-8 instead. */
+    private static void writeText(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.botsfer.semantic;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * BERT uncased WordPiece tokenizer driven by a {@code vocab.txt}: lower-case, strip accents,
+ * split on whitespace and punctuation, then greedy longest-match into sub-words ("##" prefix).
+ * This is what sentence-transformers MiniLM/BGE-style models expect as input.
+ */
+final class WordPieceTokenizer {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{Mn}+");
+    private static final int MAX_WORD_CHARS = 100;
+
+    private final Map<String, Integer> vocab;
+    private final int clsId;
+    private final int sepId;
+    private final int unkId;
+    private final int padId;
+
+    private WordPieceTokenizer(Map<String, Integer> vocab) {
+        this.vocab = vocab;
+        this.clsId = require(vocab, "[CLS]");
+        this.sepId = require(vocab, "[SEP]");
+        this.unkId = require(vocab, "[UNK]");
+        this.padId = vocab.getOrDefault("[PAD]", 0);
+    }
+
+    static WordPieceTokenizer load(Path vocabFile) throws IOException {
+        List<String> lines = Files.readAllLines(vocabFile, StandardCharsets.UTF_8);
+        Map<String, Integer> vocab = new HashMap<>(lines.size() * 2);
+        for (int i = 0; i < lines.size(); i++) {
+            vocab.putIfAbsent(lines.get(i).strip(), i);
+        }
+        return new WordPieceTokenizer(vocab);
+    }
+
+    private static int require(Map<String, Integer> vocab, String token) {
+        Integer id = vocab.get(token);
+        if (id == null) throw new IllegalArgumentException("vocab.txt has no " + token + " token");
+        return id;
+    }
+
+    int padId() {
+        return padId;
+    }
+
+    /** Token ids for {@code text} wrapped in [CLS] ... [SEP], truncated to {@code maxTokens}. */
+    long[] encode(String text, int maxTokens) {
+        List<Integer> ids = new ArrayList<>();
+        ids.add(clsId);
+        int limit = maxTokens - 1;
+        for (String word : basicTokenize(text)) {
+            for (int id : wordPiece(word)) {
+                if (ids.size() >= limit) break;
+                ids.add(id);
+            }
+            if (ids.size() >= limit) break;
+        }
+        ids.add(sepId);
+        long[] out = new long[ids.size()];
+        for (int i = 0; i < out.length; i++) out[i] = ids.get(i);
+        return out;
+    }
+
+    private static List<String> basicTokenize(String text) {
+        String normalized = MARKS.matcher(Normalizer.normalize(text.toLowerCase(), Normalizer.Form.NFD)).replaceAll("");
+        List<String> words = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        normalized.codePoints().forEach(cp -> {
+            if (cp == 0 || cp == 0xFFFD || (Character.isISOControl(cp) && !Character.isWhitespace(cp))) {
+                return;
+            }
+            if (Character.isWhitespace(cp)) {
+                flush(current, words);
+            } else if (isPunctuation(cp) || isCjk(cp)) {
+                flush(current, words);
+                words.add(new String(Character.toChars(cp)));
+            } else {
+                current.appendCodePoint(cp);
+            }
+        });
+        flush(current, words);
+        return words;
+    }
+
+    private static void flush(StringBuilder current, List<String> words) {
+        if (current.length() > 0) {
+            words.add(current.toString());
+            current.setLength(0);
+        }
+    }
+
+    private List<Integer> wordPiece(String word) {
+        if (word.length() > MAX_WORD_CHARS) return List.of(unkId);
+        List<Integer> pieces = new ArrayList<>();
+        int start = 0;
+        while (start < word.length()) {
+            int end = word.length();
+            Integer match = null;
+            while (start < end) {
+                String sub = word.substring(start, end);
+                if (start > 0) sub = "##" + sub;
+                match = vocab.get(sub);
+                if (match != null) break;
+                end--;
+            }
+            if (match == null) return List.of(unkId);
+            pieces.add(match);
+            start = end;
+        }
+        return pieces;
+    }
+
+    private static boolean isPunctuation(int cp) {
+        if ((cp >= 33 && cp <= 47) || (cp >= 58 && cp <= 64) || (cp >= 91 && cp <= 96) || (cp >= 123 && cp <= 126)) {
+            return true;
+        }
+        int type = Character.getType(cp);
+        return type == Character.CONNECTOR_PUNCTUATION || type == Character.DASH_PUNCTUATION
+                || type == Character.START_PUNCTUATION || type == Character.END_PUNCTUATION
+                || type == Character.INITIAL_QUOTE_PUNCTUATION || type == Character.FINAL_QUOTE_PUNCTUATION
+                || type == Character.OTHER_PUNCTUATION;
+    }
+
+    private static boolean isCjk(int cp) {
+        return (cp >= 0x4E00 && cp <= 0x9FFF) || (cp >= 0x3400 && cp <= 0x4DBF) || (cp >= 0x20000 && cp <= 0x2A6DF)
+                || (cp >= 0xF900 && cp <= 0xFAFF) || (cp >= 0x2F800 && cp <= 0x2FA1F);
+    }
+}
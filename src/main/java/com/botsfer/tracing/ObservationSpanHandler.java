@@ -0,0 +1,48 @@
+package com.botsfer.tracing;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns Spring AI's Micrometer observations (chat client call, advisors, each model round-trip)
+ * into spans, so model latency and token usage show up in the trace of the request that caused
+ * them. Other observations (HTTP server, etc.) are ignored.
+ */
+@Component
+public class ObservationSpanHandler implements ObservationHandler<Observation.Context> {
+
+    private final Tracer tracer;
+
+    public ObservationSpanHandler(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return context.getClass().getName().startsWith("org.springframework.ai.");
+    }
+
+    @Override
+    public void onStart(Observation.Context context) {
+        String name = context.getContextualName() != null ? context.getContextualName() : context.getName();
+        context.put(Span.class, tracer.start(name));
+    }
+
+    @Override
+    public void onError(Observation.Context context) {
+        Span span = context.get(Span.class);
+        if (span != null && context.getError() != null) span.error(context.getError());
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        Span span = context.get(Span.class);
+        if (span == null) return;
+        span.rename(context.getContextualName());
+        for (KeyValue kv : context.getLowCardinalityKeyValues()) span.attr(kv.getKey(), kv.getValue());
+        for (KeyValue kv : context.getHighCardinalityKeyValues()) span.attr(kv.getKey(), kv.getValue());
+        span.close();
+    }
+}
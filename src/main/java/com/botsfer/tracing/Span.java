@@ -0,0 +1,72 @@
+package com.botsfer.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One timed operation inside a trace. Opened with {@link Tracer#start}, closed with
+ * {@link #close()} (try-with-resources); while open it is the parent of spans started on the
+ * same thread.
+ */
+public final class Span implements AutoCloseable {
+
+    /** Returned when tracing is disabled; every method is a no-op. */
+    static final Span NOOP = new Span(null, null, null, "noop", null);
+
+    final Tracer tracer;
+    final Tracer.Trace trace;
+    final Span parent;
+    final String id;
+    volatile String name;
+    final String thread = Thread.currentThread().getName();
+    final long startEpochMs = System.currentTimeMillis();
+    final long startNanos = System.nanoTime();
+    private final Map<String, String> attributes = new LinkedHashMap<>();
+    volatile long durationNanos = -1;
+    volatile String error;
+
+    Span(Tracer tracer, Tracer.Trace trace, Span parent, String name, String id) {
+        this.tracer = tracer;
+        this.trace = trace;
+        this.parent = parent;
+        this.name = name;
+        this.id = id;
+    }
+
+    public Span attr(String key, Object value) {
+        if (this == NOOP || value == null) return this;
+        String s = value.toString();
+        synchronized (attributes) {
+            attributes.put(key, s.length() > 200 ? s.substring(0, 200) + "..." : s);
+        }
+        return this;
+    }
+
+    /** For names only known once the operation has run (e.g. the model that answered). */
+    public Span rename(String newName) {
+        if (this != NOOP && newName != null && !newName.isBlank()) name = newName;
+        return this;
+    }
+
+    public Span error(Throwable t) {
+        if (this != NOOP) error = t.getClass().getSimpleName() + ": " + t.getMessage();
+        return this;
+    }
+
+    Map<String, String> attributes() {
+        synchronized (attributes) {
+            return new LinkedHashMap<>(attributes);
+        }
+    }
+
+    boolean isRoot() {
+        return parent == null;
+    }
+
+    @Override
+    public void close() {
+        if (this == NOOP || durationNanos >= 0) return;
+        durationNanos = System.nanoTime() - startNanos;
+        tracer.end(this);
+    }
+}
@@ -0,0 +1,212 @@
+package com.botsfer.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * In-process span tracing. A span started while another is open on the same thread becomes its
+ * child; a span started with none open begins a new trace. When a trace's root span closes, the
+ * trace is kept for the dashboard and appended as one JSON line to
+ * {@code ~/botsfer_data/traces/traces-<date>.jsonl}.
+ * <p>
+ * Work handed to other threads keeps its parent through {@link #propagate}.
+ */
+@Component
+public class Tracer {
+
+    private static final Logger log = LoggerFactory.getLogger(Tracer.class);
+    private static final Path TRACE_DIR = Paths.get(System.getProperty("user.home"), "botsfer_data", "traces");
+    /** Bound per trace, so a runaway loop can't grow one without limit. */
+    private static final int MAX_SPANS_PER_TRACE = 2000;
+
+    @Value("${app.tracing.enabled:true}")
+    private boolean enabled;
+    @Value("${app.tracing.recent-traces:100}")
+    private int recentLimit;
+    @Value("${app.tracing.retention-days:7}")
+    private int retentionDays;
+
+    private final ThreadLocal<Span> current = new ThreadLocal<>();
+    private final Deque<Trace> recent = new ArrayDeque<>();
+    private final AtomicLong spanIds = new AtomicLong();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService exporter = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "trace-exporter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Spans of one trace, in start order. */
+    static final class Trace {
+        final String id;
+        final List<Span> spans = new ArrayList<>();
+        int dropped;
+
+        Trace(String id) {
+            this.id = id;
+        }
+
+        synchronized boolean add(Span span) {
+            if (spans.size() >= MAX_SPANS_PER_TRACE) {
+                dropped++;
+                return false;
+            }
+            spans.add(span);
+            return true;
+        }
+
+        synchronized List<Span> snapshot() {
+            return new ArrayList<>(spans);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) return;
+        exporter.execute(this::deleteOldFiles);
+    }
+
+    /** Open a span as a child of this thread's current span (or as a new trace). Close it when done. */
+    public Span start(String name) {
+        if (!enabled) return Span.NOOP;
+        Span parent = current.get();
+        Trace trace = parent != null ? parent.trace : new Trace(Long.toHexString(ThreadLocalRandom.current().nextLong()));
+        Span span = new Span(this, trace, parent, name, Long.toHexString(spanIds.incrementAndGet()));
+        trace.add(span);
+        current.set(span);
+        return span;
+    }
+
+    /** The span open on this thread, or null. */
+    public Span current() {
+        return current.get();
+    }
+
+    /** Wrap a task so spans it opens on another thread are children of the caller's current span. */
+    public <T> Supplier<T> propagate(Supplier<T> task) {
+        Span parent = current.get();
+        if (parent == null) return task;
+        return () -> {
+            Span previous = current.get();
+            current.set(parent);
+            try {
+                return task.get();
+            } finally {
+                if (previous == null) current.remove(); else current.set(previous);
+            }
+        };
+    }
+
+    void end(Span span) {
+        // Restore the parent only when closed where it was opened (the normal, nested case)
+        if (current.get() == span) {
+            if (span.parent == null) current.remove(); else current.set(span.parent);
+        }
+        if (span.isRoot()) {
+            Trace trace = span.trace;
+            synchronized (recent) {
+                recent.addFirst(trace);
+                while (recent.size() > recentLimit) recent.removeLast();
+            }
+            exporter.execute(() -> export(trace));
+        }
+    }
+
+    // ─── Export / views ─────────────────────────────────────────────────────
+
+    /** Most recent finished traces, newest first, as plain maps (for JSON and the dashboard). */
+    public List<Map<String, Object>> recentTraces(int limit) {
+        List<Trace> traces;
+        synchronized (recent) {
+            traces = new ArrayList<>(recent);
+        }
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (Trace t : traces) {
+            if (out.size() >= limit) break;
+            out.add(toMap(t));
+        }
+        return out;
+    }
+
+    private Map<String, Object> toMap(Trace trace) {
+        List<Span> spans = trace.snapshot();
+        Span root = spans.get(0);
+        Map<String, Integer> depth = new HashMap<>();
+        List<Map<String, Object>> spanMaps = new ArrayList<>(spans.size());
+        for (Span s : spans) {
+            int d = s.parent == null ? 0 : depth.getOrDefault(s.parent.id, 0) + 1;
+            depth.put(s.id, d);
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("id", s.id);
+            m.put("parent", s.parent == null ? null : s.parent.id);
+            m.put("name", s.name);
+            m.put("depth", d);
+            m.put("offsetMs", (s.startNanos - root.startNanos) / 1_000_000.0);
+            m.put("durationMs", s.durationNanos < 0 ? null : s.durationNanos / 1_000_000.0);
+            m.put("thread", s.thread);
+            Map<String, String> attrs = s.attributes();
+            if (!attrs.isEmpty()) m.put("attributes", attrs);
+            if (s.error != null) m.put("error", s.error);
+            spanMaps.add(m);
+        }
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("traceId", trace.id);
+        out.put("name", root.name);
+        out.put("start", Instant.ofEpochMilli(root.startEpochMs).toString());
+        out.put("durationMs", root.durationNanos / 1_000_000.0);
+        out.put("spanCount", spans.size());
+        if (trace.dropped > 0) out.put("droppedSpans", trace.dropped);
+        out.put("spans", spanMaps);
+        return out;
+    }
+
+    private void export(Trace trace) {
+        try {
+            Files.createDirectories(TRACE_DIR);
+            Path file = TRACE_DIR.resolve("traces-" + LocalDate.now() + ".jsonl");
+            Files.writeString(file, objectMapper.writeValueAsString(toMap(trace)) + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.debug("[Tracing] Could not write trace: {}", e.getMessage());
+        }
+    }
+
+    private void deleteOldFiles() {
+        if (!Files.isDirectory(TRACE_DIR)) return;
+        Instant cutoff = Instant.now().minus(retentionDays, ChronoUnit.DAYS);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(TRACE_DIR, "traces-*.jsonl")) {
+            for (Path f : files) {
+                if (Files.getLastModifiedTime(f).toInstant().isBefore(cutoff)) Files.deleteIfExists(f);
+            }
+        } catch (IOException e) {
+            log.debug("[Tracing] Cleanup failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.botsfer.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Spans for the edges of a request: inbound POST handlers (chat and platform webhooks) open the
+ * trace, and the platform API clients' send/reply calls record how long the answer took to
+ * deliver.
+ */
+@Aspect
+@Component
+public class TracingAspect {
+
+    private final Tracer tracer;
+
+    public TracingAspect(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Around("within(com.botsfer..*) && @annotation(org.springframework.web.bind.annotation.PostMapping)")
+    public Object traceInbound(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace("POST " + label(joinPoint), joinPoint);
+    }
+
+    @Around("execution(public * com.botsfer.*ApiClient.send*(..))"
+            + " || execution(public * com.botsfer.*ApiClient.reply*(..))"
+            + " || execution(public * com.botsfer.*ApiClient.post*(..))"
+            + " || execution(public * com.botsfer.*ApiClient.push*(..))")
+    public Object traceSendBack(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace("send " + label(joinPoint), joinPoint);
+    }
+
+    private Object trace(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        try (Span span = tracer.start(name)) {
+            try {
+                return joinPoint.proceed();
+            } catch (Throwable t) {
+                span.error(t);
+                throw t;
+            }
+        }
+    }
+
+    private static String label(ProceedingJoinPoint joinPoint) {
+        return joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+    }
+}
@@ -0,0 +1,307 @@
+package com.botsfer.transcription;
+
+import ai.onnxruntime.NodeInfo;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.TensorInfo;
+import com.botsfer.huggingface.HuggingFaceService;
+import com.botsfer.huggingface.OnnxSessionRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offline speech-to-text with a Whisper model exported to ONNX (encoder + decoder, e.g.
+ * onnx-community/whisper-base), run in-process on ONNX Runtime. The model is fetched once into the
+ * Hugging Face cache; sessions come from the shared {@link OnnxSessionRegistry} and stay warm
+ * between requests ({@code app.transcription.local.preload} loads them at startup).
+ * <p>
+ * Audio is resampled to 16 kHz mono and processed in 30-second windows, Whisper's native chunk.
+ * Decoding is greedy over text tokens without timestamps, re-running the decoder on the full
+ * prefix each step (no KV cache), which is fine for the short utterances voice input produces.
+ */
+@Component
+public class LocalWhisperBackend implements TranscriptionBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalWhisperBackend.class);
+    /** After a failed load (offline, no network), wait this long before trying again. */
+    private static final long RETRY_AFTER_MS = 10 * 60 * 1000L;
+
+    @Value("${app.transcription.local.model:onnx-community/whisper-base}")
+    private String modelId;
+    @Value("${app.transcription.local.encoder-file:onnx/encoder_model.onnx}")
+    private String encoderFile;
+    @Value("${app.transcription.local.decoder-file:onnx/decoder_model.onnx}")
+    private String decoderFile;
+    /** ISO code such as "en"; blank lets the model detect the language per window. */
+    @Value("${app.transcription.local.language:en}")
+    private String language;
+    @Value("${app.transcription.local.max-tokens:224}")
+    private int maxTokens;
+    @Value("${app.transcription.local.preload:false}")
+    private boolean preload;
+
+    private final HuggingFaceService huggingFace;
+    private final OnnxSessionRegistry sessions;
+
+    private volatile WhisperTokens tokens;
+    private volatile Path modelDir;
+    private volatile String failure;
+    private volatile long retryAt;
+
+    public LocalWhisperBackend(HuggingFaceService huggingFace, OnnxSessionRegistry sessions) {
+        this.huggingFace = huggingFace;
+        this.sessions = sessions;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!preload) return;
+        Thread t = new Thread(() -> {
+            if (!isAvailable()) return;
+            OnnxSessionRegistry.Lease encoder = null;
+            OnnxSessionRegistry.Lease decoder = null;
+            try {
+                encoder = sessions.acquire(modelDir, encoderFile);
+                decoder = sessions.acquire(modelDir, decoderFile);
+                log.info("[Transcription] Local model {} loaded", modelId);
+            } catch (OrtException e) {
+                log.warn("[Transcription] Could not preload {}: {}", modelId, e.getMessage());
+            } finally {
+                if (decoder != null) decoder.close();
+                if (encoder != null) encoder.close();
+            }
+        }, "whisper-preload");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    public String modelId() {
+        return modelId;
+    }
+
+    /** Whether the model is ready (fetching it now if needed). Cheap after the first call. */
+    @Override
+    public boolean isAvailable() {
+        return tokens != null || load();
+    }
+
+    /** Why the model could not be loaded, or null. */
+    public String unavailableReason() {
+        return tokens != null ? null : failure;
+    }
+
+    private synchronized boolean load() {
+        if (tokens != null) return true;
+        if (System.currentTimeMillis() < retryAt) return false;
+        try {
+            List<String> paths = huggingFace.getModelFilePaths(modelId);
+            if (!paths.contains(encoderFile) || !paths.contains(decoderFile) || !paths.contains("vocab.json")) {
+                throw new IOException(modelId + " has no " + encoderFile + ", " + decoderFile + " and vocab.json");
+            }
+            for (String file : List.of(encoderFile, decoderFile)) {
+                huggingFace.downloadToCache(modelId, file);
+                // Larger exports keep their weights in an external data file next to the graph
+                if (paths.contains(file + "_data")) huggingFace.downloadToCache(modelId, file + "_data");
+            }
+            Path vocab = huggingFace.downloadToCache(modelId, "vocab.json");
+            for (String optional : List.of("added_tokens.json", "tokenizer.json")) {
+                if (paths.contains(optional)) huggingFace.downloadToCache(modelId, optional);
+            }
+            modelDir = vocab.getParent();
+            tokens = WhisperTokens.load(modelDir);
+            failure = null;
+            log.info("[Transcription] Local Whisper model {} ready", modelId);
+            return true;
+        } catch (Exception e) {
+            failure = e.getMessage();
+            retryAt = System.currentTimeMillis() + RETRY_AFTER_MS;
+            log.warn("[Transcription] Local Whisper model {} unavailable: {}", modelId, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public String transcribe(String filename, String contentType, ByteBuffer... audio) throws Exception {
+        if (!isAvailable()) {
+            throw new IOException("Local transcription model unavailable: " + failure);
+        }
+        float[] samples = decode(contentType, audio);
+        StringBuilder text = new StringBuilder();
+        try (OnnxSessionRegistry.Lease encoder = sessions.acquire(modelDir, encoderFile);
+             OnnxSessionRegistry.Lease decoder = sessions.acquire(modelDir, decoderFile)) {
+            for (int from = 0; from < samples.length; from += LogMelSpectrogram.WINDOW_SAMPLES) {
+                int length = Math.min(LogMelSpectrogram.WINDOW_SAMPLES, samples.length - from);
+                // A sliver of trailing audio is more likely to produce a hallucinated phrase than words
+                if (from > 0 && length < LogMelSpectrogram.SAMPLE_RATE / 2) break;
+                String window = transcribeWindow(encoder, decoder, samples, from, length);
+                if (window.isEmpty()) continue;
+                if (text.length() > 0) text.append(' ');
+                text.append(window);
+            }
+        }
+        return text.toString();
+    }
+
+    private String transcribeWindow(OnnxSessionRegistry.Lease encoder, OnnxSessionRegistry.Lease decoder,
+                                    float[] samples, int from, int length) throws OrtException {
+        OrtEnvironment env = encoder.environment();
+        OrtSession enc = encoder.session();
+        String featuresName = enc.getInputNames().iterator().next();
+        int nMels = melBins(enc.getInputInfo().get(featuresName));
+        float[] features = LogMelSpectrogram.compute(samples, from, length, nMels);
+
+        try (OnnxTensor input = OnnxTensor.createTensor(env, FloatBuffer.wrap(features),
+                     new long[]{1, nMels, LogMelSpectrogram.FRAMES});
+             OrtSession.Result encoded = enc.run(Map.of(featuresName, input))) {
+            OnnxTensor hidden = (OnnxTensor) encoded.get(0);
+            OrtSession dec = decoder.session();
+            String idsName = inputNamed(dec, "input_ids");
+            String hiddenName = inputNamed(dec, "encoder_hidden_states");
+
+            List<Long> ids = new ArrayList<>();
+            ids.add((long) tokens.startOfTranscript);
+            if (!modelId.endsWith(".en")) {
+                ids.add((long) (language == null || language.isBlank()
+                        ? next(env, dec, idsName, hiddenName, hidden, ids, tokens.languageIds())
+                        : tokens.languageId(language)));
+                Integer transcribe = tokens.special("<|transcribe|>");
+                if (transcribe != null) ids.add((long) transcribe);
+            }
+            Integer noTimestamps = tokens.special("<|notimestamps|>");
+            if (noTimestamps != null) ids.add((long) noTimestamps);
+
+            int promptLength = ids.size();
+            for (int step = 0; step < maxTokens; step++) {
+                int id = next(env, dec, idsName, hiddenName, hidden, ids, null);
+                if (id == tokens.endOfText) break;
+                ids.add((long) id);
+            }
+            return tokens.decode(ids.subList(promptLength, ids.size()));
+        }
+    }
+
+    /**
+     * Greedy next token after {@code ids}: the best of {@code allowed}, or when null the best text
+     * token or end-of-text (timestamps and other special tokens are never chosen).
+     */
+    private int next(OrtEnvironment env, OrtSession dec, String idsName, String hiddenName, OnnxTensor hidden,
+                     List<Long> ids, List<Integer> allowed) throws OrtException {
+        long[] prefix = new long[ids.size()];
+        for (int i = 0; i < prefix.length; i++) prefix[i] = ids.get(i);
+        try (OnnxTensor input = OnnxTensor.createTensor(env, LongBuffer.wrap(prefix), new long[]{1, prefix.length});
+             OrtSession.Result result = dec.run(Map.of(idsName, input, hiddenName, hidden))) {
+            OnnxTensor logits = (OnnxTensor) result.get(0);
+            long[] shape = logits.getInfo().getShape();
+            int vocab = (int) shape[shape.length - 1];
+            FloatBuffer data = logits.getFloatBuffer();
+            int base = (prefix.length - 1) * vocab;
+            int best = -1;
+            float bestScore = Float.NEGATIVE_INFINITY;
+            int count = allowed != null ? allowed.size() : Math.min(vocab - 1, tokens.endOfText) + 1;
+            for (int i = 0; i < count; i++) {
+                int id = allowed != null ? allowed.get(i) : i;
+                float score = data.get(base + id);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = id;
+                }
+            }
+            return best;
+        }
+    }
+
+    private static int melBins(NodeInfo info) {
+        if (info.getInfo() instanceof TensorInfo t && t.getShape().length == 3 && t.getShape()[1] > 0) {
+            return (int) t.getShape()[1];
+        }
+        return 80;
+    }
+
+    private static String inputNamed(OrtSession session, String part) throws OrtException {
+        for (String name : session.getInputNames()) {
+            if (name.contains(part)) return name;
+        }
+        throw new OrtException("Decoder has no " + part + " input (inputs: " + session.getInputNames()
+                + "). Use a decoder export without past key values, e.g. decoder_model.onnx.");
+    }
+
+    /** WAV/AIFF/AU to 16 kHz mono floats in [-1, 1]. Compressed formats need the remote backend. */
+    static float[] decode(String contentType, ByteBuffer... audio) throws IOException {
+        List<InputStream> parts = new ArrayList<>();
+        for (ByteBuffer b : audio) {
+            if (b.hasArray()) {
+                parts.add(new ByteArrayInputStream(b.array(), b.arrayOffset() + b.position(), b.remaining()));
+            } else {
+                byte[] bytes = new byte[b.remaining()];
+                b.duplicate().get(bytes);
+                parts.add(new ByteArrayInputStream(bytes));
+            }
+        }
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(
+                new BufferedInputStream(new SequenceInputStream(Collections.enumeration(parts))))) {
+            AudioFormat in = source.getFormat();
+            AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, in.getSampleRate(), 16,
+                    in.getChannels(), in.getChannels() * 2, in.getSampleRate(), false);
+            byte[] bytes;
+            try (AudioInputStream converted = AudioSystem.getAudioInputStream(pcm, source)) {
+                bytes = converted.readAllBytes();
+            }
+            int channels = pcm.getChannels();
+            int frames = bytes.length / (2 * channels);
+            float[] mono = new float[frames];
+            for (int f = 0; f < frames; f++) {
+                int sum = 0;
+                for (int c = 0; c < channels; c++) {
+                    int i = (f * channels + c) * 2;
+                    sum += (short) ((bytes[i] & 0xff) | (bytes[i + 1] << 8));
+                }
+                mono[f] = sum / (32768f * channels);
+            }
+            return resample(mono, pcm.getSampleRate());
+        } catch (UnsupportedAudioFileException | IllegalArgumentException e) {
+            throw new IOException("Local transcription needs WAV/AIFF/AU audio, not " + contentType, e);
+        }
+    }
+
+    private static float[] resample(float[] samples, float rate) {
+        if (Math.abs(rate - LogMelSpectrogram.SAMPLE_RATE) < 1) return samples;
+        double step = rate / LogMelSpectrogram.SAMPLE_RATE;
+        float[] out = new float[(int) (samples.length / step)];
+        for (int i = 0; i < out.length; i++) {
+            double pos = i * step;
+            int j = (int) pos;
+            double frac = pos - j;
+            float next = j + 1 < samples.length ? samples[j + 1] : samples[j];
+            out[i] = (float) (samples[j] * (1 - frac) + next * frac);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,130 @@
+package com.botsfer.transcription;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Whisper's input features: a 30-second window of 16 kHz audio (zero-padded) turned into a
+ * log-mel spectrogram of {@code nMels x 3000} frames, matching the reference implementation
+ * (400-point Hann STFT, hop 160, Slaney mel filters, log10 clamped to 8 below the peak, scaled).
+ * Only frames that overlap real audio are transformed; the padding is constant.
+ */
+final class LogMelSpectrogram {
+
+    static final int SAMPLE_RATE = 16_000;
+    static final int FRAMES = 3000;
+    static final int WINDOW_SAMPLES = 480_000;
+    private static final int N_FFT = 400;
+    private static final int HOP = 160;
+    private static final int BINS = N_FFT / 2 + 1;
+
+    private static final float[] HANN = new float[N_FFT];
+    private static final float[][] COS = new float[BINS][N_FFT];
+    private static final float[][] SIN = new float[BINS][N_FFT];
+    private static final Map<Integer, float[][]> FILTERS = new ConcurrentHashMap<>();
+
+    static {
+        for (int n = 0; n < N_FFT; n++) {
+            HANN[n] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * n / N_FFT));
+        }
+        for (int k = 0; k < BINS; k++) {
+            for (int n = 0; n < N_FFT; n++) {
+                double angle = 2 * Math.PI * k * n / N_FFT;
+                COS[k][n] = (float) Math.cos(angle);
+                SIN[k][n] = (float) Math.sin(angle);
+            }
+        }
+    }
+
+    private LogMelSpectrogram() {}
+
+    /** Features for {@code samples[from, from + length)} (at most 30 s), row-major {@code [nMels][FRAMES]}. */
+    static float[] compute(float[] samples, int from, int length, int nMels) {
+        length = Math.min(length, WINDOW_SAMPLES);
+        float[][] filters = FILTERS.computeIfAbsent(nMels, LogMelSpectrogram::melFilters);
+        float[] out = new float[nMels * FRAMES];
+        int active = Math.min(FRAMES, (length + N_FFT / 2) / HOP + 1);
+        float[] frame = new float[N_FFT];
+        double[] power = new double[BINS];
+        double max = -10;
+
+        for (int t = 0; t < active; t++) {
+            int start = t * HOP - N_FFT / 2;
+            for (int n = 0; n < N_FFT; n++) {
+                frame[n] = sample(samples, from, length, start + n) * HANN[n];
+            }
+            for (int k = 0; k < BINS; k++) {
+                float[] c = COS[k];
+                float[] s = SIN[k];
+                double re = 0;
+                double im = 0;
+                for (int n = 0; n < N_FFT; n++) {
+                    re += frame[n] * c[n];
+                    im += frame[n] * s[n];
+                }
+                power[k] = re * re + im * im;
+            }
+            for (int m = 0; m < nMels; m++) {
+                float[] w = filters[m];
+                double mel = 0;
+                for (int k = 0; k < BINS; k++) {
+                    if (w[k] != 0) mel += w[k] * power[k];
+                }
+                double log = Math.log10(Math.max(mel, 1e-10));
+                out[m * FRAMES + t] = (float) log;
+                if (log > max) max = log;
+            }
+        }
+
+        double floor = max - 8.0;
+        for (int m = 0; m < nMels; m++) {
+            for (int t = 0; t < FRAMES; t++) {
+                double log = t < active ? out[m * FRAMES + t] : -10;
+                out[m * FRAMES + t] = (float) ((Math.max(log, floor) + 4.0) / 4.0);
+            }
+        }
+        return out;
+    }
+
+    /** The zero-padded 30 s window with reflect padding at both ends, as torch.stft(center=True) does. */
+    private static float sample(float[] samples, int from, int length, int i) {
+        if (i < 0) i = -i;
+        if (i >= WINDOW_SAMPLES) i = 2 * (WINDOW_SAMPLES - 1) - i;
+        return i < length ? samples[from + i] : 0f;
+    }
+
+    /** librosa.filters.mel(sr=16000, n_fft=400, n_mels) with the default Slaney scale and norm. */
+    private static float[][] melFilters(int nMels) {
+        double maxMel = hzToMel(SAMPLE_RATE / 2.0);
+        double[] melHz = new double[nMels + 2];
+        for (int i = 0; i < melHz.length; i++) {
+            melHz[i] = melToHz(maxMel * i / (nMels + 1));
+        }
+        float[][] weights = new float[nMels][BINS];
+        for (int m = 0; m < nMels; m++) {
+            double lowerWidth = melHz[m + 1] - melHz[m];
+            double upperWidth = melHz[m + 2] - melHz[m + 1];
+            double norm = 2.0 / (melHz[m + 2] - melHz[m]);
+            for (int k = 0; k < BINS; k++) {
+                double hz = (double) k * SAMPLE_RATE / N_FFT;
+                double lower = (hz - melHz[m]) / lowerWidth;
+                double upper = (melHz[m + 2] - hz) / upperWidth;
+                weights[m][k] = (float) (Math.max(0, Math.min(lower, upper)) * norm);
+            }
+        }
+        return weights;
+    }
+
+    private static final double F_SP = 200.0 / 3;
+    private static final double MIN_LOG_HZ = 1000.0;
+    private static final double MIN_LOG_MEL = MIN_LOG_HZ / F_SP;
+    private static final double LOG_STEP = Math.log(6.4) / 27.0;
+
+    private static double hzToMel(double hz) {
+        return hz < MIN_LOG_HZ ? hz / F_SP : MIN_LOG_MEL + Math.log(hz / MIN_LOG_HZ) / LOG_STEP;
+    }
+
+    private static double melToHz(double mel) {
+        return mel < MIN_LOG_MEL ? mel * F_SP : MIN_LOG_HZ * Math.exp(LOG_STEP * (mel - MIN_LOG_MEL));
+    }
+}
@@ -0,0 +1,97 @@
+package com.botsfer.transcription;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Flow;
+
+/**
+ * A multipart/form-data body built from its parts without copying them into one buffer. Boundary
+ * lines are small arrays, and file contents are published straight from the caller's buffers
+ * (heap, direct or read-only), which must not change until the request is done. The built
+ * publisher can be subscribed again, so a retried request re-reads the same buffers.
+ */
+final class MultipartBodyPublisher {
+
+    private static final String CRLF = "\r\n";
+    private static final int CHUNK = 64 * 1024;
+
+    private final String boundary = "----BotsferBoundary" + UUID.randomUUID();
+    private final List<HttpRequest.BodyPublisher> parts = new ArrayList<>();
+
+    MultipartBodyPublisher field(String name, String value) {
+        text("--" + boundary + CRLF
+                + "Content-Disposition: form-data; name=\"" + name + "\"" + CRLF + CRLF
+                + value + CRLF);
+        return this;
+    }
+
+    /** A file part whose content is the given slices in order (e.g. a WAV header, then raw PCM). */
+    MultipartBodyPublisher file(String name, String filename, String contentType, ByteBuffer... content) {
+        text("--" + boundary + CRLF
+                + "Content-Disposition: form-data; name=\"" + name + "\"; filename=\"" + filename + "\"" + CRLF
+                + "Content-Type: " + contentType + CRLF + CRLF);
+        for (ByteBuffer slice : content) {
+            parts.add(slice.hasArray()
+                    ? BodyPublishers.ofByteArray(slice.array(), slice.arrayOffset() + slice.position(), slice.remaining())
+                    : ofBuffer(slice.duplicate()));
+        }
+        text(CRLF);
+        return this;
+    }
+
+    String contentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    HttpRequest.BodyPublisher build() {
+        List<HttpRequest.BodyPublisher> all = new ArrayList<>(parts);
+        all.add(BodyPublishers.ofByteArray(("--" + boundary + "--" + CRLF).getBytes(StandardCharsets.UTF_8)));
+        return BodyPublishers.concat(all.toArray(HttpRequest.BodyPublisher[]::new));
+    }
+
+    /**
+     * Publishes a direct or read-only buffer in chunks. Each subscription reads its own view, so
+     * the publisher can be subscribed again on retry.
+     */
+    private static HttpRequest.BodyPublisher ofBuffer(ByteBuffer content) {
+        Flow.Publisher<ByteBuffer> publisher = subscriber -> subscriber.onSubscribe(new Flow.Subscription() {
+            private final ByteBuffer remaining = content.duplicate();
+            private boolean done;
+
+            @Override
+            public synchronized void request(long n) {
+                if (done) return;
+                if (n <= 0) {
+                    done = true;
+                    subscriber.onError(new IllegalArgumentException("non-positive request: " + n));
+                    return;
+                }
+                for (; n > 0 && remaining.hasRemaining() && !done; n--) {
+                    int length = Math.min(CHUNK, remaining.remaining());
+                    ByteBuffer chunk = remaining.slice(remaining.position(), length);
+                    remaining.position(remaining.position() + length);
+                    subscriber.onNext(chunk);
+                }
+                if (!done && !remaining.hasRemaining()) {
+                    done = true;
+                    subscriber.onComplete();
+                }
+            }
+
+            @Override
+            public synchronized void cancel() {
+                done = true;
+            }
+        });
+        return BodyPublishers.fromPublisher(publisher, content.remaining());
+    }
+
+    private void text(String s) {
+        parts.add(BodyPublishers.ofByteArray(s.getBytes(StandardCharsets.UTF_8)));
+    }
+}
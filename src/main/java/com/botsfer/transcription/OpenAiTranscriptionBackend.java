@@ -0,0 +1,94 @@
+package com.botsfer.transcription;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+
+/** OpenAI's {@code /audio/transcriptions} endpoint (raw HTTP, sharing the chat API key). */
+@Component
+public class OpenAiTranscriptionBackend implements TranscriptionBackend {
+
+    @Value("${app.openai.api-key:}")
+    private String openAiApiKey;
+    @Value("${app.openai.base-url:https://api.openai.com/v1}")
+    private String openAiBaseUrl;
+    @Value("${app.openai.transcription-model:gpt-4o-mini-transcribe}")
+    private String openAiTranscriptionModel;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(20))
+            .version(Version.HTTP_1_1)
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public String name() {
+        return "openai";
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return openAiApiKey != null && !openAiApiKey.isBlank();
+    }
+
+    public String model() {
+        return openAiTranscriptionModel;
+    }
+
+    @Override
+    public String transcribe(String filename, String contentType, ByteBuffer... audio) throws Exception {
+        System.out.println("[AudioLLM] Sending transcription request. file=" + filename
+                + ", transcriptionModel=" + openAiTranscriptionModel
+                + ", baseUrl=" + openAiBaseUrl);
+        MultipartBodyPublisher body = new MultipartBodyPublisher()
+                .field("model", openAiTranscriptionModel)
+                .file("file", filename, contentType, audio);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(openAiBaseUrl + "/audio/transcriptions"))
+                .header("Authorization", "Bearer " + openAiApiKey)
+                .header("Content-Type", body.contentType())
+                .timeout(Duration.ofSeconds(90))
+                .POST(body.build())
+                .build();
+
+        HttpResponse<String> response = sendWithRetry(request, 3);
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            System.err.println("[AudioLLM] Transcription failed. status=" + response.statusCode());
+            System.err.println("[AudioLLM] Response body: " + response.body());
+            throw new IllegalStateException("Transcription failed (" + response.statusCode() + ")");
+        }
+
+        JsonNode root = objectMapper.readTree(response.body());
+        return root.path("text").asText("");
+    }
+
+    /** Each attempt re-subscribes to the same body publisher, which re-reads the original buffers. */
+    private HttpResponse<String> sendWithRetry(HttpRequest request, int maxAttempts) throws Exception {
+        Exception last = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (IOException ioe) {
+                last = ioe;
+                System.err.println("[AudioLLM] Network error on attempt " + attempt + "/" + maxAttempts + ": " + ioe.getMessage());
+                if (attempt == maxAttempts) break;
+                Thread.sleep(300L * attempt);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw ie;
+            }
+        }
+        throw last == null ? new IOException("Request failed after retries.") : last;
+    }
+}
@@ -0,0 +1,22 @@
+package com.botsfer.transcription;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A speech-to-text engine. {@link TranscriptionService} picks one per request according to
+ * {@code app.transcription.backend} and falls back to the next when one fails.
+ */
+public interface TranscriptionBackend {
+
+    /** Short id used in {@code app.transcription.backend}, stats and traces. */
+    String name();
+
+    /** Whether this backend can be used now (configured, model present or fetchable). */
+    boolean isAvailable();
+
+    /**
+     * Transcribe one audio file given as buffers that together form the file (e.g. a WAV header
+     * followed by the PCM it describes). Implementations must not change the buffers' positions.
+     */
+    String transcribe(String filename, String contentType, ByteBuffer... audio) throws Exception;
+}
@@ -0,0 +1,187 @@
+package com.botsfer.transcription;
+
+import com.botsfer.tracing.Span;
+import com.botsfer.tracing.Tracer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Speech-to-text entry point. {@code app.transcription.backend} picks the engine: {@code openai}
+ * (remote API), {@code local} (on-device Whisper, works offline) or {@code auto} (OpenAI when a
+ * key is set, falling back to the local model when it is missing or the request fails).
+ * Keeps per-backend latency and real-time factor, and can benchmark the backends on one clip.
+ */
+@Service
+public class TranscriptionService {
+
+    private static final Logger log = LoggerFactory.getLogger(TranscriptionService.class);
+
+    @Value("${app.transcription.backend:auto}")
+    private String backend;
+
+    private final OpenAiTranscriptionBackend openAi;
+    private final LocalWhisperBackend local;
+    private final Tracer tracer;
+    private final Map<String, long[]> stats = new ConcurrentHashMap<>(); // backend -> {calls, failures, totalMs, audioMs}
+
+    public TranscriptionService(OpenAiTranscriptionBackend openAi, LocalWhisperBackend local, Tracer tracer) {
+        this.openAi = openAi;
+        this.local = local;
+        this.tracer = tracer;
+    }
+
+    /** Backends to try, in order, for the configured mode. */
+    private List<TranscriptionBackend> candidates() {
+        return switch (backend.trim().toLowerCase()) {
+            case "openai" -> List.of(openAi);
+            case "local" -> List.of(local);
+            default -> List.of(openAi, local);
+        };
+    }
+
+    /** Whether some configured backend can transcribe. May fetch the local model the first time. */
+    public boolean isAvailable() {
+        return candidates().stream().anyMatch(TranscriptionBackend::isAvailable);
+    }
+
+    /** One-line summary for startup diagnostics. */
+    public String describe() {
+        return switch (backend.trim().toLowerCase()) {
+            case "openai" -> "openai (" + openAi.model() + ")";
+            case "local" -> "local (" + local.modelId() + ")";
+            default -> "auto: openai (" + openAi.model() + (openAi.isAvailable() ? "" : ", no key")
+                    + "), then local (" + local.modelId() + ")";
+        };
+    }
+
+    /**
+     * Transcribe one audio file given as buffers that together form the file, e.g. a WAV header
+     * followed by the PCM it describes.
+     */
+    public String transcribe(String filename, String contentType, ByteBuffer... audio) throws Exception {
+        long bytes = Arrays.stream(audio).mapToLong(ByteBuffer::remaining).sum();
+        Exception last = null;
+        for (TranscriptionBackend b : candidates()) {
+            if (!b.isAvailable()) continue;
+            try (Span span = tracer.start("transcription")) {
+                span.attr("backend", b.name()).attr("bytes", bytes);
+                long start = System.nanoTime();
+                try {
+                    String text = b.transcribe(filename, contentType, audio);
+                    record(b.name(), System.nanoTime() - start, wavDurationMs(audio), false);
+                    return text;
+                } catch (Exception e) {
+                    span.error(e);
+                    record(b.name(), System.nanoTime() - start, 0, true);
+                    log.warn("[Transcription] {} failed: {}", b.name(), e.getMessage());
+                    last = e;
+                }
+            }
+        }
+        if (last != null) throw last;
+        throw new IllegalStateException("No transcription backend available (app.transcription.backend="
+                + backend + "). Set app.openai.api-key or use app.transcription.backend=local.");
+    }
+
+    private void record(String name, long nanos, long audioMs, boolean failed) {
+        long[] s = stats.computeIfAbsent(name, k -> new long[4]);
+        synchronized (s) {
+            s[0]++;
+            if (failed) {
+                s[1]++;
+                return;
+            }
+            s[2] += nanos / 1_000_000;
+            s[3] += audioMs;
+        }
+    }
+
+    /** Duration of a PCM WAV from its header (byte rate at offset 28), or 0 when it isn't one. */
+    static long wavDurationMs(ByteBuffer... audio) {
+        long total = Arrays.stream(audio).mapToLong(ByteBuffer::remaining).sum();
+        if (audio.length == 0 || audio[0].remaining() < 44) return 0;
+        ByteBuffer header = audio[0].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int p = header.position();
+        if (header.getInt(p) != 0x46464952 || header.getInt(p + 8) != 0x45564157) return 0; // "RIFF", "WAVE"
+        int byteRate = header.getInt(p + 28);
+        return byteRate <= 0 ? 0 : (total - 44) * 1000 / byteRate;
+    }
+
+    /** Calls, failures, mean latency and real-time factor (processing time / audio time) per backend. */
+    public Map<String, Object> stats() {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("backend", backend);
+        out.put("openaiAvailable", openAi.isAvailable());
+        out.put("localModel", local.modelId());
+        String reason = local.unavailableReason();
+        if (reason != null) out.put("localUnavailable", reason);
+        Map<String, Object> perBackend = new LinkedHashMap<>();
+        for (var e : stats.entrySet()) {
+            long[] s;
+            synchronized (e.getValue()) {
+                s = e.getValue().clone();
+            }
+            long ok = s[0] - s[1];
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("calls", s[0]);
+            row.put("failures", s[1]);
+            row.put("meanMs", ok == 0 ? 0 : s[2] / ok);
+            row.put("audioMs", s[3]);
+            row.put("realTimeFactor", s[3] == 0 ? null : Math.round(s[2] * 1000.0 / s[3]) / 1000.0);
+            perBackend.put(e.getKey(), row);
+        }
+        out.put("backends", perBackend);
+        return out;
+    }
+
+    /**
+     * Transcribe the same WAV {@code runs} times with every available backend (ignoring the
+     * configured mode) and report latency and real-time factor side by side. The first local run
+     * includes loading the model unless it was preloaded.
+     */
+    public List<Map<String, Object>> benchmark(byte[] wav, int runs) {
+        long audioMs = wavDurationMs(ByteBuffer.wrap(wav));
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (TranscriptionBackend b : List.<TranscriptionBackend>of(openAi, local)) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("backend", b.name());
+            row.put("audioMs", audioMs);
+            if (!b.isAvailable()) {
+                row.put("error", "unavailable");
+                out.add(row);
+                continue;
+            }
+            long[] ms = new long[Math.max(1, runs)];
+            try {
+                String text = null;
+                for (int i = 0; i < ms.length; i++) {
+                    long start = System.nanoTime();
+                    text = b.transcribe("benchmark.wav", "audio/wav", ByteBuffer.wrap(wav));
+                    ms[i] = (System.nanoTime() - start) / 1_000_000;
+                }
+                Arrays.sort(ms);
+                row.put("runs", ms.length);
+                row.put("minMs", ms[0]);
+                row.put("medianMs", ms[ms.length / 2]);
+                row.put("maxMs", ms[ms.length - 1]);
+                if (audioMs > 0) row.put("realTimeFactor", Math.round(ms[ms.length / 2] * 1000.0 / audioMs) / 1000.0);
+                row.put("text", text);
+            } catch (Exception e) {
+                row.put("error", e.getMessage());
+            }
+            out.add(row);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,119 @@
+package com.botsfer.transcription;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Whisper's vocabulary, for building the decoder prompt and turning generated ids back into text.
+ * Only decoding is needed (the model generates tokens; we never encode text), so this is the
+ * GPT-2 byte-level mapping from vocab.json plus the special tokens from added_tokens.json or
+ * tokenizer.json.
+ */
+final class WhisperTokens {
+
+    private static final Pattern LANGUAGE = Pattern.compile("<\\|[a-z]{2,3}\\|>");
+    private static final int[] UNICODE_TO_BYTE = new int[512];
+
+    static {
+        // GPT-2 bytes_to_unicode: printable bytes map to themselves, the rest to 256+
+        List<Integer> bytes = new ArrayList<>();
+        for (int b = '!'; b <= '~'; b++) bytes.add(b);
+        for (int b = 0xA1; b <= 0xAC; b++) bytes.add(b);
+        for (int b = 0xAE; b <= 0xFF; b++) bytes.add(b);
+        Arrays.fill(UNICODE_TO_BYTE, -1);
+        for (int b : bytes) UNICODE_TO_BYTE[b] = b;
+        int n = 0;
+        for (int b = 0; b < 256; b++) {
+            if (!bytes.contains(b)) UNICODE_TO_BYTE[256 + n++] = b;
+        }
+    }
+
+    private final String[] tokens;
+    private final Map<String, Integer> special;
+    final int endOfText;
+    final int startOfTranscript;
+
+    private WhisperTokens(String[] tokens, Map<String, Integer> special) throws IOException {
+        this.tokens = tokens;
+        this.special = special;
+        this.endOfText = require("<|endoftext|>");
+        this.startOfTranscript = require("<|startoftranscript|>");
+    }
+
+    static WhisperTokens load(Path modelDir) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, Integer> vocab = mapper.readValue(modelDir.resolve("vocab.json").toFile(), new TypeReference<>() {});
+        Map<String, Integer> special = new HashMap<>();
+        Path added = modelDir.resolve("added_tokens.json");
+        if (Files.isRegularFile(added)) {
+            special.putAll(mapper.readValue(added.toFile(), new TypeReference<Map<String, Integer>>() {}));
+        }
+        Path tokenizer = modelDir.resolve("tokenizer.json");
+        if (Files.isRegularFile(tokenizer)) {
+            for (JsonNode t : mapper.readTree(tokenizer.toFile()).path("added_tokens")) {
+                special.putIfAbsent(t.path("content").asText(), t.path("id").asInt());
+            }
+        }
+        vocab.forEach((token, id) -> { if (token.startsWith("<|")) special.putIfAbsent(token, id); });
+
+        int size = 0;
+        for (int id : vocab.values()) size = Math.max(size, id + 1);
+        for (int id : special.values()) size = Math.max(size, id + 1);
+        String[] tokens = new String[size];
+        vocab.forEach((token, id) -> tokens[id] = token);
+        special.forEach((token, id) -> tokens[id] = token);
+        return new WhisperTokens(tokens, special);
+    }
+
+    /** Id of a special token such as {@code <|transcribe|>}, or null when the model has none. */
+    Integer special(String token) {
+        return special.get(token);
+    }
+
+    int languageId(String language) {
+        Integer id = special.get("<|" + language + "|>");
+        if (id == null) throw new IllegalArgumentException("Unknown Whisper language: " + language);
+        return id;
+    }
+
+    /** Ids of all language tokens, for detecting the spoken language. */
+    List<Integer> languageIds() {
+        List<Integer> ids = new ArrayList<>();
+        special.forEach((token, id) -> { if (LANGUAGE.matcher(token).matches()) ids.add(id); });
+        return ids;
+    }
+
+    /** Text for generated ids; special tokens are skipped. */
+    String decode(List<Long> ids) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (long id : ids) {
+            if (id >= endOfText || id < 0 || id >= tokens.length || tokens[(int) id] == null) continue;
+            String token = tokens[(int) id];
+            for (int i = 0; i < token.length(); i++) {
+                char c = token.charAt(i);
+                int b = c < UNICODE_TO_BYTE.length ? UNICODE_TO_BYTE[c] : -1;
+                if (b >= 0) bytes.write(b);
+            }
+        }
+        return bytes.toString(StandardCharsets.UTF_8).trim();
+    }
+
+    private int require(String token) throws IOException {
+        Integer id = special.get(token);
+        if (id == null) throw new IOException("Whisper vocabulary has no " + token);
+        return id;
+    }
+}
@@ -546,6 +546,8 @@
   const browserRefresh = document.getElementById('browser-refresh');
 
   let browserPollTimer = null;
+  let browserInfoTimer = null;
+  let browserSocket = null;
   let lastBlobUrl = null;
 
   tabs.forEach(function (tab) {
@@ -554,11 +556,43 @@
       tabContents.forEach(function (c) { c.classList.remove('active'); });
       tab.classList.add('active');
       document.getElementById('tab-' + tab.dataset.tab).classList.add('active');
-      if (tab.dataset.tab === 'browser') startBrowserPolling();
-      else stopBrowserPolling();
+      if (tab.dataset.tab === 'browser') startBrowserView();
+      else stopBrowserView();
     });
   });
 
+  // Live view: the server pushes a JPEG frame over /ws/browser whenever the page repaints.
+  // Falls back to polling /api/browser/screenshot if the socket can't be used.
+  function startBrowserView() {
+    if (browserSocket || browserPollTimer) return;
+    refreshBrowserInfo();
+    browserInfoTimer = setInterval(refreshBrowserInfo, 2000);
+    try {
+      var proto = location.protocol === 'https:' ? 'wss://' : 'ws://';
+      var socket = new WebSocket(proto + location.host + '/ws/browser');
+      socket.binaryType = 'blob';
+      socket.onmessage = function (e) { showBrowserFrame(e.data); };
+      socket.onclose = function () {
+        if (browserSocket !== socket) return;
+        browserSocket = null;
+        startBrowserPolling();
+      };
+      browserSocket = socket;
+    } catch (e) {
+      startBrowserPolling();
+    }
+  }
+
+  function stopBrowserView() {
+    if (browserSocket) {
+      var socket = browserSocket;
+      browserSocket = null;
+      socket.close();
+    }
+    if (browserInfoTimer) { clearInterval(browserInfoTimer); browserInfoTimer = null; }
+    stopBrowserPolling();
+  }
+
   function startBrowserPolling() {
     if (browserPollTimer) return;
     refreshBrowserView();
@@ -569,22 +603,36 @@
     if (browserPollTimer) { clearInterval(browserPollTimer); browserPollTimer = null; }
   }
 
-  async function refreshBrowserView() {
+  function showBrowserFrame(blob) {
+    if (lastBlobUrl) URL.revokeObjectURL(lastBlobUrl);
+    lastBlobUrl = URL.createObjectURL(blob);
+    browserFrame.src = lastBlobUrl;
+    browserFrame.style.display = 'block';
+    browserEmpty.style.display = 'none';
+  }
+
+  async function refreshBrowserInfo() {
     try {
-      var res = await fetch('/api/browser/screenshot');
-      if (res.ok && res.status !== 204) {
-        var blob = await res.blob();
-        if (lastBlobUrl) URL.revokeObjectURL(lastBlobUrl);
-        lastBlobUrl = URL.createObjectURL(blob);
-        browserFrame.src = lastBlobUrl;
-        browserFrame.style.display = 'block';
-        browserEmpty.style.display = 'none';
-      }
       var info = await fetch('/api/browser/info');
       if (info.ok) {
         var data = await info.json();
-        browserUrl.value = data.url || '';
+        if (document.activeElement !== browserUrl) browserUrl.value = data.url || '';
+      }
+    } catch (e) { /* ignore */ }
+  }
+
+  // Refresh after a navigation action: the live stream updates on its own, polling needs a nudge
+  function refreshBrowserSoon() {
+    setTimeout(browserSocket ? refreshBrowserInfo : refreshBrowserView, 500);
+  }
+
+  async function refreshBrowserView() {
+    try {
+      var res = await fetch('/api/browser/screenshot');
+      if (res.ok && res.status !== 204) {
+        showBrowserFrame(await res.blob());
       }
+      await refreshBrowserInfo();
     } catch (e) { /* ignore */ }
   }
 
@@ -595,7 +643,7 @@
       method: 'POST',
       headers: { 'Content-Type': 'application/json' },
       body: JSON.stringify({ url: url })
-    }).then(function () { setTimeout(refreshBrowserView, 500); });
+    }).then(refreshBrowserSoon);
   }
 
   if (browserGo) browserGo.addEventListener('click', function () { browserNavigate(browserUrl.value); });
@@ -603,13 +651,13 @@
     if (e.key === 'Enter') { e.preventDefault(); browserNavigate(browserUrl.value); }
   });
   if (browserBack) browserBack.addEventListener('click', function () {
-    fetch('/api/browser/back', { method: 'POST' }).then(function () { setTimeout(refreshBrowserView, 500); });
+    fetch('/api/browser/back', { method: 'POST' }).then(refreshBrowserSoon);
   });
   if (browserForward) browserForward.addEventListener('click', function () {
-    fetch('/api/browser/forward', { method: 'POST' }).then(function () { setTimeout(refreshBrowserView, 500); });
+    fetch('/api/browser/forward', { method: 'POST' }).then(refreshBrowserSoon);
   });
   if (browserRefresh) browserRefresh.addEventListener('click', function () {
-    fetch('/api/browser/refresh', { method: 'POST' }).then(function () { setTimeout(refreshBrowserView, 500); });
+    fetch('/api/browser/refresh', { method: 'POST' }).then(refreshBrowserSoon);
   });
 
   // ═══ Load chat history or show greeting ═══
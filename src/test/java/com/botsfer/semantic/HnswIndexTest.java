@@ -0,0 +1,90 @@
+package com.botsfer.semantic;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HnswIndexTest {
+
+    private static final int DIM = 32;
+
+    @Test
+    void searchFindsMostTrueNeighbors() {
+        Random random = new Random(7);
+        HnswIndex index = new HnswIndex(DIM);
+        List<float[]> vectors = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            float[] v = unit(random);
+            vectors.add(v);
+            index.add(v);
+        }
+
+        int k = 10;
+        int hits = 0;
+        for (int q = 0; q < 50; q++) {
+            float[] query = unit(random);
+            List<Integer> exact = exact(vectors, query, k);
+            for (HnswIndex.Candidate c : index.search(query, k, 64)) {
+                if (exact.contains(c.id())) hits++;
+            }
+        }
+        assertThat(hits / (50.0 * k)).isGreaterThan(0.9);
+    }
+
+    @Test
+    void writeThenReadKeepsGraphAndDeletions() throws IOException {
+        Random random = new Random(11);
+        HnswIndex index = new HnswIndex(DIM);
+        for (int i = 0; i < 500; i++) index.add(unit(random));
+        index.markDeleted(3);
+        index.markDeleted(42);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.write(new DataOutputStream(bytes));
+        HnswIndex copy = HnswIndex.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(copy.dim()).isEqualTo(DIM);
+        assertThat(copy.size()).isEqualTo(500);
+        assertThat(copy.liveSize()).isEqualTo(498);
+        assertThat(copy.isDeleted(42)).isTrue();
+        assertThat(copy.vector(7)).containsExactly(index.vector(7));
+        for (int q = 0; q < 20; q++) {
+            float[] query = unit(random);
+            assertThat(copy.search(query, 5, 32)).isEqualTo(index.search(query, 5, 32));
+        }
+        assertThat(copy.search(index.vector(42), 5, 32)).extracting(HnswIndex.Candidate::id).doesNotContain(42);
+
+        // The copy stays writable: new nodes link into the read graph
+        int id = copy.add(index.vector(3));
+        assertThat(copy.search(index.vector(3), 1, 32).get(0).id()).isEqualTo(id);
+    }
+
+    private static List<Integer> exact(List<float[]> vectors, float[] query, int k) {
+        return IntStream.range(0, vectors.size()).boxed()
+                .sorted(Comparator.comparingDouble(i -> -HnswIndex.dot(vectors.get(i), query)))
+                .limit(k)
+                .toList();
+    }
+
+    private static float[] unit(Random random) {
+        float[] v = new float[DIM];
+        double norm = 0;
+        for (int i = 0; i < DIM; i++) {
+            v[i] = (float) random.nextGaussian();
+            norm += v[i] * v[i];
+        }
+        for (int i = 0; i < DIM; i++) v[i] /= (float) Math.sqrt(norm);
+        return v;
+    }
+}